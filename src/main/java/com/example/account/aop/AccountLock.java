@@ -7,5 +7,29 @@ import java.lang.annotation.*;
 @Documented
 @Inherited
 public @interface AccountLock {
+    /**
+     * leaseTime 에 지정하면 고정 lease 대신 Redisson watchdog 이 해제 시점까지 lease 를 연장한다.
+     */
+    long WATCHDOG = -1L;
+
+    /**
+     * 락 대기 시간(ms), adaptiveWait 가 켜져 있으면 상한으로 사용한다.
+     */
     long tryLockTime() default 5000L;
+
+    /**
+     * 락 점유 시간(ms), 지나면 Redis 락이 자동으로 풀린다.
+     */
+    long leaseTime() default 15000L;
+
+    /**
+     * 메소드별로 관측한 락 점유 시간 p99 를 바탕으로 대기 시간을 줄인다.
+     */
+    boolean adaptiveWait() default false;
+
+    /**
+     * 묶음 처리(account.balance.coalesce.enabled)가 켜져 있으면 TransactionService 가 묶음마다 락을 잡으므로
+     * 요청마다 잡지 않는다.
+     */
+    boolean coalesced() default false;
 }
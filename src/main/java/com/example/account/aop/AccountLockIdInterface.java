@@ -1,5 +1,15 @@
 package com.example.account.aop;
 
+import java.util.Collections;
+import java.util.List;
+
 public interface AccountLockIdInterface {
     String getAccountNumber();
+
+    /**
+     * 여러 계좌를 함께 잠가야 하는 요청은 잠글 계좌번호를 모두 돌려준다.
+     */
+    default List<String> accountNumbersToLock() {
+        return Collections.singletonList(getAccountNumber());
+    }
 }
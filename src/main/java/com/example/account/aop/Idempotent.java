@@ -0,0 +1,15 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * Idempotency-Key 헤더가 있는 요청은 처음 성공한 응답을 저장해 두고,
+ * 같은 키로 다시 들어오면 락과 DB 를 거치지 않고 저장된 응답을 돌려준다.
+ * CompletionStage 를 반환하는 컨트롤러 메소드에만 적용된다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface Idempotent {
+}
@@ -0,0 +1,34 @@
+package com.example.account.config;
+
+import com.example.account.domain.EntityIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * account.id.* 설정을 EntityIdGenerator 가 읽을 수 있도록 Hibernate 속성으로 넘긴다.
+ * time-ordered 의 노드 id 는 거래 id 와 같은 account.transaction-id.node-id 를 쓴다.
+ */
+@Configuration
+public class EntityIdConfig {
+    @Value("${account.id.generator:pooled-lo}")
+    private String generator;
+
+    @Value("${account.id.block-size:50}")
+    private int blockSize;
+
+    @Value("${account.transaction-id.node-id:#{null}}")
+    private Long nodeId;
+
+    @Bean
+    public HibernatePropertiesCustomizer entityIdPropertiesCustomizer() {
+        return properties -> {
+            properties.put(EntityIdGenerator.STRATEGY, generator);
+            properties.put(EntityIdGenerator.BLOCK_SIZE, String.valueOf(blockSize));
+            if (nodeId != null) {
+                properties.put(EntityIdGenerator.NODE_ID, String.valueOf(nodeId));
+            }
+        };
+    }
+}
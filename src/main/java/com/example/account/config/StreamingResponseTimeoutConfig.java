@@ -0,0 +1,34 @@
+package com.example.account.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * 오래 쓰는 스트리밍 응답(거래 내보내기)의 비동기 제한 시간
+ * 핸들러가 요청 속성 TIMEOUT_ATTRIBUTE 에 시간을 남긴 요청만 늘리고, 다른 비동기 응답의 제한 시간은 그대로 둔다.
+ */
+@Configuration
+public class StreamingResponseTimeoutConfig implements WebMvcConfigurer {
+    public static final String TIMEOUT_ATTRIBUTE = StreamingResponseTimeoutConfig.class.getName() + ".timeout";
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                Object timeout = request.getAttribute(TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                if (timeout instanceof Duration && request instanceof AsyncWebRequest) {
+                    ((AsyncWebRequest) request).setTimeout(((Duration) timeout).toMillis());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.account.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 잔액 사용/취소 작업을 처리하는 쓰레드 풀
+ * 락 대기는 이 풀도 점유하지 않으며, 락을 얻은 뒤의 작업만 여기서 실행된다.
+ */
+@Configuration
+public class TransactionExecutorConfig {
+    @Value("${account.transaction.executor.pool-size:16}")
+    private int poolSize;
+
+    @Value("${account.transaction.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor transactionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("transaction-");
+        executor.initialize();
+        return executor;
+    }
+}
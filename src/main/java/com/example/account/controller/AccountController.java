@@ -2,13 +2,17 @@ package com.example.account.controller;
 
 import com.example.account.domain.Account;
 import com.example.account.dto.AccountInfo;
+import com.example.account.dto.BalanceAsOfResponse;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.SplitBalance;
 import com.example.account.service.AccountService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -39,6 +43,21 @@ public class AccountController {
         );
     }
 
+    /**
+     * 요청이 몰리는 계좌의 잔액을 여러 조각으로 나눠 조각마다 따로 차감되게 한다.
+     */
+    @PostMapping("/account/split")
+    public SplitBalance.Response splitBalance(
+            @RequestBody @Valid SplitBalance.Request request
+    ) {
+        return SplitBalance.Response.from(
+                accountService.splitBalance(
+                        request.getUserId(),
+                        request.getAccountNumber(),
+                        request.getSlots())
+        );
+    }
+
     @GetMapping("/account")
     public List<AccountInfo> getAccountsByUserId(
             @RequestParam("user_id") Long userId
@@ -52,6 +71,17 @@ public class AccountController {
     }
 
 
+    /**
+     * asOf 시점의 잔액
+     */
+    @GetMapping("/account/{accountNumber}/balance")
+    public BalanceAsOfResponse getBalanceAsOf(
+            @PathVariable String accountNumber,
+            @RequestParam("asOf") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf
+    ) {
+        return BalanceAsOfResponse.from(accountService.getBalanceAsOf(accountNumber, asOf));
+    }
+
     @GetMapping("/account/{id}")
     public Account getAccount(@PathVariable  Long id) {
         return accountService.getAccount(id);
@@ -1,73 +1,263 @@
 package com.example.account.controller;
 
 import com.example.account.aop.AccountLock;
+import com.example.account.aop.Idempotent;
+import com.example.account.config.StreamingResponseTimeoutConfig;
+import com.example.account.dto.AuthorizeBalance;
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.CaptureBalance;
 import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.TransferBalance;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.dto.VoidBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.service.AcceptedUseBalanceQueue;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.TransactionExporter;
 import com.example.account.service.TransactionService;
+import com.example.account.type.TransactionExportFormat;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * 잔액 관련 컨트롤러
- * 1. 잔액 사용
+ * 1. 잔액 사용 (일괄 사용 포함)
  * 2. 잔액 사용 취소
- * 3. 거래 확인
+ * 3. 계좌 간 이체
+ * 4. 거래 확인
+ * 5. 잔액 홀드 (잡아 두기, 확정, 해제)
+ * 6. 계좌의 거래 내역
+ * 7. 거래 내보내기 (NDJSON/CSV 스트리밍)
+ * 잔액 사용/취소는 락을 기다리는 동안 요청 쓰레드를 반납하도록 CompletableFuture 로 응답한다.
+ * MAILBOX 모드에서는 계좌별 큐에 제출한 결과를 기다렸다가 응답한다.
+ * 묶음 처리가 켜져 있으면 잔액 사용은 같은 계좌의 다른 요청과 함께 커밋된 결과를 기다렸다가 응답한다.
+ * 잔액 사용에 Prefer: respond-async 헤더를 보내면 접수만 하고 202 로 바로 응답하며, 결과는 거래 확인으로 조회한다.
+ * 실패한 요청의 실패 거래는 FailedTransactionRecorder 에 넘기고 저장을 기다리지 않고 응답한다.
+ * Idempotency-Key 헤더를 보내면 같은 키의 재요청에는 처음 응답을 다시 돌려준다.
  */
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class TransactionController {
+    private static final long DOWNSTREAM_DELAY_SECONDS = 3L;
+
     private final TransactionService transactionService;
+    private final AcceptedUseBalanceQueue acceptedUseBalanceQueue;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final TransactionExporter transactionExporter;
+    @Qualifier("transactionExecutor")
+    private final Executor transactionExecutor;
 
+    /**
+     * 하위 시스템의 응답 지연(3초)을 흉내 낸다.
+     * 락 구간(TransactionService.useBalanceAsync)이 끝난 뒤 지연 실행기로 기다리므로 쓰레드도 계좌 락도 붙잡지 않는다.
+     */
     @PostMapping("/transaction/use")
-    @AccountLock
-    public UseBalance.Response useBalance(
+    @Idempotent
+    public CompletableFuture<UseBalance.Response> useBalance(
+            @Valid @RequestBody UseBalance.Request request
+    ) {
+        return transactionService.useBalanceAsync(request)
+                .thenApplyAsync(UseBalance.Response::from,
+                        CompletableFuture.delayedExecutor(DOWNSTREAM_DELAY_SECONDS, TimeUnit.SECONDS))
+                .exceptionally(e -> {
+                    if (unwrap(e) instanceof AccountException) {
+                        log.error("Failed to use balance. ");
+
+                        failedTransactionRecorder.record(TransactionType.USE,
+                                request.getAccountNumber(), request.getAmount());
+                    }
+                    throw toCompletionException(e);
+                });
+    }
+
+    /**
+     * 미리 정한 transactionId 와 P(접수) 상태로 바로 응답한다.
+     * 락은 작업 쓰레드가 처리할 때 잡으므로 @AccountLock 을 붙이지 않는다.
+     */
+    @PostMapping(value = "/transaction/use", headers = "Prefer=respond-async")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Idempotent
+    public CompletableFuture<UseBalance.Response> acceptUseBalance(
             @Valid @RequestBody UseBalance.Request request
-    ) throws InterruptedException {
-        try {
-            Thread.sleep(3000L);
-            return UseBalance.Response.from(transactionService.useBalance(request.getUserId(),
-                    request.getAccountNumber(), request.getAmount()));
-        } catch (AccountException e) {
-            log.error("Failed to use balance. ");
-
-            transactionService.saveFailedUseTransaction(
-                    request.getAccountNumber(),
-                    request.getAmount()
-            );
-
-            throw e;
-        }
+    ) {
+        return CompletableFuture.completedFuture(
+                UseBalance.Response.from(acceptedUseBalanceQueue.accept(request)));
+    }
+
+    /**
+     * 계좌별로 묶어 락을 한 번만 잡고 처리하므로 @AccountLock 을 붙이지 않는다.
+     */
+    @PostMapping("/transaction/use/batch")
+    public CompletableFuture<UseBalanceBatch.Response> useBalanceBatch(
+            @Valid @RequestBody UseBalanceBatch.Request request
+    ) {
+        return transactionService.useBalanceBatchAsync(request.getItems())
+                .thenApply(UseBalanceBatch.Response::from);
     }
 
     @PostMapping("/transaction/cancel")
-    @AccountLock
-    public CancelBalance.Response cancelBalance(
+    @Idempotent
+    @AccountLock(adaptiveWait = true)
+    public CompletableFuture<CancelBalance.Response> cancelBalance(
             @Valid @RequestBody CancelBalance.Request request
     ) {
-        try {
-            return CancelBalance.Response.from(transactionService.cancelBalance(request.getTransactionId(),
-                    request.getAccountNumber(), request.getAmount()));
-        } catch (AccountException e) {
-            log.error("Failed to use balance. ");
-
-            transactionService.saveFailedCancelTransaction(
-                    request.getAccountNumber(),
-                    request.getAmount()
-            );
-
-            throw e;
-        }
+        return CompletableFuture.supplyAsync(() -> transactionService.cancelBalanceAsync(
+                        request.getTransactionId(), request.getAccountNumber(), request.getAmount()),
+                        transactionExecutor)
+                .thenCompose(Function.identity())
+                .handle((transactionDto, e) -> {
+                    if (e == null) {
+                        return CancelBalance.Response.from(transactionDto);
+                    }
+                    if (unwrap(e) instanceof AccountException) {
+                        log.error("Failed to use balance. ");
+
+                        failedTransactionRecorder.record(TransactionType.CANCEL,
+                                request.getAccountNumber(), request.getAmount());
+                    }
+                    throw toCompletionException(e);
+                });
+    }
+
+    @PostMapping("/transaction/transfer")
+    @Idempotent
+    @AccountLock(adaptiveWait = true)
+    public CompletableFuture<TransferBalance.Response> transferBalance(
+            @Valid @RequestBody TransferBalance.Request request
+    ) {
+        return CompletableFuture.supplyAsync(() -> transactionService.transferBalanceAsync(
+                        request.getUserId(), request.getFromAccountNumber(),
+                        request.getToAccountNumber(), request.getAmount()),
+                        transactionExecutor)
+                .thenCompose(Function.identity())
+                .handle((transferDto, e) -> {
+                    if (e == null) {
+                        return TransferBalance.Response.from(transferDto);
+                    }
+                    if (unwrap(e) instanceof AccountException) {
+                        log.error("Failed to transfer balance. ");
+
+                        failedTransactionRecorder.record(TransactionType.TRANSFER_OUT,
+                                request.getFromAccountNumber(), request.getAmount());
+                    }
+                    throw toCompletionException(e);
+                });
+    }
+
+    /**
+     * 잔액을 잡아 두기만 하고 락을 바로 놓는다. 홀드는 거래가 아니므로 실패해도 거래를 남기지 않는다.
+     */
+    @PostMapping("/transaction/authorize")
+    @Idempotent
+    @AccountLock(adaptiveWait = true)
+    public CompletableFuture<AuthorizeBalance.Response> authorizeBalance(
+            @Valid @RequestBody AuthorizeBalance.Request request
+    ) {
+        return CompletableFuture.supplyAsync(() -> transactionService.authorizeBalanceAsync(
+                        request.getUserId(), request.getAccountNumber(), request.getAmount()),
+                        transactionExecutor)
+                .thenCompose(Function.identity())
+                .thenApply(AuthorizeBalance.Response::from);
+    }
+
+    @PostMapping("/transaction/capture")
+    @Idempotent
+    @AccountLock(adaptiveWait = true)
+    public CompletableFuture<CaptureBalance.Response> captureBalance(
+            @Valid @RequestBody CaptureBalance.Request request
+    ) {
+        return CompletableFuture.supplyAsync(() -> transactionService.captureBalanceAsync(
+                        request.getHoldId(), request.getAccountNumber()),
+                        transactionExecutor)
+                .thenCompose(Function.identity())
+                .thenApply(transactionDto -> CaptureBalance.Response.from(request.getHoldId(), transactionDto));
+    }
+
+    @PostMapping("/transaction/void")
+    @Idempotent
+    @AccountLock(adaptiveWait = true)
+    public CompletableFuture<VoidBalance.Response> voidBalance(
+            @Valid @RequestBody VoidBalance.Request request
+    ) {
+        return CompletableFuture.supplyAsync(() -> transactionService.voidBalanceAsync(
+                        request.getHoldId(), request.getAccountNumber()),
+                        transactionExecutor)
+                .thenCompose(Function.identity())
+                .thenApply(VoidBalance.Response::from);
     }
 
     @GetMapping("/transaction/{transactionId}")
     public QueryTransactionResponse queryTransaction(
             @PathVariable String transactionId) {
-        return QueryTransactionResponse.from(transactionService.queryTransaction(transactionId));
+        return QueryTransactionResponse.from(acceptedUseBalanceQueue.findAccepted(transactionId)
+                .orElseGet(() -> transactionService.queryTransaction(transactionId)));
+    }
+
+    /**
+     * 최근 거래부터 size 건씩 응답하고, 응답의 nextCursor 를 cursor 로 넘기면 다음 페이지를 읽는다.
+     */
+    @GetMapping("/account/{accountNumber}/transactions")
+    public TransactionHistory.Response getTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(value = "transaction_type", required = false) TransactionType transactionType,
+            @RequestParam(value = "transaction_result", required = false) TransactionResultType transactionResult,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return TransactionHistory.Response.from(transactionService.getTransactionHistory(
+                accountNumber, transactionType, transactionResult, cursor, size));
+    }
+
+    /**
+     * 조건에 맞는 거래를 모두 내보낸다. 응답을 쓰면서 읽으므로 건수와 관계없이 메모리를 더 쓰지 않는다.
+     * gzip=true 면 압축한 파일(application/gzip)로 내려준다.
+     */
+    @GetMapping("/transaction/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(value = "format", defaultValue = "NDJSON") TransactionExportFormat format,
+            @RequestParam(value = "account_number", required = false) String accountNumber,
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            WebRequest webRequest) {
+        webRequest.setAttribute(StreamingResponseTimeoutConfig.TIMEOUT_ATTRIBUTE,
+                transactionExporter.getTimeout(), RequestAttributes.SCOPE_REQUEST);
+        String filename = "transactions." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(out -> transactionExporter.export(format, accountNumber, from, to, out, gzip));
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static CompletionException toCompletionException(Throwable e) {
+        return e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
     }
 }
@@ -3,6 +3,7 @@ package com.example.account.domain;
 import com.example.account.exception.AccountException;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
@@ -19,25 +20,88 @@ import java.time.LocalDateTime;
 @Entity
 public class Account extends BaseEntity{
 
-    @ManyToOne
+    // 필요한 조회만 엔티티 그래프나 fetch join 으로 함께 읽는다.
+    @ManyToOne(fetch = FetchType.LAZY)
     private AccountUser accountUser;
 
+    @Column(unique = true)
     private String accountNumber;
 
     @Enumerated(EnumType.STRING)
     private AccountStatus accountStatus;
     private Long balance;
 
+    // 이하 내부 상태는 조회 응답(GET /account/{id})에 드러내지 않는다.
+    // 잔액을 나눈 계좌의 조각 수, 나누지 않았으면 null. 나눈 뒤 balance 는 0 이고 잔액은 AccountBalanceSlot 에 있다.
+    @JsonIgnore
+    private Integer balanceSlots;
+
+    // 승인(authorize)으로 잡아 둔 금액의 합, balance 에 포함되어 있지만 사용할 수 없다.
+    @JsonIgnore
+    private Long heldBalance;
+
+    @JsonIgnore
+    @Version
+    private Long version;
+
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
+    // DatabaseLockProvider 가 네이티브 쿼리로만 변경한다. 엔티티 저장 시에는 덮어쓰지 않는다.
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private String lockOwner;
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime lockExpiresAt;
+
+    public boolean isSplitBalance() {
+        return balanceSlots != null;
+    }
+
+    // 조회 응답(JSON)에 드러나지 않도록 getter 이름을 쓰지 않는다.
+    public long availableBalance() {
+        return balance - getHeldAmount();
+    }
+
+    public boolean hasHeldBalance() {
+        return getHeldAmount() > 0;
+    }
+
     public void useBalance(Long amount) {
-        if (amount > balance) {
+        if (amount > availableBalance()) {
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
         }
         balance -= amount;
     }
 
+    public void hold(Long amount) {
+        if (amount > availableBalance()) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        heldBalance = getHeldAmount() + amount;
+    }
+
+    public void releaseHold(Long amount) {
+        heldBalance = getHeldAmount() - amount;
+    }
+
+    /**
+     * 잡아 둔 금액을 실제로 차감한다. 승인할 때 검증했으므로 다시 검증하지 않는다.
+     */
+    public void captureHold(Long amount) {
+        releaseHold(amount);
+        balance -= amount;
+    }
+
+    private long getHeldAmount() {
+        return heldBalance == null ? 0L : heldBalance;
+    }
+
+    public void depositBalance(Long amount) {
+        balance += amount;
+    }
+
     public void cancelBalance(Long amount) {
         if (amount > balance) {
             throw new AccountException(ErrorCode.INVALID_REQUEST);
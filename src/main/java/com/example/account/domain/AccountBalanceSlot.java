@@ -0,0 +1,24 @@
+package com.example.account.domain;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * 잔액을 나눈 계좌의 잔액 조각
+ * 계좌 잔액은 조각 잔액의 합이며, 조각마다 따로 차감할 수 있어서 Account 한 행에 갱신이 몰리지 않는다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "slot"}))
+public class AccountBalanceSlot extends BaseEntity {
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+
+    private Integer slot;
+    private Long balance;
+}
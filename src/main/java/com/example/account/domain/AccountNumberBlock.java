@@ -0,0 +1,23 @@
+package com.example.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 계좌번호 블록 카운터
+ * 노드는 이 행을 잠근 채 nextBlock 을 올리는 방식으로 계좌번호 블록을 하나씩 예약한다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class AccountNumberBlock {
+    @Id
+    private String name;
+
+    private Long nextBlock;
+}
@@ -0,0 +1,27 @@
+package com.example.account.domain;
+
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * sequence 번째 원장 이벤트까지 반영한 계좌 잔액
+ * 같은 sequence 의 스냅샷은 언제 만들어도 같은 값이므로, 백그라운드와 요청이 함께 만들어 겹쳐도 된다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Immutable
+@Table(indexes = @Index(columnList = "account_id, sequence"))
+public class AccountSnapshot extends BaseEntity {
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+
+    private Long sequence;
+    private Long balance;
+    private LocalDateTime takenAt;
+}
@@ -0,0 +1,41 @@
+package com.example.account.domain;
+
+import com.example.account.type.HoldStatus;
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 승인(authorize)으로 잡아 둔 잔액
+ * 잡아 둔 금액은 Account.heldBalance 에 더해져 사용 가능 잔액에서 빠지고,
+ * 확정(capture)하면 USE 거래가 되고, 해제(void)하거나 기한이 지나면 다시 사용 가능 잔액으로 돌아간다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(indexes = @Index(columnList = "holdStatus, expiresAt"))
+public class BalanceHold extends BaseEntity {
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+
+    @Column(unique = true)
+    private String holdId;
+    private Long amount;
+
+    @Enumerated(EnumType.STRING)
+    private HoldStatus holdStatus;
+
+    private LocalDateTime authorizedAt;
+    private LocalDateTime expiresAt;
+
+    // 확정할 때 만든 USE 거래의 id
+    private String transactionId;
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt.isBefore(now);
+    }
+}
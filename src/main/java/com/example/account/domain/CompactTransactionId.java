@@ -0,0 +1,40 @@
+package com.example.account.domain;
+
+import java.util.OptionalLong;
+
+/**
+ * 숫자(long)로 저장하는 거래 id 의 문자열 형식
+ * 16자리 소문자 16진수로, 기존 32자리 UUID 형식과 길이로 구분된다.
+ * 앞자리가 시간이므로 문자열 순서와 숫자 순서가 같다.
+ */
+public final class CompactTransactionId {
+    public static final int LENGTH = 16;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private CompactTransactionId() {
+    }
+
+    public static String format(long transactionNo) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = HEX_DIGITS[(int) (transactionNo & 0xF)];
+            transactionNo >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    public static OptionalLong parse(String transactionId) {
+        if (transactionId == null || transactionId.length() != LENGTH) {
+            return OptionalLong.empty();
+        }
+        long transactionNo = 0L;
+        for (int i = 0; i < LENGTH; i++) {
+            int digit = Character.digit(transactionId.charAt(i), 16);
+            if (digit < 0 || Character.isUpperCase(transactionId.charAt(i))) {
+                return OptionalLong.empty();
+            }
+            transactionNo = (transactionNo << 4) | digit;
+        }
+        return OptionalLong.of(transactionNo);
+    }
+}
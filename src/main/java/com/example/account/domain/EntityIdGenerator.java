@@ -0,0 +1,95 @@
+package com.example.account.domain;
+
+import com.example.account.service.TimeOrderedTransactionIdGenerator;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Account, AccountUser, Transaction 이 함께 쓰는 id 생성기
+ * - pooled-lo : hibernate_sequence 를 block-size 씩 올리고 그 사이 값은 메모리에서 내준다.
+ * - time-ordered : DB 를 거치지 않고 노드 안에서 시간순 long id 를 만든다.
+ * - sequence : 저장할 때마다 시퀀스를 한 번 조회하는 기존 방식
+ * 설정은 EntityIdConfig 가 Hibernate 속성으로 넘겨준다.
+ */
+public class EntityIdGenerator implements IdentifierGenerator {
+    public static final String NAME = "entity-id";
+    public static final String STRATEGY = "account.id.generator";
+    public static final String BLOCK_SIZE = "account.id.block-size";
+    public static final String NODE_ID = "account.id.node-id";
+
+    private static final String POOLED_LO = "pooled-lo";
+    private static final String TIME_ORDERED = "time-ordered";
+    private static final String SEQUENCE = "sequence";
+
+    private SequenceStyleGenerator sequenceGenerator;
+    private TimeOrderedTransactionIdGenerator timeOrderedGenerator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        String strategy = setting(settings, STRATEGY, POOLED_LO);
+
+        if (TIME_ORDERED.equals(strategy)) {
+            String nodeId = setting(settings, NODE_ID, null);
+            if (nodeId == null) {
+                throw new MappingException("account.transaction-id.node-id must be set");
+            }
+            timeOrderedGenerator = new TimeOrderedTransactionIdGenerator(Long.parseLong(nodeId));
+            return;
+        }
+
+        Properties sequenceParams = new Properties();
+        sequenceParams.putAll(params);
+        // 생성기 이름(entity-id)이 시퀀스 이름으로 쓰이지 않도록 기존 시퀀스를 지정한다.
+        sequenceParams.put(SequenceStyleGenerator.SEQUENCE_PARAM, SequenceStyleGenerator.DEF_SEQUENCE_NAME);
+        if (POOLED_LO.equals(strategy)) {
+            sequenceParams.put(SequenceStyleGenerator.INCREMENT_PARAM,
+                    setting(settings, BLOCK_SIZE, "50"));
+            sequenceParams.put(SequenceStyleGenerator.OPT_PARAM, POOLED_LO);
+        } else if (SEQUENCE.equals(strategy)) {
+            sequenceParams.put(SequenceStyleGenerator.INCREMENT_PARAM, "1");
+        } else {
+            throw new MappingException("Unknown " + STRATEGY + " : " + strategy);
+        }
+        sequenceGenerator = new SequenceStyleGenerator();
+        sequenceGenerator.configure(type, sequenceParams, serviceRegistry);
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        if (sequenceGenerator != null) {
+            sequenceGenerator.registerExportables(database);
+        }
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        if (sequenceGenerator != null) {
+            sequenceGenerator.initialize(context);
+        }
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        if (timeOrderedGenerator != null) {
+            return timeOrderedGenerator.nextNumber();
+        }
+        return sequenceGenerator.generate(session, object);
+    }
+
+    private static String setting(Map<?, ?> settings, String name, String defaultValue) {
+        Object value = settings.get(name);
+        return value == null ? defaultValue : String.valueOf(value);
+    }
+}
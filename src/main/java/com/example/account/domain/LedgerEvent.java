@@ -0,0 +1,48 @@
+package com.example.account.domain;
+
+import com.example.account.type.LedgerEventType;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * EVENT_SOURCED 모드의 원장 이벤트
+ * 계좌마다 1 부터 빈틈없이 늘어나는 sequence 로 덧붙이기만 하고 바꾸지 않는다.
+ * 같은 sequence 를 두 번 덧붙이면 유일 제약으로 실패하므로 동시에 쓴 작성자 중 하나만 남는다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Immutable
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "sequence"}))
+public class LedgerEvent extends BaseEntity {
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    private LedgerEventType eventType;
+    private Long amount;
+
+    // 이벤트를 만든 거래의 id, CREATE 는 null
+    private String transactionId;
+    private LocalDateTime occurredAt;
+
+    /**
+     * 이 이벤트를 반영한 잔액
+     */
+    public long applyTo(long balance) {
+        switch (eventType) {
+            case USE:
+            case TRANSFER_OUT:
+                return balance - amount;
+            default:
+                return balance + amount;
+        }
+    }
+}
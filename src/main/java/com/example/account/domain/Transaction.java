@@ -10,6 +10,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.util.OptionalLong;
 
 @Getter
 @Setter
@@ -17,6 +18,11 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(columnList = "transactionId"),
+        // 계좌별 거래 내역을 최근 것부터 keyset 으로 읽는다.
+        @Index(columnList = "account_id, transactedAt, id")
+})
 public class Transaction extends BaseEntity{
 
     @Enumerated(EnumType.STRING)
@@ -24,11 +30,39 @@ public class Transaction extends BaseEntity{
     @Enumerated(EnumType.STRING)
     private TransactionResultType transactionResultType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Account account;
     private Long amount;
     private Long balanceSnapshot;
 
+    // 기존 UUID 형식 id, 시간순 id 는 transactionNo 에만 저장한다.
     private String transactionId;
+    @Column(unique = true)
+    private Long transactionNo;
+    // 이체의 출금/입금 거래를 묶는 id, 이체가 아니면 null
+    private String transferId;
     private LocalDateTime transactedAt;
+
+    public String getTransactionId() {
+        if (transactionId == null && transactionNo != null) {
+            return CompactTransactionId.format(transactionNo);
+        }
+        return transactionId;
+    }
+
+    public static class TransactionBuilder {
+        /**
+         * 시간순 id 는 숫자 컬럼에, 그 외 id 는 문자열 컬럼에 저장한다.
+         */
+        public TransactionBuilder transactionId(String transactionId) {
+            OptionalLong transactionNo = CompactTransactionId.parse(transactionId);
+            if (transactionNo.isPresent()) {
+                this.transactionNo = transactionNo.getAsLong();
+                this.transactionId = null;
+            } else {
+                this.transactionId = transactionId;
+            }
+            return this;
+        }
+    }
 }
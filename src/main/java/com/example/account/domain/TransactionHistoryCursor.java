@@ -0,0 +1,41 @@
+package com.example.account.domain;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 거래 내역 페이지를 이어 읽을 위치, 마지막으로 돌려준 거래의 (transactedAt, id)
+ * 몇 번째 페이지인지가 아니라 위치로 찾아가므로(keyset) 뒤쪽 페이지도 앞의 행을 건너뛰며 읽지 않는다.
+ * 클라이언트에는 URL 에 그대로 쓸 수 있는 문자열로 내준다.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class TransactionHistoryCursor {
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime transactedAt;
+    private final Long id;
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((transactedAt + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionHistoryCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            return new TransactionHistoryCursor(
+                    LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+}
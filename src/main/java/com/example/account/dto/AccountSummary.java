@@ -0,0 +1,14 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+/**
+ * 계좌 목록 조회용 projection, AccountInfo 에 필요한 컬럼만 읽는다.
+ * 잔액을 나눈 계좌의 balance 는 조각 잔액의 합이다.
+ */
+@Getter
+@AllArgsConstructor
+public class AccountSummary {
+    private String accountNumber;
+    private Long balance;
+}
@@ -0,0 +1,15 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceAsOfDto {
+    private String accountNumber;
+    private LocalDateTime asOf;
+    private Long balance;
+}
@@ -0,0 +1,23 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceAsOfResponse {
+    private String accountNumber;
+    private LocalDateTime asOf;
+    private Long balance;
+
+    public static BalanceAsOfResponse from(BalanceAsOfDto balanceAsOfDto) {
+        return BalanceAsOfResponse.builder()
+                .accountNumber(balanceAsOfDto.getAccountNumber())
+                .asOf(balanceAsOfDto.getAsOf())
+                .balance(balanceAsOfDto.getBalance())
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.account.dto;
+
+import com.example.account.type.ErrorCode;
+import lombok.*;
+
+/**
+ * 일괄 요청의 항목별 처리 결과
+ * 실패한 항목은 errorCode 가 채워지며, 실패 거래가 기록된 경우 transaction 도 함께 돌려준다.
+ */
+@Getter@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchItemDto {
+    private String accountNumber;
+    private Long amount;
+    private TransactionDto transaction;
+    private ErrorCode errorCode;
+}
@@ -0,0 +1,20 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 나중에 모아서 저장할 실패 거래, 실패한 시각을 그대로 거래 시각으로 남긴다.
+ */
+@Getter@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FailedTransactionDto {
+    private TransactionType transactionType;
+    private String accountNumber;
+    private Long amount;
+    private LocalDateTime failedAt;
+}
@@ -0,0 +1,31 @@
+package com.example.account.dto;
+
+import com.example.account.domain.BalanceHold;
+import com.example.account.type.HoldStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HoldDto {
+    private String accountNumber;
+    private String holdId;
+    private Long amount;
+    private HoldStatus holdStatus;
+    private LocalDateTime authorizedAt;
+    private LocalDateTime expiresAt;
+
+    public static HoldDto fromEntity(BalanceHold balanceHold) {
+        return HoldDto.builder()
+                .accountNumber(balanceHold.getAccount().getAccountNumber())
+                .holdId(balanceHold.getHoldId())
+                .amount(balanceHold.getAmount())
+                .holdStatus(balanceHold.getHoldStatus())
+                .authorizedAt(balanceHold.getAuthorizedAt())
+                .expiresAt(balanceHold.getExpiresAt())
+                .build();
+    }
+}
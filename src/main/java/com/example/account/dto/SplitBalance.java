@@ -0,0 +1,48 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+public class SplitBalance {
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request{
+        @NotNull
+        @Min(1)
+        private Long userId;
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String accountNumber;
+        @NotNull
+        @Min(2)
+        @Max(64)
+        private Integer slots;
+
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response{
+        private Long userId;
+        private String accountNumber;
+        private Long balance;
+
+        public static Response from(AccountDto accountDto) {
+            return Response.builder()
+                    .userId(accountDto.getUserId())
+                    .accountNumber(accountDto.getAccountNumber())
+                    .balance(accountDto.getBalance())
+                    .build();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.account.dto;
 
+import com.example.account.domain.CompactTransactionId;
 import com.example.account.domain.Transaction;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
@@ -18,6 +19,7 @@ public class TransactionDto {
     private Long amount;
     private Long balanceSnapshot;
     private String transactionId;
+    private String transferId;
     private LocalDateTime transactedAt;
 
     public static TransactionDto fromEntity(Transaction transaction) {
@@ -28,7 +30,41 @@ public class TransactionDto {
                 .amount(transaction.getAmount())
                 .balanceSnapshot(transaction.getBalanceSnapshot())
                 .transactionId(transaction.getTransactionId())
+                .transferId(transaction.getTransferId())
                 .transactedAt(transaction.getTransactedAt())
                 .build();
     }
+
+    /**
+     * 조회 응답에 쓰는 필드만 채운다.
+     */
+    public static TransactionDto fromSummary(TransactionSummary summary) {
+        return TransactionDto.builder()
+                .accountNumber(summary.getAccountNumber())
+                .transactionType(summary.getTransactionType())
+                .transactionResultType(summary.getTransactionResultType())
+                .amount(summary.getAmount())
+                .transactionId(transactionId(summary.getTransactionId(), summary.getTransactionNo()))
+                .transactedAt(summary.getTransactedAt())
+                .build();
+    }
+
+    public static TransactionDto fromHistoryItem(String accountNumber, TransactionHistoryItem item) {
+        return TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(item.getTransactionType())
+                .transactionResultType(item.getTransactionResultType())
+                .amount(item.getAmount())
+                .balanceSnapshot(item.getBalanceSnapshot())
+                .transactionId(transactionId(item.getTransactionId(), item.getTransactionNo()))
+                .transactedAt(item.getTransactedAt())
+                .build();
+    }
+
+    private static String transactionId(String transactionId, Long transactionNo) {
+        if (transactionId == null && transactionNo != null) {
+            return CompactTransactionId.format(transactionNo);
+        }
+        return transactionId;
+    }
 }
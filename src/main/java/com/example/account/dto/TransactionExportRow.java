@@ -0,0 +1,33 @@
+package com.example.account.dto;
+
+import com.example.account.domain.CompactTransactionId;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 거래 내보내기용 projection, 영속성 컨텍스트에 쌓이지 않으므로 몇 건을 읽어도 메모리가 늘지 않는다.
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionExportRow {
+    private String accountNumber;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    @Getter(AccessLevel.NONE)
+    private String transactionId;
+    private Long transactionNo;
+    private Long amount;
+    private Long balanceSnapshot;
+    private String transferId;
+    private LocalDateTime transactedAt;
+
+    public String getTransactionId() {
+        if (transactionId == null && transactionNo != null) {
+            return CompactTransactionId.format(transactionNo);
+        }
+        return transactionId;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TransactionHistory {
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private List<Item> transactions;
+        private String nextCursor;
+
+        public static Response from(TransactionHistoryDto transactionHistoryDto) {
+            return Response.builder()
+                    .accountNumber(transactionHistoryDto.getAccountNumber())
+                    .transactions(transactionHistoryDto.getTransactions().stream()
+                            .map(Item::from)
+                            .collect(Collectors.toList()))
+                    .nextCursor(transactionHistoryDto.getNextCursor())
+                    .build();
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        private TransactionType transactionType;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        private Long amount;
+        private Long balanceSnapshot;
+        private LocalDateTime registeredAt;
+
+        public static Item from(TransactionDto transactionDto) {
+            return Item.builder()
+                    .transactionType(transactionDto.getTransactionType())
+                    .transactionResult(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .balanceSnapshot(transactionDto.getBalanceSnapshot())
+                    .registeredAt(transactionDto.getTransactedAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistoryDto {
+    private String accountNumber;
+    private List<TransactionDto> transactions;
+    // 마지막 페이지면 null
+    private String nextCursor;
+}
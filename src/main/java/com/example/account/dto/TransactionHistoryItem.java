@@ -0,0 +1,23 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 거래 내역 조회용 projection, 계좌를 조인하지 않고 다음 페이지 위치에 쓸 id 를 함께 읽는다.
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionHistoryItem {
+    private Long id;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    private String transactionId;
+    private Long transactionNo;
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+}
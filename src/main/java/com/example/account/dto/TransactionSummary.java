@@ -0,0 +1,22 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 거래 조회용 projection, QueryTransactionResponse 에 필요한 컬럼만 읽는다.
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionSummary {
+    private String accountNumber;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    private String transactionId;
+    private Long transactionNo;
+    private Long amount;
+    private LocalDateTime transactedAt;
+}
@@ -0,0 +1,73 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.TransactionResultType;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+public class TransferBalance {
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String fromAccountNumber;
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String toAccountNumber;
+        @NotNull
+        @Min(10)
+        @Max(1000_000_000)
+        private Long amount;
+
+        @Override
+        public String getAccountNumber() {
+            return fromAccountNumber;
+        }
+
+        @Override
+        public List<String> accountNumbersToLock() {
+            return Arrays.asList(fromAccountNumber, toAccountNumber);
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response{
+        private String transferId;
+        private String fromAccountNumber;
+        private String toAccountNumber;
+        private TransactionResultType transactionResult;
+        private String withdrawTransactionId;
+        private String depositTransactionId;
+        private Long amount;
+        private LocalDateTime registeredAt;
+
+        public static Response from(TransferDto transferDto) {
+            TransactionDto withdraw = transferDto.getWithdraw();
+            TransactionDto deposit = transferDto.getDeposit();
+            return Response.builder()
+                    .transferId(transferDto.getTransferId())
+                    .fromAccountNumber(withdraw.getAccountNumber())
+                    .toAccountNumber(deposit.getAccountNumber())
+                    .transactionResult(withdraw.getTransactionResultType())
+                    .withdrawTransactionId(withdraw.getTransactionId())
+                    .depositTransactionId(deposit.getTransactionId())
+                    .amount(withdraw.getAmount())
+                    .registeredAt(withdraw.getTransactedAt())
+                    .build();
+        }
+    }
+}
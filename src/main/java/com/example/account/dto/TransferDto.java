@@ -0,0 +1,13 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+@Getter@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferDto {
+    private String transferId;
+    private TransactionDto withdraw;
+    private TransactionDto deposit;
+}
@@ -0,0 +1,69 @@
+package com.example.account.dto;
+
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class UseBalanceBatch {
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request {
+        @NotEmpty
+        @Size(max = 1000)
+        @Valid
+        private List<UseBalance.Request> items;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private List<Item> results;
+
+        public static Response from(List<BatchItemDto> batchItemDtos) {
+            return Response.builder()
+                    .results(batchItemDtos.stream()
+                            .map(Item::from)
+                            .collect(Collectors.toList()))
+                    .build();
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        private String accountNumber;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        private Long amount;
+        private LocalDateTime registeredAt;
+        private ErrorCode errorCode;
+
+        public static Item from(BatchItemDto batchItemDto) {
+            TransactionDto transactionDto = batchItemDto.getTransaction();
+            return Item.builder()
+                    .accountNumber(batchItemDto.getAccountNumber())
+                    .transactionResult(transactionDto == null
+                            ? TransactionResultType.F : transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto == null ? null : transactionDto.getTransactionId())
+                    .amount(batchItemDto.getAmount())
+                    .registeredAt(transactionDto == null ? null : transactionDto.getTransactedAt())
+                    .errorCode(batchItemDto.getErrorCode())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountBalanceSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, Long> {
+    /**
+     * 조각 잔액이 모자라면 바꾸지 않고 0 을 돌려준다.
+     */
+    @Modifying
+    @Query("update AccountBalanceSlot s set s.balance = s.balance - :amount "
+            + "where s.account.id = :accountId and s.slot = :slot and s.balance >= :amount")
+    int debit(@Param("accountId") Long accountId,
+              @Param("slot") Integer slot,
+              @Param("amount") Long amount);
+
+    @Modifying
+    @Query("update AccountBalanceSlot s set s.balance = s.balance + :amount "
+            + "where s.account.id = :accountId and s.slot = :slot")
+    int credit(@Param("accountId") Long accountId,
+               @Param("slot") Integer slot,
+               @Param("amount") Long amount);
+
+    /**
+     * 조각 번호 순서의 잔액, 엔티티로 읽지 않아서 이후 UPDATE 나 잠금 조회와 영속성 컨텍스트가 어긋나지 않는다.
+     */
+    @Query("select s.balance from AccountBalanceSlot s where s.account.id = :accountId order by s.slot")
+    List<Long> findBalancesByAccountId(@Param("accountId") Long accountId);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountBalanceSlot s where s.account.id = :accountId")
+    Long sumBalance(@Param("accountId") Long accountId);
+
+    /**
+     * 조각 번호 순서로 잠가서 재분배끼리 교착되지 않게 한다.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AccountBalanceSlot s where s.account.id = :accountId order by s.slot")
+    List<AccountBalanceSlot> findForUpdateByAccountId(@Param("accountId") Long accountId);
+}
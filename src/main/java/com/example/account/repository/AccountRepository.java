@@ -2,9 +2,17 @@ package com.example.account.repository;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountSummary;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,7 +24,51 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     Optional<Account> findByAccountNumber(String accountNumber);
 
-    List<Account> findByAccountUser(AccountUser accountUser);
+    /**
+     * 조회 응답으로 엔티티를 그대로 내보내므로 사용자를 함께 읽는다.
+     */
+    @EntityGraph(attributePaths = "accountUser")
+    Optional<Account> findWithAccountUserById(Long id);
+
+    /**
+     * 사용자의 계좌 목록을 한 문장으로 읽는다. 잔액을 나눈 계좌는 조각 잔액의 합을 함께 구한다.
+     */
+    @Query("select new com.example.account.dto.AccountSummary(a.accountNumber, "
+            + "case when a.balanceSlots is null then a.balance "
+            + "else (select coalesce(sum(s.balance), 0) from AccountBalanceSlot s where s.account = a) end) "
+            + "from Account a where a.accountUser.id = :userId order by a.id")
+    List<AccountSummary> findSummariesByAccountUserId(@Param("userId") Long userId);
+
+    @Query("select a.id from Account a where a.accountNumber = :accountNumber")
+    Optional<Long> findIdByAccountNumber(@Param("accountNumber") String accountNumber);
 
     boolean existsByAccountNumber(String newAccountNumber);
+
+    boolean existsByAccountNumberAndBalanceSlotsNotNull(String accountNumber);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.accountNumber = :accountNumber")
+    Optional<Account> findForUpdateByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Modifying
+    @Query(value = "update account set lock_owner = :lockOwner, lock_expires_at = :lockExpiresAt where id = :id",
+            nativeQuery = true)
+    int updateLockOwner(@Param("id") Long id,
+                        @Param("lockOwner") String lockOwner,
+                        @Param("lockExpiresAt") LocalDateTime lockExpiresAt);
+
+    @Modifying
+    @Query(value = "update account set lock_expires_at = :lockExpiresAt "
+            + "where account_number = :accountNumber and lock_owner = :lockOwner",
+            nativeQuery = true)
+    int renewLockOwner(@Param("accountNumber") String accountNumber,
+                       @Param("lockOwner") String lockOwner,
+                       @Param("lockExpiresAt") LocalDateTime lockExpiresAt);
+
+    @Modifying
+    @Query(value = "update account set lock_owner = null, lock_expires_at = null "
+            + "where account_number = :accountNumber and lock_owner = :lockOwner",
+            nativeQuery = true)
+    int releaseLockOwner(@Param("accountNumber") String accountNumber,
+                         @Param("lockOwner") String lockOwner);
 }
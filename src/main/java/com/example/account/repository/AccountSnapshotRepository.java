@@ -0,0 +1,12 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AccountSnapshotRepository extends JpaRepository<AccountSnapshot, Long> {
+    Optional<AccountSnapshot> findFirstByAccountIdOrderBySequenceDesc(Long accountId);
+}
@@ -0,0 +1,24 @@
+package com.example.account.repository;
+
+import com.example.account.domain.BalanceHold;
+import com.example.account.type.HoldStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceHoldRepository extends JpaRepository<BalanceHold, Long> {
+    Optional<BalanceHold> findByHoldId(String holdId);
+
+    /**
+     * BalanceHoldSweeper 가 홀드마다 계좌 번호를 쓰므로 계좌를 함께 읽는다.
+     */
+    @EntityGraph(attributePaths = "account")
+    List<BalanceHold> findByHoldStatusAndExpiresAtBeforeOrderByExpiresAt(
+            HoldStatus holdStatus, LocalDateTime expiresAt, Pageable pageable);
+}
@@ -0,0 +1,22 @@
+package com.example.account.repository;
+
+import com.example.account.domain.LedgerEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LedgerEventRepository extends JpaRepository<LedgerEvent, Long> {
+    /**
+     * sequence 뒤의 이벤트를 순서대로 읽는다. (account_id, sequence) 유일 제약의 인덱스를 탄다.
+     */
+    @Query("select e from LedgerEvent e where e.account.id = :accountId and e.sequence > :sequence "
+            + "order by e.sequence")
+    List<LedgerEvent> findAfter(@Param("accountId") Long accountId,
+                                @Param("sequence") Long sequence);
+
+    long countByAccountId(Long accountId);
+}
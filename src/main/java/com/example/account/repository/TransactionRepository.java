@@ -3,13 +3,93 @@ package com.example.account.repository;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionHistoryItem;
+import com.example.account.dto.TransactionSummary;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     Optional<Transaction> findByTransactionId(String transactionId);
+
+    Optional<Transaction> findByTransactionNo(Long transactionNo);
+
+    List<Transaction> findByTransactionNoIn(Collection<Long> transactionNos);
+
+    List<Transaction> findByTransactionIdIn(Collection<String> transactionIds);
+
+    @Query("select new com.example.account.dto.TransactionSummary(a.accountNumber, t.transactionType, "
+            + "t.transactionResultType, t.transactionId, t.transactionNo, t.amount, t.transactedAt) "
+            + "from Transaction t join t.account a where t.transactionNo = :transactionNo")
+    Optional<TransactionSummary> findSummaryByTransactionNo(@Param("transactionNo") Long transactionNo);
+
+    @Query("select new com.example.account.dto.TransactionSummary(a.accountNumber, t.transactionType, "
+            + "t.transactionResultType, t.transactionId, t.transactionNo, t.amount, t.transactedAt) "
+            + "from Transaction t join t.account a where t.transactionId = :transactionId")
+    Optional<TransactionSummary> findSummaryByTransactionId(@Param("transactionId") String transactionId);
+
+    /**
+     * 계좌의 거래를 최근 것부터 읽는다. (account_id, transactedAt, id) 인덱스를 거꾸로 따라가며 필터에 맞는 행만 남긴다.
+     */
+    @Query("select new com.example.account.dto.TransactionHistoryItem(t.id, t.transactionType, "
+            + "t.transactionResultType, t.transactionId, t.transactionNo, t.amount, t.balanceSnapshot, t.transactedAt) "
+            + "from Transaction t where t.account.id = :accountId "
+            + "and (:transactionType is null or t.transactionType = :transactionType) "
+            + "and (:transactionResultType is null or t.transactionResultType = :transactionResultType) "
+            + "order by t.transactedAt desc, t.id desc")
+    List<TransactionHistoryItem> findHistory(@Param("accountId") Long accountId,
+                                             @Param("transactionType") TransactionType transactionType,
+                                             @Param("transactionResultType") TransactionResultType transactionResultType,
+                                             Pageable pageable);
+
+    /**
+     * findHistory 의 다음 페이지, 앞 페이지의 마지막 거래 (transactedAt, id) 뒤부터 인덱스에서 바로 찾아 읽는다.
+     */
+    @Query("select new com.example.account.dto.TransactionHistoryItem(t.id, t.transactionType, "
+            + "t.transactionResultType, t.transactionId, t.transactionNo, t.amount, t.balanceSnapshot, t.transactedAt) "
+            + "from Transaction t where t.account.id = :accountId "
+            + "and (t.transactedAt < :transactedAt or (t.transactedAt = :transactedAt and t.id < :id)) "
+            + "and (:transactionType is null or t.transactionType = :transactionType) "
+            + "and (:transactionResultType is null or t.transactionResultType = :transactionResultType) "
+            + "order by t.transactedAt desc, t.id desc")
+    List<TransactionHistoryItem> findHistoryBefore(@Param("accountId") Long accountId,
+                                                   @Param("transactionType") TransactionType transactionType,
+                                                   @Param("transactionResultType") TransactionResultType transactionResultType,
+                                                   @Param("transactedAt") LocalDateTime transactedAt,
+                                                   @Param("id") Long id,
+                                                   Pageable pageable);
+
+    /**
+     * asOf 이전(포함) 마지막 성공 거래, (account_id, transactedAt, id) 인덱스를 asOf 에서 거꾸로 한 번 찾아간다.
+     */
+    @Query("select new com.example.account.dto.TransactionHistoryItem(t.id, t.transactionType, "
+            + "t.transactionResultType, t.transactionId, t.transactionNo, t.amount, t.balanceSnapshot, t.transactedAt) "
+            + "from Transaction t where t.account.id = :accountId and t.transactedAt <= :asOf "
+            + "and t.transactionResultType = com.example.account.type.TransactionResultType.S "
+            + "order by t.transactedAt desc, t.id desc")
+    List<TransactionHistoryItem> findLastSucceededAtOrBefore(@Param("accountId") Long accountId,
+                                                             @Param("asOf") LocalDateTime asOf,
+                                                             Pageable pageable);
+
+    /**
+     * asOf 뒤의 첫 성공 거래, 그 이전 거래가 없을 때 처음 잔액을 거꾸로 구하는 데 쓴다.
+     */
+    @Query("select new com.example.account.dto.TransactionHistoryItem(t.id, t.transactionType, "
+            + "t.transactionResultType, t.transactionId, t.transactionNo, t.amount, t.balanceSnapshot, t.transactedAt) "
+            + "from Transaction t where t.account.id = :accountId and t.transactedAt > :asOf "
+            + "and t.transactionResultType = com.example.account.type.TransactionResultType.S "
+            + "order by t.transactedAt, t.id")
+    List<TransactionHistoryItem> findFirstSucceededAfter(@Param("accountId") Long accountId,
+                                                         @Param("asOf") LocalDateTime asOf,
+                                                         Pageable pageable);
 }
@@ -0,0 +1,147 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.BalanceConcurrencyMode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.ErrorCode.TRANSACTION_QUEUE_FULL;
+import static com.example.account.type.TransactionResultType.P;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 접수만 하고 바로 응답하는 잔액 사용 요청의 작업 큐
+ * 접수할 때 transactionId 를 정해 돌려주고, 전용 작업 쓰레드가 TransactionService.useBalance 로 처리한다.
+ * 처리 전에는 거래 조회에 P(접수) 로 보이고, 처리한 뒤에는 같은 id 의 성공/실패 거래로 보인다.
+ * 큐가 가득 차면 기다리지 않고 TRANSACTION_QUEUE_FULL 로 거절하므로 호출하는 쪽이 속도를 늦출 수 있다.
+ * 접수한 요청은 이 노드의 메모리에만 있으므로, 처리 전에 노드가 죽으면 사라지고 다른 노드에서는 접수 상태를 조회할 수 없다.
+ */
+@Slf4j
+@Component
+public class AcceptedUseBalanceQueue {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30L;
+
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final BalanceConcurrencyMode concurrencyMode;
+    private final ThreadPoolExecutor workers;
+    private final ConcurrentMap<String, TransactionDto> accepted = new ConcurrentHashMap<>();
+
+    public AcceptedUseBalanceQueue(
+            TransactionService transactionService,
+            LockService lockService,
+            TransactionIdGenerator transactionIdGenerator,
+            MeterRegistry meterRegistry,
+            @Value("${account.balance.concurrency-mode:LOCK}") BalanceConcurrencyMode concurrencyMode,
+            @Value("${account.balance.accept.workers:4}") int workers,
+            @Value("${account.balance.accept.queue-capacity:10000}") int queueCapacity
+    ) {
+        if (workers <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("account.balance.accept.workers and queue-capacity must be positive");
+        }
+        this.transactionService = transactionService;
+        this.lockService = lockService;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.concurrencyMode = concurrencyMode;
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("use-balance-worker-"));
+        Gauge.builder("account.balance.accept.queue.size", this, AcceptedUseBalanceQueue::getQueueSize)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 요청을 큐에 넣고 접수 상태의 거래를 돌려준다.
+     */
+    public TransactionDto accept(UseBalance.Request request) {
+        TransactionDto pending = TransactionDto.builder()
+                .accountNumber(request.getAccountNumber())
+                .transactionType(USE)
+                .transactionResultType(P)
+                .amount(request.getAmount())
+                .transactionId(transactionIdGenerator.nextId())
+                .transactedAt(LocalDateTime.now())
+                .build();
+        accepted.put(pending.getTransactionId(), pending);
+        try {
+            workers.execute(() -> process(request, pending.getTransactionId()));
+        } catch (RejectedExecutionException e) {
+            accepted.remove(pending.getTransactionId());
+            throw new AccountException(TRANSACTION_QUEUE_FULL);
+        }
+        return pending;
+    }
+
+    /**
+     * 아직 처리하지 않은 접수 거래, 처리한 거래는 DB 에 저장된 뒤에 여기서 빠진다.
+     */
+    public Optional<TransactionDto> findAccepted(String transactionId) {
+        return Optional.ofNullable(accepted.get(transactionId));
+    }
+
+    public int getQueueSize() {
+        return workers.getQueue().size();
+    }
+
+    private void process(UseBalance.Request request, String transactionId) {
+        try {
+            use(request, transactionId);
+        } catch (RuntimeException e) {
+            log.error("Failed to use accepted balance. transactionId : {}", transactionId, e);
+            saveFailedQuietly(request, transactionId);
+        } finally {
+            accepted.remove(transactionId);
+        }
+    }
+
+    private void use(UseBalance.Request request, String transactionId) {
+        if (concurrencyMode == BalanceConcurrencyMode.LOCK) {
+            lockService.lock(request.getAccountNumber());
+            try {
+                transactionService.useBalance(request.getUserId(), request.getAccountNumber(),
+                        request.getAmount(), transactionId);
+            } finally {
+                lockService.unlock(request.getAccountNumber());
+            }
+            return;
+        }
+        transactionService.useBalanceAsync(request.getUserId(), request.getAccountNumber(),
+                request.getAmount(), transactionId).join();
+    }
+
+    private void saveFailedQuietly(UseBalance.Request request, String transactionId) {
+        try {
+            transactionService.saveFailedUseTransaction(request.getAccountNumber(), request.getAmount(), transactionId);
+        } catch (RuntimeException e) {
+            // 계좌가 없는 등 실패 거래도 남길 수 없으면 조회 시 TRANSACTION_NOT_FOUND 가 된다.
+            log.error("Failed to save failed accepted transaction. transactionId : {}", transactionId, e);
+        }
+    }
+
+    /**
+     * 새 요청은 받지 않고, 이미 접수한 요청은 처리한 뒤 멈춘다.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("{} accepted use balance requests were not processed.", workers.shutdownNow().size());
+        }
+    }
+}
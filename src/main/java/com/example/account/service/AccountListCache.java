@@ -0,0 +1,202 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 사용자별 계좌 목록 캐시
+ * 계좌 생성/해지와 잔액 변경 시 그 사용자의 목록을 지우고, 다음 조회에서 다시 읽는다.
+ * 지우기는 트랜잭션이 끝난 뒤에 하므로, 커밋 전의 옛 잔액을 다시 읽어 캐시하는 일이 없다.
+ * 읽는 동안 지워진 목록은 넣지 않는다(loading 자리표시를 replace 로 바꿀 때만 넣는다).
+ * broadcast 가 켜져 있으면 지운 사용자 id 를 broadcastInterval 동안 모아 Redis 토픽 메시지 하나로 다른 노드에 알린다.
+ * 알림이 유실되거나 JOURNAL 모드처럼 DB 반영이 늦는 경우에도 maxStaleness 가 지난 목록은 다시 읽으므로,
+ * 다른 노드의 오래된 목록은 길어야 maxStaleness 동안 보인다.
+ */
+@Slf4j
+@Component
+public class AccountListCache {
+    static final String TOPIC = "account-list-invalidation";
+
+    private final boolean enabled;
+    private final long maxStalenessNanos;
+    private final int maxEntries;
+    private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final RTopic topic;
+    private final Set<Long> unpublished = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService publisher;
+
+    public AccountListCache(
+            MeterRegistry meterRegistry,
+            ObjectProvider<RedissonClient> redissonClient,
+            @Value("${account.account-list.cache.enabled:true}") boolean enabled,
+            @Value("${account.account-list.cache.max-staleness:5s}") Duration maxStaleness,
+            @Value("${account.account-list.cache.max-entries:100000}") int maxEntries,
+            @Value("${account.account-list.cache.broadcast.enabled:false}") boolean broadcast,
+            @Value("${account.account-list.cache.broadcast.interval:50ms}") Duration broadcastInterval
+    ) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("account.account-list.cache.max-entries must be positive");
+        }
+        this.enabled = enabled;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("account.account-list.cache.requests")
+                .tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("account.account-list.cache.requests")
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("account.account-list.cache.hit.ratio", this, AccountListCache::hitRatio)
+                .register(meterRegistry);
+        Gauge.builder("account.account-list.cache.size", entries, ConcurrentMap::size)
+                .register(meterRegistry);
+
+        if (enabled && broadcast) {
+            RedissonClient client = redissonClient.getIfAvailable();
+            if (client == null) {
+                throw new IllegalStateException("account.account-list.cache.broadcast.enabled requires a RedissonClient");
+            }
+            this.topic = client.getTopic(TOPIC, StringCodec.INSTANCE);
+            topic.addListener(String.class, (channel, userIds) -> evictLocal(userIds));
+            this.publisher = Executors.newSingleThreadScheduledExecutor(
+                    new CustomizableThreadFactory("account-list-invalidation-"));
+            publisher.scheduleWithFixedDelay(this::publishQuietly,
+                    broadcastInterval.toMillis(), broadcastInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.topic = null;
+            this.publisher = null;
+        }
+    }
+
+    /**
+     * 캐시한 목록이 있고 maxStaleness 안이면 돌려주고, 없으면 loader 로 읽어 넣는다.
+     * 돌려준 목록은 다른 요청과 공유하므로 고치지 않는다.
+     */
+    public List<AccountDto> get(Long userId, Supplier<List<AccountDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.accounts != null && now - entry.loadedAt < maxStalenessNanos) {
+            hits.increment();
+            return entry.accounts;
+        }
+        misses.increment();
+        if (entries.size() >= maxEntries) {
+            entries.clear();
+        }
+        Entry loading = new Entry(null, now);
+        entries.put(userId, loading);
+        List<AccountDto> accounts = Collections.unmodifiableList(new ArrayList<>(loader.get()));
+        entries.replace(userId, loading, new Entry(accounts, now));
+        return accounts;
+    }
+
+    /**
+     * 트랜잭션이 끝난 뒤(커밋이든 롤백이든) 사용자의 목록을 지운다. 트랜잭션 밖이면 바로 지운다.
+     */
+    public void evictAfterCompletion(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict(userId);
+            }
+        });
+    }
+
+    public void evict(Long userId) {
+        evictLocal(userId);
+        if (topic != null) {
+            unpublished.add(userId);
+        }
+    }
+
+    private void evictLocal(Long userId) {
+        entries.remove(userId);
+    }
+
+    private void evictLocal(String userIds) {
+        for (String userId : userIds.split(",")) {
+            evictLocal(Long.valueOf(userId));
+        }
+    }
+
+    /**
+     * 모아 둔 사용자 id 를 쉼표로 이어 한 메시지로 알린다. 받은 노드는 자기 목록만 지우고 다시 알리지 않는다.
+     */
+    void publish() {
+        if (topic == null || unpublished.isEmpty()) {
+            return;
+        }
+        List<Long> userIds = new ArrayList<>(unpublished);
+        unpublished.removeAll(userIds);
+        topic.publishAsync(userIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+
+    private void publishQuietly() {
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            // 알리지 못한 목록은 maxStaleness 가 지나면 다시 읽힌다.
+            log.warn("Failed to publish account list invalidation.", e);
+        }
+    }
+
+    double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (publisher != null) {
+            publisher.shutdown();
+            publish();
+        }
+    }
+
+    private static class Entry {
+        // null 이면 읽는 중
+        private final List<AccountDto> accounts;
+        private final long loadedAt;
+
+        private Entry(List<AccountDto> accounts, long loadedAt) {
+            this.accounts = accounts;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.account.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 한 노드 안에서 같은 계좌의 락을 기다리는 요청 묶음
+ * 로컬 경합자끼리는 메모리에서 순서대로 락을 넘겨주고,
+ * 노드 간 락(LockProvider)은 묶음을 대표하는 ownerId 로 한 번만 잡아 이어서 사용한다.
+ * 대기열 상태(locked, waiters)는 LockService 의 ConcurrentHashMap.compute 안에서만 변경한다.
+ */
+class AccountLockGroup {
+    private static final AtomicLong OWNER_ID_SEQUENCE = new AtomicLong();
+
+    private final long ownerId = OWNER_ID_SEQUENCE.incrementAndGet();
+    private final Deque<CompletableFuture<AccountLockGroup>> waiters = new ArrayDeque<>();
+    private boolean locked;
+
+    // 아래 필드는 로컬 락 보유자만 읽고 쓴다.
+    private volatile boolean remoteHeld;
+    private volatile long remoteAcquiredAt;
+    private volatile long handoffWindowMillis;
+    private volatile int handoffs;
+
+    long getOwnerId() {
+        return ownerId;
+    }
+
+    boolean isRemoteHeld() {
+        return remoteHeld;
+    }
+
+    long getRemoteHeldMillis() {
+        return System.currentTimeMillis() - remoteAcquiredAt;
+    }
+
+    void remoteAcquired(long handoffWindowMillis) {
+        this.remoteHeld = true;
+        this.remoteAcquiredAt = System.currentTimeMillis();
+        this.handoffWindowMillis = handoffWindowMillis;
+        this.handoffs = 0;
+    }
+
+    void remoteReleased() {
+        remoteHeld = false;
+    }
+
+    /**
+     * 락이 비어 있으면 바로 차례를 넘겨주고, 아니면 대기열 뒤에 세운다.
+     */
+    void enter(CompletableFuture<AccountLockGroup> turn) {
+        if (!locked) {
+            locked = true;
+            turn.complete(this);
+        } else {
+            waiters.addLast(turn);
+        }
+    }
+
+    /**
+     * 대기 시간이 지난 요청을 대기열에서 뺀다.
+     * 이미 차례를 넘겨받은 뒤라면 false 를 반환하며, 호출자가 락을 해제해야 한다.
+     */
+    boolean abandon(CompletableFuture<AccountLockGroup> turn) {
+        return waiters.remove(turn);
+    }
+
+    /**
+     * 대기자가 없거나 이어받기 한도(횟수, 기간)를 넘었으면 노드 간 락을 먼저 풀어야 한다.
+     * 한도는 한 노드가 노드 간 락을 계속 쥐고 다른 노드를 굶기지 않도록 하고,
+     * 이어받은 보유자에게도 충분한 lease 가 남아 있도록 보장한다.
+     * 이어받은 보유자는 최초 취득자의 lease 설정(고정 lease 또는 watchdog)을 그대로 따른다.
+     */
+    boolean mustReleaseRemote(int maxHandoffs) {
+        return remoteHeld && (waiters.isEmpty()
+                || handoffs >= maxHandoffs
+                || getRemoteHeldMillis() >= handoffWindowMillis);
+    }
+
+    /**
+     * 다음 차례 요청을 꺼낸다. 대기자가 없으면 락을 비우고 null 을 반환한다.
+     */
+    CompletableFuture<AccountLockGroup> handOff() {
+        CompletableFuture<AccountLockGroup> successor = waiters.pollFirst();
+        if (successor == null) {
+            locked = false;
+        } else if (remoteHeld) {
+            handoffs++;
+        }
+        return successor;
+    }
+
+    boolean isIdle() {
+        return !locked && waiters.isEmpty() && !remoteHeld;
+    }
+}
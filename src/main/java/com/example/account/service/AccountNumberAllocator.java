@@ -0,0 +1,157 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountNumberBlock;
+import com.example.account.repository.AccountNumberBlockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 계좌번호 발급기
+ * 노드마다 AccountNumberBlock 카운터에서 blockSize 개의 순번 블록을 예약하고, 블록 안에서는 메모리로만 번호를 내준다.
+ * 순번은 키를 둔 Feistel 순열로 9자리 본문 공간에 흩뿌린 뒤 Luhn 검증 숫자를 붙여 10자리 계좌번호가 된다.
+ * 블록이 겹치지 않고 순열이 일대일이므로 존재 여부를 조회하지 않아도 번호가 겹치지 않는다.
+ * 순열 키를 바꾸면 이미 발급한 번호와 겹칠 수 있으므로 운영 중에는 바꾸지 않는다.
+ * 순열 키에는 기본값이 없어서, 지정하지 않으면 시작하지 않는다. (local 프로파일과 테스트에서만 정해 둔다)
+ */
+@Slf4j
+@Component
+public class AccountNumberAllocator {
+    private static final String BLOCK_NAME = "account";
+    // 앞자리가 0 이 아닌 9자리 본문 100000000 ~ 999999999
+    static final long BODY_MIN = 100_000_000L;
+    static final long BODY_SPACE = 900_000_000L;
+    // BODY_SPACE 를 덮는 2^30 영역을 15비트씩 나눠 섞고, 범위를 벗어나면 다시 섞는다(cycle walking).
+    private static final int HALF_BITS = 15;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int FEISTEL_ROUNDS = 4;
+
+    private final AccountNumberBlockRepository accountNumberBlockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+    private final long permutationKey;
+
+    // 현재 블록에서 다음에 내줄 순번과 블록의 끝(제외), this 로 보호한다.
+    private long nextSequence;
+    private long blockEnd;
+
+    public AccountNumberAllocator(
+            AccountNumberBlockRepository accountNumberBlockRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${account.number.block-size:1000}") int blockSize,
+            @Value("${account.number.permutation-key:#{null}}") Long permutationKey
+    ) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("account.number.block-size must be positive");
+        }
+        if (permutationKey == null) {
+            throw new IllegalStateException("account.number.permutation-key must be set");
+        }
+        this.accountNumberBlockRepository = accountNumberBlockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+        this.permutationKey = permutationKey;
+    }
+
+    public synchronized String nextAccountNumber() {
+        if (nextSequence >= blockEnd) {
+            long block = reserveBlock();
+            nextSequence = block * blockSize;
+            blockEnd = Math.min(nextSequence + blockSize, BODY_SPACE);
+        }
+        long body = BODY_MIN + permute(nextSequence++);
+        return String.valueOf(body) + checkDigit(body);
+    }
+
+    /**
+     * 계좌 생성 트랜잭션과 별도로 커밋해서 카운터 행 락을 바로 놓는다.
+     * 생성이 롤백되면 블록의 번호 몇 개가 버려질 뿐 다시 쓰이지는 않는다.
+     */
+    private long reserveBlock() {
+        try {
+            return transactionTemplate.execute(status -> incrementBlock());
+        } catch (DataIntegrityViolationException e) {
+            // 다른 노드가 동시에 첫 카운터 행을 만들었다. 이제 행이 있으므로 잠그고 다시 올린다.
+            return transactionTemplate.execute(status -> incrementBlock());
+        }
+    }
+
+    private long incrementBlock() {
+        AccountNumberBlock counter = accountNumberBlockRepository.findForUpdateByName(BLOCK_NAME)
+                .orElseGet(() -> AccountNumberBlock.builder()
+                        .name(BLOCK_NAME)
+                        .nextBlock(0L)
+                        .build());
+        long block = counter.getNextBlock();
+        if (block * blockSize >= BODY_SPACE) {
+            throw new IllegalStateException("Account number space is exhausted");
+        }
+        counter.setNextBlock(block + 1);
+        accountNumberBlockRepository.saveAndFlush(counter);
+        log.info("Reserved account number block {} (size {})", block, blockSize);
+        return block;
+    }
+
+    /**
+     * [0, BODY_SPACE) 위의 일대일 순열
+     */
+    long permute(long sequence) {
+        long value = sequence;
+        do {
+            value = feistel(value);
+        } while (value >= BODY_SPACE);
+        return value;
+    }
+
+    private long feistel(long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (int round = 0; round < FEISTEL_ROUNDS; round++) {
+            long mixed = left ^ (roundFunction(right, round) & HALF_MASK);
+            left = right;
+            right = mixed;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    // SplitMix64 의 마무리 단계
+    private long roundFunction(long half, int round) {
+        long z = half + permutationKey + (round + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 본문 뒤에 붙일 Luhn 검증 숫자, 숫자 하나를 잘못 입력하거나 이웃한 두 숫자를 바꿔 쓴 경우를 대부분 걸러낸다.
+     */
+    static int checkDigit(long body) {
+        int sum = 0;
+        boolean doubled = true;
+        for (long rest = body; rest > 0; rest /= 10) {
+            int digit = (int) (rest % 10);
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    static boolean isValid(String accountNumber) {
+        if (accountNumber == null || !accountNumber.matches("\\d{10}")) {
+            return false;
+        }
+        long body = Long.parseLong(accountNumber.substring(0, 9));
+        return checkDigit(body) == accountNumber.charAt(9) - '0';
+    }
+}
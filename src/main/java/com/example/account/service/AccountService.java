@@ -3,18 +3,24 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.BalanceAsOfDto;
+import com.example.account.dto.TransactionHistoryItem;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Random;
+import java.util.Objects;
+import java.util.OptionalLong;
 import java.util.stream.Collectors;
 
 import static com.example.account.type.AccountStatus.IN_USE;
@@ -27,28 +33,37 @@ import static com.example.account.type.ErrorCode.*;
 public class AccountService {
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final BalanceSlotService balanceSlotService;
+    private final AccountListCache accountListCache;
+    private final TransactionRepository transactionRepository;
+    private final BalanceCheckpointIndex balanceCheckpointIndex;
+    private final EventSourcedLedger eventSourcedLedger;
+    private final WriteBehindLedger writeBehindLedger;
 
     /**
      * 사용자가 있는지 조회
-     * 계좌의 번호를 생성하고
+     * 계좌의 번호를 발급받고 (존재 여부 조회 없이 메모리에서 꺼낸다)
      * 계좌를 저장하고, 그 정보를 넘긴다.
+     * EVENT_SOURCED 모드에서는 초기 잔액을 원장의 첫 이벤트로 남긴다.
      */
     public AccountDto createAccount(Long userId, Long initialBalance) {
         AccountUser accountUser = getAccountUser(userId);
 
         validateCreateAccount(accountUser);
 
-        String newAccountNumber = generateRandomAccountNumber();
-
-
-        return AccountDto.fromEntity(
-                accountRepository.save(Account.builder()
-                        .accountUser(accountUser)
-                        .accountStatus(IN_USE)
-                        .accountNumber(newAccountNumber)
-                        .balance(initialBalance)
-                        .registeredAt(LocalDateTime.now())
-                        .build()));
+        String newAccountNumber = accountNumberAllocator.nextAccountNumber();
+        accountListCache.evictAfterCompletion(accountUser.getId());
+
+        Account account = accountRepository.save(Account.builder()
+                .accountUser(accountUser)
+                .accountStatus(IN_USE)
+                .accountNumber(newAccountNumber)
+                .balance(initialBalance)
+                .registeredAt(LocalDateTime.now())
+                .build());
+        eventSourcedLedger.recordCreated(account);
+        return AccountDto.fromEntity(account);
     }
 
     private void validateCreateAccount(AccountUser accountUser) {
@@ -57,54 +72,155 @@ public class AccountService {
         }
     }
 
-    private String generateRandomAccountNumber() {
-        Random random = new Random();
-        String newAccountNumber;
-        do {
-            long randomNumber = 1_000_000_000L + (long) (random.nextDouble() * 9_000_000_000L);
-            newAccountNumber = String.valueOf(randomNumber);
-        } while (accountRepository.existsByAccountNumber(newAccountNumber));
-        return newAccountNumber;
-    }
-
     public Account getAccount(Long id) {
         if(id < 0) throw new RuntimeException("Minus");
-        return accountRepository.findById(id).get();
+        return accountRepository.findWithAccountUserById(id).get();
     }
 
+    /**
+     * JOURNAL 모드에서는 아직 DB 에 반영하지 않은 잔액으로 해지할 수 있는지 본다. 반영과 엇갈리지 않도록 DB 보다 먼저 읽는다.
+     */
     public AccountDto deleteAccount(Long userId, String accountNumber) {
         AccountUser accountUser = getAccountUser(userId);
+        OptionalLong pendingBalance = writeBehindLedger.pendingBalance(accountNumber);
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
 
-        validateDeleteAccount(accountUser, account);
+        validateDeleteAccount(accountUser, account, pendingBalance);
 
         account.setAccountStatus(UNREGISTERED);
         account.setUnRegisteredAt(LocalDateTime.now());
         accountRepository.save(account);
+        accountListCache.evictAfterCompletion(accountUser.getId());
         return AccountDto.fromEntity(account);
     }
 
-    private void validateDeleteAccount(AccountUser accountUser, Account account) {
-        if (accountUser.getId() != account.getAccountUser().getId()) {
+    private void validateDeleteAccount(AccountUser accountUser, Account account, OptionalLong pendingBalance) {
+        if (!Objects.equals(accountUser.getId(), account.getAccountUser().getId())) {
             throw new AccountException(USER_ACCOUNT_UN_MATCH);
         }
         if (account.getAccountStatus() == UNREGISTERED) {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if (account.getBalance() > 0) {
+        if (pendingBalance.orElseGet(() -> balanceOf(account)) > 0) {
             throw new AccountException(BALANCE_HAS_EMPTY);
         }
     }
 
-    public List<AccountDto> getAccountsByUserId(Long userId) {
+    /**
+     * 요청이 몰리는 계좌의 잔액을 여러 조각으로 나눈다.
+     * 계좌 행을 잠근 채 옮기므로 진행 중인 잔액 변경과 섞이지 않는다.
+     */
+    public AccountDto splitBalance(Long userId, String accountNumber, int slots) {
         AccountUser accountUser = getAccountUser(userId);
+        Account account = accountRepository.findForUpdateByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+        validateSplitBalance(accountUser, account);
 
-        List<Account> accounts = accountRepository.findByAccountUser(accountUser);
+        balanceSlotService.split(account, slots);
+        return toAccountDto(account);
+    }
+
+    private void validateSplitBalance(AccountUser accountUser, Account account) {
+        if (!Objects.equals(accountUser.getId(), account.getAccountUser().getId())) {
+            throw new AccountException(USER_ACCOUNT_UN_MATCH);
+        }
+        if (account.getAccountStatus() == UNREGISTERED) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+    }
+
+    /**
+     * 자주 조회되므로 AccountListCache 에 있으면 DB 연결도 잡지 않고 돌려준다.
+     * 없으면 사용자 확인과 계좌 목록 projection, 두 문장으로 읽는다.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<AccountDto> getAccountsByUserId(Long userId) {
+        return accountListCache.get(userId, () -> {
+            if (!accountUserRepository.existsById(userId)) {
+                throw new AccountException(USER_NOT_FOUND);
+            }
+
+            return accountRepository.findSummariesByAccountUserId(userId).stream()
+                    .map(accountSummary -> AccountDto.builder()
+                            .userId(userId)
+                            .accountNumber(accountSummary.getAccountNumber())
+                            .balance(accountSummary.getBalance())
+                            .build())
+                    .collect(Collectors.toList());
+        });
+    }
+
+    /**
+     * asOf 시점의 잔액, 그 이전 마지막 성공 거래의 balanceSnapshot 을 인덱스로 한 번 찾아 읽는다.
+     * 그 이전 거래가 없으면 첫 성공 거래의 잔액에서 그 거래를 되돌리고, 거래가 아예 없으면 현재 잔액이다.
+     * 같은 계좌를 다시 조회하면 BalanceCheckpointIndex 에서 DB 를 읽지 않고 답한다.
+     * 계좌를 만들기 전 시점이면 ACCOUNT_NOT_FOUND
+     */
+    @Transactional(readOnly = true)
+    public BalanceAsOfDto getBalanceAsOf(String accountNumber, LocalDateTime asOf) {
+        OptionalLong indexed = balanceCheckpointIndex.find(accountNumber, asOf);
+        if (indexed.isPresent()) {
+            return balanceAsOf(accountNumber, asOf, indexed.getAsLong());
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        if (account.getRegisteredAt() != null && asOf.isBefore(account.getRegisteredAt())) {
+            throw new AccountException(ACCOUNT_NOT_FOUND);
+        }
+
+        PageRequest first = PageRequest.of(0, 1);
+        List<TransactionHistoryItem> last = transactionRepository.findLastSucceededAtOrBefore(
+                account.getId(), asOf, first);
+        if (!last.isEmpty()) {
+            long balance = last.get(0).getBalanceSnapshot();
+            balanceCheckpointIndex.record(accountNumber, last.get(0).getTransactedAt(), asOf, balance);
+            return balanceAsOf(accountNumber, asOf, balance);
+        }
+        List<TransactionHistoryItem> next = transactionRepository.findFirstSucceededAfter(
+                account.getId(), asOf, first);
+        if (next.isEmpty()) {
+            return balanceAsOf(accountNumber, asOf, balanceOf(account));
+        }
+        long balance = balanceBefore(next.get(0));
+        balanceCheckpointIndex.record(accountNumber,
+                account.getRegisteredAt() == null ? asOf : account.getRegisteredAt(), asOf, balance);
+        return balanceAsOf(accountNumber, asOf, balance);
+    }
+
+    /**
+     * 거래 직전의 잔액, 잔액을 줄이는 거래(사용, 이체 출금)는 더하고 늘리는 거래(취소, 이체 입금)는 뺀다.
+     */
+    private static long balanceBefore(TransactionHistoryItem transaction) {
+        switch (transaction.getTransactionType()) {
+            case USE:
+            case TRANSFER_OUT:
+                return transaction.getBalanceSnapshot() + transaction.getAmount();
+            default:
+                return transaction.getBalanceSnapshot() - transaction.getAmount();
+        }
+    }
+
+    private static BalanceAsOfDto balanceAsOf(String accountNumber, LocalDateTime asOf, long balance) {
+        return BalanceAsOfDto.builder()
+                .accountNumber(accountNumber)
+                .asOf(asOf)
+                .balance(balance)
+                .build();
+    }
+
+    /**
+     * 잔액을 나눈 계좌는 조각 잔액의 합을 잔액으로 보여준다.
+     */
+    private AccountDto toAccountDto(Account account) {
+        AccountDto accountDto = AccountDto.fromEntity(account);
+        accountDto.setBalance(balanceOf(account));
+        return accountDto;
+    }
 
-        return accounts.stream()
-                .map(AccountDto::fromEntity)
-                .collect(Collectors.toList());
+    private Long balanceOf(Account account) {
+        return account.isSplitBalance() ? balanceSlotService.totalBalance(account) : account.getBalance();
     }
 
     private AccountUser getAccountUser(Long userId) {
@@ -0,0 +1,132 @@
+package com.example.account.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+
+/**
+ * 과거 시점 잔액 조회에 쓰는 계좌별 메모리 색인
+ * 시점 T 의 잔액을 T 이전 마지막 성공 거래(시각 t0)의 balanceSnapshot 으로 답했다면 [t0, T] 동안 잔액은 그 값이다.
+ * 이 구간을 계좌마다 시작 시각 순으로 모아 두고, 같은 계좌의 다음 조회는 구간을 이진 탐색해서 DB 를 읽지 않고 답한다.
+ * 구간은 답할 때 생기므로 여러 번 조회되는 계좌만 띄엄띄엄(sparse) 색인되고, 계좌 수와 계좌별 구간 수에 상한이 있다.
+ * 아직 커밋 중이거나 저널에서 반영되지 않은 거래가 있을 수 있는 최근 settleTime 안의 시점은 넣지 않는다.
+ * 거래는 바뀌지 않으므로 넣은 구간은 지울 필요가 없다.
+ */
+@Component
+public class BalanceCheckpointIndex {
+    private final boolean enabled;
+    private final int maxAccounts;
+    private final int maxCheckpoints;
+    private final Duration settleTime;
+    private final Map<String, Checkpoints> accounts;
+    private final Counter hits;
+    private final Counter misses;
+
+    public BalanceCheckpointIndex(
+            MeterRegistry meterRegistry,
+            @Value("${account.balance.as-of.index.enabled:true}") boolean enabled,
+            @Value("${account.balance.as-of.index.max-accounts:10000}") int maxAccounts,
+            @Value("${account.balance.as-of.index.max-checkpoints:1024}") int maxCheckpoints,
+            @Value("${account.balance.as-of.settle-time:5m}") Duration settleTime
+    ) {
+        if (maxAccounts <= 0 || maxCheckpoints <= 0) {
+            throw new IllegalArgumentException(
+                    "account.balance.as-of.index.max-accounts and max-checkpoints must be positive");
+        }
+        this.enabled = enabled;
+        this.maxAccounts = maxAccounts;
+        this.maxCheckpoints = maxCheckpoints;
+        this.settleTime = settleTime;
+        this.accounts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Checkpoints> eldest) {
+                return size() > BalanceCheckpointIndex.this.maxAccounts;
+            }
+        };
+        this.hits = Counter.builder("account.balance.as-of.requests")
+                .tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("account.balance.as-of.requests")
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("account.balance.as-of.index.accounts", this, BalanceCheckpointIndex::size)
+                .register(meterRegistry);
+    }
+
+    public OptionalLong find(String accountNumber, LocalDateTime asOf) {
+        if (!enabled) {
+            return OptionalLong.empty();
+        }
+        Checkpoints checkpoints;
+        synchronized (accounts) {
+            checkpoints = accounts.get(accountNumber);
+        }
+        OptionalLong balance = checkpoints == null ? OptionalLong.empty() : checkpoints.find(asOf);
+        (balance.isPresent() ? hits : misses).increment();
+        return balance;
+    }
+
+    /**
+     * from 부터 asOf 까지 잔액이 balance 였다고 남긴다. asOf 가 아직 바뀔 수 있는 최근 시점이면 남기지 않는다.
+     */
+    public void record(String accountNumber, LocalDateTime from, LocalDateTime asOf, long balance) {
+        if (!enabled || from.isAfter(asOf) || asOf.isAfter(LocalDateTime.now().minus(settleTime))) {
+            return;
+        }
+        Checkpoints checkpoints;
+        synchronized (accounts) {
+            checkpoints = accounts.computeIfAbsent(accountNumber, key -> new Checkpoints());
+        }
+        checkpoints.add(from, asOf, balance, maxCheckpoints);
+    }
+
+    int size() {
+        synchronized (accounts) {
+            return accounts.size();
+        }
+    }
+
+    private static class Checkpoints {
+        // 구간 시작 시각 순, 구간은 겹치지 않는다.
+        private final TreeMap<LocalDateTime, Range> ranges = new TreeMap<>();
+
+        private synchronized OptionalLong find(LocalDateTime asOf) {
+            Map.Entry<LocalDateTime, Range> floor = ranges.floorEntry(asOf);
+            if (floor == null || asOf.isAfter(floor.getValue().until)) {
+                return OptionalLong.empty();
+            }
+            return OptionalLong.of(floor.getValue().balance);
+        }
+
+        /**
+         * 같은 거래에서 시작하는 구간은 늘리고, 넘치면 가장 오래된 구간을 버린다.
+         */
+        private synchronized void add(LocalDateTime from, LocalDateTime until, long balance, int maxCheckpoints) {
+            Range existing = ranges.get(from);
+            if (existing != null && !existing.until.isBefore(until)) {
+                return;
+            }
+            ranges.put(from, new Range(until, balance));
+            if (ranges.size() > maxCheckpoints) {
+                ranges.pollFirstEntry();
+            }
+        }
+    }
+
+    private static class Range {
+        private final LocalDateTime until;
+        private final long balance;
+
+        private Range(LocalDateTime until, long balance) {
+            this.until = until;
+            this.balance = balance;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.account.service;
+
+import com.example.account.domain.BalanceHold;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.BalanceHoldRepository;
+import com.example.account.type.BalanceConcurrencyMode;
+import com.example.account.type.HoldStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기한 안에 확정하거나 해제하지 않은 홀드를 주기적으로 해제한다.
+ * 잔액 변경과 같은 방식(LOCK 모드는 계좌 락, MAILBOX 모드는 계좌별 큐)으로 계좌마다 차례로 처리하므로
+ * 같은 홀드를 동시에 확정하는 요청과 엇갈리지 않는다. 여러 노드가 함께 돌아도 이미 닫힌 홀드는 건너뛴다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BalanceHoldSweeper {
+    private final BalanceHoldRepository balanceHoldRepository;
+    private final TransactionService transactionService;
+    private final LockService lockService;
+
+    @Value("${account.balance.concurrency-mode:LOCK}")
+    private BalanceConcurrencyMode concurrencyMode;
+
+    @Value("${account.hold.sweep-interval:10s}")
+    private Duration sweepInterval;
+
+    @Value("${account.hold.sweep-batch-size:100}")
+    private int sweepBatchSize;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("hold-sweeper-"));
+        scheduler.scheduleWithFixedDelay(this::sweepQuietly,
+                sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 기한이 지난 홀드를 sweepBatchSize 개씩 해제하고 해제한 개수를 돌려준다.
+     */
+    int sweep() {
+        int expired = 0;
+        List<BalanceHold> holds;
+        do {
+            holds = balanceHoldRepository.findByHoldStatusAndExpiresAtBeforeOrderByExpiresAt(
+                    HoldStatus.AUTHORIZED, LocalDateTime.now(), PageRequest.of(0, sweepBatchSize));
+            int released = 0;
+            for (BalanceHold hold : holds) {
+                try {
+                    if (expire(hold.getHoldId(), hold.getAccount().getAccountNumber()) == HoldStatus.EXPIRED) {
+                        released++;
+                    }
+                } catch (AccountException e) {
+                    log.warn("Failed to expire hold {}. errorCode : {}", hold.getHoldId(), e.getErrorCode());
+                } catch (RuntimeException e) {
+                    // 한 홀드의 실패로 나머지 홀드를 멈추지 않는다.
+                    log.error("Failed to expire hold {}.", hold.getHoldId(), e);
+                }
+            }
+            expired += released;
+            if (released == 0) {
+                // 남은 홀드는 락을 얻지 못했거나 다른 노드가 처리 중이다. 다음 주기에 다시 본다.
+                break;
+            }
+        } while (holds.size() == sweepBatchSize);
+        if (expired > 0) {
+            log.info("Expired {} balance holds.", expired);
+        }
+        return expired;
+    }
+
+    private HoldStatus expire(String holdId, String accountNumber) {
+        if (concurrencyMode == BalanceConcurrencyMode.LOCK) {
+            lockService.lock(accountNumber);
+            try {
+                return transactionService.expireHold(holdId, accountNumber).getHoldStatus();
+            } finally {
+                lockService.unlock(accountNumber);
+            }
+        }
+        try {
+            return transactionService.expireHoldAsync(holdId, accountNumber).join().getHoldStatus();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            log.error("Failed to sweep balance holds.", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL;
+
+/**
+ * 계좌별 단일 작성자(single-writer) 큐
+ * 계좌번호 해시로 샤드를 고르고, 샤드마다 하나뿐인 쓰레드가 차례로 잔액 변경을 실행한다.
+ * 같은 계좌의 변경은 락 없이 직렬화되고, 다른 샤드의 계좌는 코어 수만큼 병렬로 처리된다.
+ * 샤드 큐가 가득 차면 기다리지 않고 ACCOUNT_TRANSACTION_QUEUE_FULL 로 거절한다.
+ * 직렬화는 노드 안에서만 보장되며, 노드 간 충돌은 Account 의 @Version 이 막는다.
+ */
+@Slf4j
+@Component
+public class BalanceMailbox {
+    private final List<ThreadPoolTaskExecutor> shards;
+    private final Counter rejected;
+
+    public BalanceMailbox(
+            MeterRegistry meterRegistry,
+            @Value("${account.balance.mailbox.shards:0}") int shardCount,
+            @Value("${account.balance.mailbox.queue-capacity:1000}") int queueCapacity
+    ) {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ThreadPoolTaskExecutor shard = new ThreadPoolTaskExecutor();
+            shard.setCorePoolSize(1);
+            shard.setMaxPoolSize(1);
+            shard.setQueueCapacity(queueCapacity);
+            shard.setThreadNamePrefix("balance-mailbox-" + i + "-");
+            shard.initialize();
+            shards.add(shard);
+
+            Gauge.builder("account.balance.mailbox.queue", shard,
+                            executor -> executor.getThreadPoolExecutor().getQueue().size())
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        this.rejected = Counter.builder("account.balance.mailbox.rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 계좌번호에 해당하는 샤드에 잔액 변경을 맡기고, 실행 결과로 완료되는 future 를 돌려준다.
+     */
+    public <T> CompletableFuture<T> submit(String accountNumber, Supplier<T> mutation) {
+        try {
+            return CompletableFuture.supplyAsync(mutation, shardOf(accountNumber));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Balance mailbox is full. accountNumber : {}", accountNumber);
+            return CompletableFuture.failedFuture(new AccountException(ACCOUNT_TRANSACTION_QUEUE_FULL));
+        }
+    }
+
+    int shardIndexOf(String accountNumber) {
+        return Math.floorMod(accountNumber.hashCode(), shards.size());
+    }
+
+    private ThreadPoolTaskExecutor shardOf(String accountNumber) {
+        return shards.get(shardIndexOf(accountNumber));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shards.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+}
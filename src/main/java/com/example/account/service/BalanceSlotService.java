@@ -0,0 +1,165 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountBalanceSlot;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountBalanceSlotRepository;
+import com.example.account.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_ALREADY_SPLIT;
+import static com.example.account.type.ErrorCode.ACCOUNT_HAS_HELD_BALANCE;
+import static com.example.account.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static com.example.account.type.ErrorCode.INVALID_REQUEST;
+
+/**
+ * 잔액을 여러 조각(AccountBalanceSlot)으로 나눈 계좌의 잔액 변경
+ * 차감은 잠그지 않고 읽은 조각 잔액 중 충분한 조각 하나를 임의로 골라 조건부 UPDATE 로 줄이므로,
+ * 서로 다른 조각을 고른 요청은 Account 행이나 계좌 락을 기다리지 않고 동시에 진행된다.
+ * 어느 조각도 혼자 감당하지 못하면 모든 조각을 조각 번호 순서로 잠그고 합계로 검증한 뒤 남은 잔액을 고르게 다시 나눈다.
+ * 조건부 UPDATE 가 경합으로 실패하면 그 조각의 락을 쥔 채 재분배로 넘어가지 않고 SlotConflictException 을 던져
+ * 트랜잭션을 새로 시작하게 한다. 조각 락을 쥔 채 다른 조각 락을 기다리는 트랜잭션이 없으므로 교착되지 않는다.
+ * 호출하는 쪽 트랜잭션 안에서 실행된다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceSlotService {
+    // 나누지 않은 계좌라고 기억해 둘 계좌 수의 상한, 넘으면 비우고 다시 조회한다.
+    private static final int MAX_UNSPLIT_CACHE_SIZE = 10_000;
+
+    private final AccountBalanceSlotRepository accountBalanceSlotRepository;
+    private final AccountRepository accountRepository;
+    private final WriteBehindLedger writeBehindLedger;
+    private final EventSourcedLedger eventSourcedLedger;
+
+    private final ConcurrentMap<String, Boolean> splitAccounts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> unsplitCheckedAt = new ConcurrentHashMap<>();
+
+    @Value("${account.balance.split.lookup-ttl:10s}")
+    private Duration lookupTtl;
+
+    /**
+     * 잠근 계좌의 잔액을 slots 개의 조각에 고르게 옮긴다. 한 번 나눈 계좌는 되돌리지 않는다.
+     * 홀드는 Account.balance 에서 확정되므로, 잡아 둔 금액이 있으면 모두 확정하거나 해제한 뒤에 나눈다.
+     */
+    public void split(Account account, int slots) {
+        if (account.isSplitBalance()) {
+            throw new AccountException(ACCOUNT_ALREADY_SPLIT);
+        }
+        if (account.hasHeldBalance()) {
+            throw new AccountException(ACCOUNT_HAS_HELD_BALANCE);
+        }
+        if (writeBehindLedger.isEnabled() || eventSourcedLedger.isEnabled()) {
+            // 저널 반영과 원장 이벤트는 Account.balance 를 덮어쓰므로 조각 잔액과 함께 쓸 수 없다.
+            throw new AccountException(INVALID_REQUEST);
+        }
+        List<AccountBalanceSlot> balanceSlots = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            balanceSlots.add(AccountBalanceSlot.builder()
+                    .account(account)
+                    .slot(slot)
+                    .balance(share(account.getBalance(), slots, slot))
+                    .build());
+        }
+        accountBalanceSlotRepository.saveAll(balanceSlots);
+        account.setBalance(0L);
+        account.setBalanceSlots(slots);
+        accountRepository.save(account);
+        splitAccounts.put(account.getAccountNumber(), Boolean.TRUE);
+        unsplitCheckedAt.remove(account.getAccountNumber());
+        log.info("Split balance of account {} into {} slots", account.getAccountNumber(), slots);
+    }
+
+    public void debit(Account account, long amount) {
+        List<Long> balances = accountBalanceSlotRepository.findBalancesByAccountId(account.getId());
+        List<Integer> candidates = new ArrayList<>(balances.size());
+        for (int slot = 0; slot < balances.size(); slot++) {
+            if (balances.get(slot) >= amount) {
+                candidates.add(slot);
+            }
+        }
+        if (candidates.isEmpty()) {
+            rebalanceAndDebit(account, amount);
+            return;
+        }
+        int slot = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+        if (accountBalanceSlotRepository.debit(account.getId(), slot, amount) == 0) {
+            throw new SlotConflictException(account.getAccountNumber());
+        }
+    }
+
+    public void credit(Account account, long amount) {
+        int slot = ThreadLocalRandom.current().nextInt(account.getBalanceSlots());
+        accountBalanceSlotRepository.credit(account.getId(), slot, amount);
+    }
+
+    public long totalBalance(Account account) {
+        return accountBalanceSlotRepository.sumBalance(account.getId());
+    }
+
+    /**
+     * 계좌 락을 건너뛸 수 있는지 판단한다. 나눈 계좌는 되돌리지 않으므로 그대로 기억하고,
+     * 나누지 않은 계좌는 lookupTtl 동안만 기억한다. 그 사이에 나뉜 계좌는 잠시 락을 잡을 뿐 결과는 같다.
+     */
+    public boolean isSplit(String accountNumber) {
+        if (splitAccounts.containsKey(accountNumber)) {
+            return true;
+        }
+        Long checkedAt = unsplitCheckedAt.get(accountNumber);
+        long now = System.nanoTime();
+        if (checkedAt != null && now - checkedAt < lookupTtl.toNanos()) {
+            return false;
+        }
+        if (accountRepository.existsByAccountNumberAndBalanceSlotsNotNull(accountNumber)) {
+            splitAccounts.put(accountNumber, Boolean.TRUE);
+            unsplitCheckedAt.remove(accountNumber);
+            return true;
+        }
+        if (unsplitCheckedAt.size() >= MAX_UNSPLIT_CACHE_SIZE) {
+            unsplitCheckedAt.clear();
+        }
+        unsplitCheckedAt.put(accountNumber, now);
+        return false;
+    }
+
+    /**
+     * 모든 조각을 조각 번호 순서로 잠그고, 합계가 모자라면 AMOUNT_EXCEED_BALANCE, 충분하면 차감한 나머지를 고르게 나눈다.
+     */
+    private void rebalanceAndDebit(Account account, long amount) {
+        List<AccountBalanceSlot> balanceSlots = accountBalanceSlotRepository.findForUpdateByAccountId(account.getId());
+        long total = balanceSlots.stream().mapToLong(AccountBalanceSlot::getBalance).sum();
+        if (total < amount) {
+            throw new AccountException(AMOUNT_EXCEED_BALANCE);
+        }
+        long remaining = total - amount;
+        for (int i = 0; i < balanceSlots.size(); i++) {
+            balanceSlots.get(i).setBalance(share(remaining, balanceSlots.size(), i));
+        }
+        log.debug("Rebalanced {} slots of account {}", balanceSlots.size(), account.getAccountNumber());
+    }
+
+    private static long share(long balance, int slots, int slot) {
+        return balance / slots + (slot < balance % slots ? 1 : 0);
+    }
+
+    /**
+     * 고른 조각의 잔액이 읽은 뒤에 바뀌었다. 새 트랜잭션에서 다시 시도하면 된다.
+     */
+    public static class SlotConflictException extends OptimisticLockingFailureException {
+        public SlotConflictException(String accountNumber) {
+            super("Balance slot of account " + accountNumber + " changed concurrently");
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account 행 락을 이용하는 노드 간 락, Redis 없이 여러 노드를 운영할 때 사용한다.
+ * SELECT ... FOR UPDATE 로 계좌 행을 잠근 짧은 트랜잭션 안에서 소유자와 lease 만료 시각을 기록하고 바로 커밋한다.
+ * 행 락을 임계 구역 내내 쥐고 있으면 같은 행의 잔액을 갱신하는 TransactionService 와 교착되므로
+ * DB 커넥션은 락을 점유하는 동안 붙잡지 않는다.
+ * lease 를 정하지 않은 락(watchdog)은 watchdogLease 로 잡고, 해제할 때까지 watchdogLease / 3 마다 만료 시각을 늦춘다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "database")
+public class DatabaseLockProvider implements LockProvider {
+    private static final long RETRY_INTERVAL_MILLIS = 20L;
+    private static final int LOCK_THREADS = 4;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService lockExecutor = Executors.newFixedThreadPool(LOCK_THREADS);
+    private final ScheduledExecutorService watchdog =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("db-lock-watchdog-"));
+    // 계좌번호와 소유자마다 lease 를 늘리는 작업
+    private final ConcurrentMap<String, ScheduledFuture<?>> renewals = new ConcurrentHashMap<>();
+    private final long watchdogLeaseMillis;
+
+    public DatabaseLockProvider(AccountRepository accountRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${account.lock.database.watchdog-lease:30s}") Duration watchdogLease) {
+        if (watchdogLease.toMillis() < 3) {
+            throw new IllegalArgumentException("account.lock.database.watchdog-lease is too short");
+        }
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.watchdogLeaseMillis = watchdogLease.toMillis();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(String accountNumber, long waitTimeMillis,
+                                                   long leaseTimeMillis, long ownerId) {
+        long deadline = System.currentTimeMillis() + waitTimeMillis;
+        long leaseTime = leaseTimeMillis > 0 ? leaseTimeMillis : watchdogLeaseMillis;
+        String owner = getOwner(ownerId);
+
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        lockExecutor.execute(() -> attempt(accountNumber, owner, leaseTime, deadline, result));
+        if (leaseTimeMillis > 0) {
+            return result;
+        }
+        return result.thenApply(locked -> {
+            if (locked) {
+                startRenewal(accountNumber, owner);
+            }
+            return locked;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String accountNumber, long ownerId) {
+        stopRenewal(accountNumber, getOwner(ownerId));
+        return CompletableFuture.runAsync(() -> {
+            Integer released = transactionTemplate.execute(status ->
+                    accountRepository.releaseLockOwner(accountNumber, getOwner(ownerId)));
+            if (Objects.equals(released, 0) && accountRepository.existsByAccountNumber(accountNumber)) {
+                throw new IllegalMonitorStateException("lock lease expired. accountNumber : " + accountNumber);
+            }
+        }, lockExecutor);
+    }
+
+    private void attempt(String accountNumber, String owner, long leaseTime, long deadline,
+                         CompletableFuture<Boolean> result) {
+        try {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> claim(accountNumber, owner, leaseTime)))) {
+                result.complete(true);
+            } else if (System.currentTimeMillis() >= deadline) {
+                result.complete(false);
+            } else {
+                CompletableFuture.delayedExecutor(RETRY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, lockExecutor)
+                        .execute(() -> attempt(accountNumber, owner, leaseTime, deadline, result));
+            }
+        } catch (Exception e) {
+            log.error("Database lock failed", e);
+            result.completeExceptionally(e);
+        }
+    }
+
+    private boolean claim(String accountNumber, String owner, long leaseTime) {
+        Optional<Account> optionalAccount = accountRepository.findForUpdateByAccountNumber(accountNumber);
+        if (optionalAccount.isEmpty()) {
+            // 없는 계좌는 지킬 잔액이 없으므로 통과시키고, 이후 검증에서 ACCOUNT_NOT_FOUND 로 실패한다.
+            return true;
+        }
+
+        Account account = optionalAccount.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (account.getLockOwner() != null
+                && !account.getLockOwner().equals(owner)
+                && account.getLockExpiresAt().isAfter(now)) {
+            return false;
+        }
+        accountRepository.updateLockOwner(account.getId(), owner,
+                now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseTime)));
+        return true;
+    }
+
+    private void startRenewal(String accountNumber, String owner) {
+        long period = watchdogLeaseMillis / 3;
+        ScheduledFuture<?> renewal = watchdog.scheduleAtFixedRate(() -> renew(accountNumber, owner),
+                period, period, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> previous = renewals.put(renewalKey(accountNumber, owner), renewal);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    private void stopRenewal(String accountNumber, String owner) {
+        ScheduledFuture<?> renewal = renewals.remove(renewalKey(accountNumber, owner));
+        if (renewal != null) {
+            renewal.cancel(false);
+        }
+    }
+
+    /**
+     * 아직 이 소유자의 락일 때만 만료 시각을 늦춘다. 이미 넘어갔거나 없는 계좌면 멈춘다.
+     */
+    private void renew(String accountNumber, String owner) {
+        try {
+            LocalDateTime expiresAt = LocalDateTime.now()
+                    .plusNanos(TimeUnit.MILLISECONDS.toNanos(watchdogLeaseMillis));
+            Integer renewed = transactionTemplate.execute(status ->
+                    accountRepository.renewLockOwner(accountNumber, owner, expiresAt));
+            if (Objects.equals(renewed, 0)) {
+                log.warn("Database lock lease lost before unlock. accountNumber : {}", accountNumber);
+                stopRenewal(accountNumber, owner);
+            }
+        } catch (Exception e) {
+            // 다음 주기에 다시 시도한다. 그 사이 lease 가 만료되면 해제할 때 IllegalMonitorStateException 으로 드러난다.
+            log.error("Failed to renew database lock lease. accountNumber : {}", accountNumber, e);
+        }
+    }
+
+    private static String renewalKey(String accountNumber, String owner) {
+        return accountNumber + "|" + owner;
+    }
+
+    private String getOwner(long ownerId) {
+        return nodeId + ":" + ownerId;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        lockExecutor.shutdown();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.account.service;
+
+import com.example.account.dto.BatchItemDto;
+import com.example.account.dto.UseBalance;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 같은 계좌에 몰린 잔액 사용 요청을 짧은 시간 동안 모아 한 묶음으로 커밋한다(group commit).
+ * 계좌마다 열린 묶음이 하나씩 있고, 첫 요청부터 window 가 지나거나 maxBatchSize 건이 차면 닫아서 넘긴다.
+ * 묶음은 락(또는 큐)을 한 번만 거치고 한 트랜잭션에서 Account 갱신 한 번과 거래 일괄 저장으로 처리되며,
+ * 각 요청은 자기 몫의 결과를 받는다. 한 묶음이 커밋되는 동안 다음 묶음이 모인다.
+ */
+@Component
+public class DebitCoalescer {
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSize;
+    private final ConcurrentMap<String, Batch> openBatches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public DebitCoalescer(
+            MeterRegistry meterRegistry,
+            @Value("${account.balance.coalesce.enabled:false}") boolean enabled,
+            @Value("${account.balance.coalesce.window:2ms}") Duration window,
+            @Value("${account.balance.coalesce.max-batch-size:100}") int maxBatchSize
+    ) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("account.balance.coalesce.max-batch-size must be positive");
+        }
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSize = DistributionSummary.builder("account.balance.coalesce.batch.size")
+                .register(meterRegistry);
+        this.scheduler = enabled
+                ? Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("debit-coalescer-"))
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 요청을 계좌의 열린 묶음에 넣고, 묶음이 커밋되면 자기 몫의 결과로 완료되는 future 를 돌려준다.
+     * groupCommit 은 묶음의 요청 목록을 받아 같은 순서의 결과 목록을 돌려주며, 실패하면 묶음의 모든 요청이 실패한다.
+     */
+    public CompletableFuture<BatchItemDto> submit(
+            UseBalance.Request request,
+            Function<List<UseBalance.Request>, CompletableFuture<List<BatchItemDto>>> groupCommit) {
+        CompletableFuture<BatchItemDto> result = new CompletableFuture<>();
+        Batch[] full = new Batch[1];
+        openBatches.compute(request.getAccountNumber(), (accountNumber, batch) -> {
+            if (batch == null) {
+                batch = new Batch(accountNumber, groupCommit);
+                Batch opened = batch;
+                scheduler.schedule(() -> close(opened), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            batch.requests.add(request);
+            batch.results.add(result);
+            if (batch.requests.size() >= maxBatchSize) {
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+        if (full[0] != null) {
+            commit(full[0]);
+        }
+        return result;
+    }
+
+    /**
+     * window 가 지난 묶음을 닫는다. 이미 가득 차서 닫혔으면 아무것도 하지 않는다.
+     */
+    private void close(Batch batch) {
+        if (openBatches.remove(batch.accountNumber, batch)) {
+            commit(batch);
+        }
+    }
+
+    private void commit(Batch batch) {
+        batchSize.record(batch.requests.size());
+        CompletableFuture<List<BatchItemDto>> committed;
+        try {
+            committed = batch.groupCommit.apply(batch.requests);
+        } catch (RuntimeException e) {
+            committed = CompletableFuture.failedFuture(e);
+        }
+        committed.whenComplete((groupResults, e) -> {
+            for (int i = 0; i < batch.results.size(); i++) {
+                if (e == null) {
+                    batch.results.get(i).complete(groupResults.get(i));
+                } else {
+                    batch.results.get(i).completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 남은 묶음을 모두 넘긴 뒤 멈춘다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        openBatches.values().forEach(this::close);
+    }
+
+    private static class Batch {
+        private final String accountNumber;
+        private final Function<List<UseBalance.Request>, CompletableFuture<List<BatchItemDto>>> groupCommit;
+        // openBatches.compute 안에서만 덧붙이고, 닫힌 뒤에는 읽기만 한다.
+        private final List<UseBalance.Request> requests = new ArrayList<>();
+        private final List<CompletableFuture<BatchItemDto>> results = new ArrayList<>();
+
+        private Batch(String accountNumber,
+                      Function<List<UseBalance.Request>, CompletableFuture<List<BatchItemDto>>> groupCommit) {
+            this.accountNumber = accountNumber;
+            this.groupCommit = groupCommit;
+        }
+    }
+}
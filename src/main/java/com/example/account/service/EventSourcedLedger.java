@@ -0,0 +1,365 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountSnapshot;
+import com.example.account.domain.LedgerEvent;
+import com.example.account.domain.Transaction;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountSnapshotRepository;
+import com.example.account.repository.LedgerEventRepository;
+import com.example.account.type.LedgerEventType;
+import com.example.account.type.LedgerWriteMode;
+import com.example.account.type.TransactionResultType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.ErrorCode.INVALID_REQUEST;
+
+/**
+ * EVENT_SOURCED 모드의 원장
+ * 1. 계좌 개설과 성공한 잔액 변경(사용, 취소, 이체)을 LedgerEvent 로 덧붙인다. 이벤트는 바꾸지 않는다.
+ * 2. 계좌 잔액은 가장 최근 AccountSnapshot 에 그 뒤 이벤트를 차례로 반영해서 다시 만든다.
+ *    TransactionService 는 Account.balance 대신 이 값으로 검증하고 차감하며, Account.balance 는 조회용으로 함께 맞춘다.
+ * 3. 스냅샷 뒤 이벤트가 snapshotInterval 개가 된 계좌는 커밋 뒤 백그라운드에서 스냅샷을 만든다.
+ *    백그라운드가 아직 만들지 못한 계좌에 이벤트를 더 덧붙이려 하면 그 요청이 먼저 스냅샷을 만들므로,
+ *    이력이 얼마나 길든 잔액을 다시 만들 때 읽는 이벤트는 snapshotInterval 개 이하다.
+ * 한 트랜잭션 안에서 다시 만든 계좌 상태는 트랜잭션에 묶어 두고, 같은 계좌의 다음 이벤트는 그 상태에 이어 붙인다.
+ * 같은 계좌에 동시에 덧붙이면 (account_id, sequence) 유일 제약으로 하나만 남고, 나머지는 @Version 충돌처럼 재시도한다.
+ * SYNC, JOURNAL 모드에서는 아무것도 하지 않고 isEnabled() 가 false 다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventSourcedLedger {
+    private final LedgerEventRepository ledgerEventRepository;
+    private final AccountSnapshotRepository accountSnapshotRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${account.ledger.write-mode:SYNC}")
+    private LedgerWriteMode writeMode;
+
+    @Value("${account.ledger.snapshot.interval:100}")
+    private int snapshotInterval;
+
+    @Value("${account.ledger.snapshot.delay:1s}")
+    private Duration snapshotDelay;
+
+    // 커밋 뒤 스냅샷을 만들 계좌 id
+    private final Set<Long> snapshotRequests = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService snapshotter;
+    private DistributionSummary replayedEvents;
+    private Counter backgroundSnapshots;
+    private Counter inlineSnapshots;
+
+    @PostConstruct
+    public void start() {
+        if (writeMode != LedgerWriteMode.EVENT_SOURCED) {
+            return;
+        }
+        if (snapshotInterval <= 0) {
+            throw new IllegalStateException("account.ledger.snapshot.interval must be positive");
+        }
+        replayedEvents = DistributionSummary.builder("account.ledger.replay.events")
+                .register(meterRegistry);
+        backgroundSnapshots = Counter.builder("account.ledger.snapshots")
+                .tag("source", "background").register(meterRegistry);
+        inlineSnapshots = Counter.builder("account.ledger.snapshots")
+                .tag("source", "inline").register(meterRegistry);
+        Gauge.builder("account.ledger.snapshot.pending", snapshotRequests, Set::size)
+                .register(meterRegistry);
+
+        snapshotter = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("ledger-snapshot-"));
+        snapshotter.scheduleWithFixedDelay(this::snapshotQuietly,
+                snapshotDelay.toMillis(), snapshotDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return snapshotter != null;
+    }
+
+    /**
+     * 원장 이벤트로 다시 만든 잔액, 트랜잭션 안에서 불러야 한다.
+     */
+    public long balanceOf(Account account) {
+        return state(account).balance;
+    }
+
+    /**
+     * 아무것도 저장하지 않고 읽은 원장 잔액, 계좌 락 없이 실패 거래를 남길 때 쓴다.
+     * 이 트랜잭션에서 이미 다시 만든 계좌는 그 잔액을, 원장이 없는 계좌는 지금 잔액을 돌려준다.
+     */
+    public long peekBalanceOf(Account account) {
+        Map<Long, LedgerState> states = boundStates();
+        LedgerState state = states == null ? null : states.get(account.getId());
+        if (state != null) {
+            return state.balance;
+        }
+        return replay(account).map(replayed -> replayed.balance).orElse(account.getBalance());
+    }
+
+    /**
+     * 새 계좌의 초기 잔액을 첫 이벤트(CREATE)로 남긴다.
+     */
+    public void recordCreated(Account account) {
+        if (!isEnabled()) {
+            return;
+        }
+        LedgerState state = new LedgerState(account, 0L, 0L, 0L);
+        states().put(account.getId(), state);
+        save(Collections.singletonList(
+                next(state, LedgerEventType.CREATE, account.getBalance(), null, account.getRegisteredAt())));
+    }
+
+    /**
+     * 성공한 거래를 순서대로 이벤트로 남긴다. 실패한 거래는 잔액을 바꾸지 않으므로 건너뛴다.
+     */
+    public void append(List<Transaction> transactions) {
+        if (!isEnabled()) {
+            return;
+        }
+        List<LedgerEvent> events = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            if (transaction.getTransactionResultType() != TransactionResultType.S) {
+                continue;
+            }
+            events.add(next(state(transaction.getAccount()),
+                    LedgerEventType.valueOf(transaction.getTransactionType().name()),
+                    transaction.getAmount(), transaction.getTransactionId(), transaction.getTransactedAt()));
+        }
+        save(events);
+    }
+
+    private LedgerEvent next(LedgerState state, LedgerEventType eventType, Long amount,
+                             String transactionId, LocalDateTime occurredAt) {
+        if (state.tail() >= snapshotInterval) {
+            // 백그라운드가 아직 만들지 못했다. 덧붙이기 전에 만들어 두어야 다시 만들 때 읽는 이벤트 수가 늘지 않는다.
+            takeSnapshot(state);
+            inlineSnapshots.increment();
+        }
+        LedgerEvent event = LedgerEvent.builder()
+                .account(state.account)
+                .sequence(state.sequence + 1)
+                .eventType(eventType)
+                .amount(amount)
+                .transactionId(transactionId)
+                .occurredAt(occurredAt)
+                .build();
+        state.sequence = event.getSequence();
+        state.balance = event.applyTo(state.balance);
+        return event;
+    }
+
+    /**
+     * 유일 제약 위반을 커밋이 아니라 여기서 드러내서, 호출한 쪽이 @Version 충돌과 같은 방식으로 재시도하게 한다.
+     */
+    private void save(List<LedgerEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            ledgerEventRepository.saveAll(events);
+            ledgerEventRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new LedgerConflictException(events.get(0).getAccount().getAccountNumber(), e);
+        }
+    }
+
+    private LedgerState state(Account account) {
+        Map<Long, LedgerState> states = states();
+        LedgerState state = states.get(account.getId());
+        if (state == null) {
+            state = rebuild(account);
+            states.put(account.getId(), state);
+        }
+        return state;
+    }
+
+    /**
+     * 이 트랜잭션에서 다시 만든 계좌 상태, 트랜잭션이 끝나면 버리고 커밋했으면 스냅샷이 필요한 계좌를 넘긴다.
+     */
+    private Map<Long, LedgerState> states() {
+        Map<Long, LedgerState> states = boundStates();
+        if (states != null) {
+            return states;
+        }
+        Map<Long, LedgerState> bound = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, bound);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bound.forEach((accountId, state) -> {
+                    if (state.tail() >= snapshotInterval) {
+                        snapshotRequests.add(accountId);
+                    }
+                });
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(EventSourcedLedger.this);
+            }
+        });
+        return bound;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, LedgerState> boundStates() {
+        return (Map<Long, LedgerState>) TransactionSynchronizationManager.getResource(this);
+    }
+
+    /**
+     * 스냅샷도 이벤트도 없는 계좌는 이 모드를 켜기 전에 만든 계좌이므로 지금 잔액을 0 번째 스냅샷으로 남긴다.
+     */
+    private LedgerState rebuild(Account account) {
+        return replay(account).orElseGet(() -> {
+            LedgerState state = new LedgerState(account, 0L, 0L, account.getBalance());
+            takeSnapshot(state);
+            return state;
+        });
+    }
+
+    /**
+     * 가장 최근 스냅샷에 그 뒤 이벤트를 반영한다. 스냅샷도 이벤트도 없으면 비어 있다.
+     */
+    private Optional<LedgerState> replay(Account account) {
+        if (account.isSplitBalance()) {
+            // 조각 잔액은 이벤트로 남기지 않는다.
+            throw new AccountException(INVALID_REQUEST);
+        }
+        Optional<AccountSnapshot> snapshot =
+                accountSnapshotRepository.findFirstByAccountIdOrderBySequenceDesc(account.getId());
+        long snapshotSequence = snapshot.map(AccountSnapshot::getSequence).orElse(0L);
+        List<LedgerEvent> tail = ledgerEventRepository.findAfter(account.getId(), snapshotSequence);
+        replayedEvents.record(tail.size());
+
+        if (snapshot.isEmpty() && tail.isEmpty()) {
+            return Optional.empty();
+        }
+        long balance = snapshot.map(AccountSnapshot::getBalance).orElse(0L);
+        for (LedgerEvent event : tail) {
+            balance = event.applyTo(balance);
+        }
+        long sequence = tail.isEmpty() ? snapshotSequence : tail.get(tail.size() - 1).getSequence();
+        return Optional.of(new LedgerState(account, sequence, snapshotSequence, balance));
+    }
+
+    private void takeSnapshot(LedgerState state) {
+        accountSnapshotRepository.save(AccountSnapshot.builder()
+                .account(state.account)
+                .sequence(state.sequence)
+                .balance(state.balance)
+                .takenAt(LocalDateTime.now())
+                .build());
+        state.snapshotSequence = state.sequence;
+    }
+
+    /**
+     * 요청받은 계좌의 스냅샷을 계좌마다 한 트랜잭션으로 만들고 만든 개수를 돌려준다.
+     * 그 사이 요청이 직접 만들었으면 건너뛴다. 실패한 계좌는 다음 쓰기가 직접 만든다.
+     */
+    int snapshot() {
+        int taken = 0;
+        for (Long accountId : new ArrayList<>(snapshotRequests)) {
+            snapshotRequests.remove(accountId);
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> snapshotAccount(accountId)))) {
+                    taken++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to take ledger snapshot of account {}.", accountId, e);
+            }
+        }
+        return taken;
+    }
+
+    private boolean snapshotAccount(Long accountId) {
+        LedgerState state = rebuild(accountRepository.getReferenceById(accountId));
+        if (state.tail() < snapshotInterval) {
+            return false;
+        }
+        takeSnapshot(state);
+        backgroundSnapshots.increment();
+        return true;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            int taken = snapshot();
+            if (taken > 0) {
+                log.debug("Took {} ledger snapshots.", taken);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to take ledger snapshots.", e);
+        }
+    }
+
+    /**
+     * 남은 요청은 버린다. 그 계좌의 다음 쓰기가 직접 스냅샷을 만든다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (snapshotter == null) {
+            return;
+        }
+        snapshotter.shutdownNow();
+    }
+
+    private static class LedgerState {
+        private final Account account;
+        private long sequence;
+        private long snapshotSequence;
+        private long balance;
+
+        private LedgerState(Account account, long sequence, long snapshotSequence, long balance) {
+            this.account = account;
+            this.sequence = sequence;
+            this.snapshotSequence = snapshotSequence;
+            this.balance = balance;
+        }
+
+        private long tail() {
+            return sequence - snapshotSequence;
+        }
+    }
+
+    /**
+     * 다른 작성자가 같은 계좌에 먼저 이벤트를 덧붙였다. 새 트랜잭션에서 다시 시도하면 된다.
+     */
+    public static class LedgerConflictException extends OptimisticLockingFailureException {
+        public LedgerConflictException(String accountNumber, Throwable cause) {
+            super("Ledger event of account " + accountNumber + " appended concurrently", cause);
+        }
+    }
+}
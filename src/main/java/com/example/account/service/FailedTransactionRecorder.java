@@ -0,0 +1,116 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransactionDto;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청 경로 밖에서 실패 거래를 남긴다.
+ * 실패한 요청은 정해진 크기의 버퍼에 넣고 바로 응답하며, 백그라운드 쓰레드가 flushInterval 마다
+ * batchSize 건씩 한 트랜잭션으로 저장한다. 계좌는 묶음 안에서 계좌번호마다 한 번만 읽는다.
+ * 과부하로 버퍼가 가득 차면 실패 거래를 버리고 dropped 카운터만 올린다. 응답은 이미 실패로 나갔으므로 잔액에는 영향이 없다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionRecorder {
+    private final TransactionService transactionService;
+    private final int batchSize;
+    private final BlockingQueue<FailedTransactionDto> buffer;
+    private final Counter dropped;
+    private final ScheduledExecutorService writer;
+
+    public FailedTransactionRecorder(
+            TransactionService transactionService,
+            MeterRegistry meterRegistry,
+            @Value("${account.transaction.failure.buffer-capacity:10000}") int bufferCapacity,
+            @Value("${account.transaction.failure.batch-size:500}") int batchSize,
+            @Value("${account.transaction.failure.flush-interval:100ms}") Duration flushInterval
+    ) {
+        if (bufferCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException(
+                    "account.transaction.failure.buffer-capacity and batch-size must be positive");
+        }
+        this.transactionService = transactionService;
+        this.batchSize = batchSize;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        Gauge.builder("account.transaction.failure.buffer.size", buffer, BlockingQueue::size)
+                .register(meterRegistry);
+        this.dropped = Counter.builder("account.transaction.failure.dropped")
+                .register(meterRegistry);
+        this.writer = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("failed-transaction-writer-"));
+        writer.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 기다리지 않고 버퍼에 넣는다.
+     */
+    public void record(TransactionType transactionType, String accountNumber, Long amount) {
+        FailedTransactionDto failure = FailedTransactionDto.builder()
+                .transactionType(transactionType)
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .failedAt(LocalDateTime.now())
+                .build();
+        if (!buffer.offer(failure)) {
+            dropped.increment();
+            log.warn("Failed transaction buffer is full. Dropped {} of account {}", transactionType, accountNumber);
+        }
+    }
+
+    /**
+     * 버퍼가 빌 때까지 batchSize 건씩 저장하고 저장한 건수를 돌려준다.
+     * 저장에 실패한 묶음은 다시 넣지 않고 버린다.
+     */
+    int flush() {
+        int written = 0;
+        List<FailedTransactionDto> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                transactionService.saveFailedTransactions(batch);
+                written += batch.size();
+            } catch (RuntimeException e) {
+                dropped.increment(batch.size());
+                log.error("Failed to save {} failed transactions.", batch.size(), e);
+            }
+            batch.clear();
+        }
+        return written;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush failed transactions.", e);
+        }
+    }
+
+    /**
+     * 남은 실패 거래를 저장한 뒤 멈춘다.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+}
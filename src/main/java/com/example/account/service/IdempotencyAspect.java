@@ -0,0 +1,190 @@
+package com.example.account.service;
+
+import com.example.account.aop.Idempotent;
+import com.example.account.exception.AccountException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.example.account.type.ErrorCode.IDEMPOTENCY_KEY_REUSED;
+import static com.example.account.type.ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS;
+
+/**
+ * Idempotency-Key 재요청 처리
+ * 1. 완료된 키 : 저장된 응답을 그대로 돌려준다.
+ * 2. 이 노드에서 처리 중인 키 : 같은 실행 결과를 함께 기다린다.
+ * 3. 다른 노드에서 처리 중인 키 : IDEMPOTENT_REQUEST_IN_PROGRESS 로 실패한다.
+ * 키는 컨트롤러 메소드가 아니라 요청한 작업(HTTP 메소드와 경로)마다 나뉘므로,
+ * 같은 경로를 처리하는 여러 메소드(동기 처리와 Prefer: respond-async 접수)가 한 키를 함께 쓴다.
+ * 키마다 처음 요청 인자의 해시를 남겨 두고, 같은 키로 다른 요청이 오면 IDEMPOTENCY_KEY_REUSED 로 거절한다.
+ * 락보다 먼저 실행되도록 가장 높은 우선순위를 가진다. 성공한 응답만 저장하므로 실패한 요청은 다시 시도할 수 있다.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class IdempotencyAspect {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${account.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${account.idempotency.pending-ttl:30s}")
+    private Duration pendingTtl;
+
+    @Around("@annotation(idempotent)")
+    public Object aroundMethod(ProceedingJoinPoint pjp, Idempotent idempotent) throws Throwable {
+        HttpServletRequest request = currentRequest();
+        String idempotencyKey = request == null ? null : request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey == null || idempotencyKey.isBlank() || !isAsync(pjp)) {
+            return pjp.proceed();
+        }
+
+        String key = request.getMethod() + " " + request.getRequestURI() + ":" + idempotencyKey;
+        String requestHash = requestHash(pjp.getArgs());
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        // 내용이 다른 요청은 함께 기다리지 않고 저장소에서 걸러진다.
+        String inFlightKey = key + ":" + requestHash;
+        CompletableFuture<Object> running = inFlight.putIfAbsent(inFlightKey, result);
+        if (running != null) {
+            log.debug("Coalesced duplicated request. key : {}", key);
+            return running.thenApply(response -> response);
+        }
+
+        try {
+            JavaType responseType = responseType(pjp);
+            Optional<Object> replay = findCompleted(key, requestHash, responseType);
+            if (replay.isPresent()) {
+                result.complete(replay.get());
+                return result;
+            }
+            if (!idempotencyStore.reserve(key, requestHash, pendingTtl.toMillis())) {
+                // 조회와 선점 사이에 다른 노드가 끝냈을 수도 있다.
+                replay = findCompleted(key, requestHash, responseType);
+                if (replay.isPresent()) {
+                    result.complete(replay.get());
+                } else {
+                    result.completeExceptionally(new AccountException(IDEMPOTENT_REQUEST_IN_PROGRESS));
+                }
+                return result;
+            }
+
+            proceedAsync(pjp).whenComplete((response, e) -> {
+                if (e == null) {
+                    save(key, requestHash, response);
+                    result.complete(response);
+                } else {
+                    idempotencyStore.release(key, requestHash);
+                    result.completeExceptionally(e);
+                }
+            });
+            return result;
+        } catch (AccountException e) {
+            // 다른 요청이 쓴 키다. 그 요청의 선점은 풀지 않는다.
+            result.completeExceptionally(e);
+            return result;
+        } catch (Throwable e) {
+            idempotencyStore.release(key, requestHash);
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            result.whenComplete((response, e) -> inFlight.remove(inFlightKey, result));
+        }
+    }
+
+    /**
+     * 완료된 응답, 키를 다른 요청이 쓰고 있거나 썼으면 IDEMPOTENCY_KEY_REUSED 로 실패한다.
+     */
+    private Optional<Object> findCompleted(String key, String requestHash, JavaType responseType)
+            throws JsonProcessingException {
+        Optional<IdempotencyStore.StoredRequest> stored = idempotencyStore.find(key);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!stored.get().getRequestHash().equals(requestHash)) {
+            log.warn("Idempotency-Key reused with a different request. key : {}", key);
+            throw new AccountException(IDEMPOTENCY_KEY_REUSED);
+        }
+        if (!stored.get().isCompleted()) {
+            return Optional.empty();
+        }
+        log.debug("Replay stored response. key : {}", key);
+        return Optional.of(objectMapper.readValue(stored.get().getResponse(), responseType));
+    }
+
+    private void save(String key, String requestHash, Object response) {
+        try {
+            idempotencyStore.complete(key, requestHash, objectMapper.writeValueAsString(response), ttl.toMillis());
+        } catch (RuntimeException | JsonProcessingException e) {
+            // 저장에 실패해도 응답은 돌려주고, 다음 재요청은 처음부터 다시 처리된다.
+            log.error("Failed to store idempotent response. key : {}", key, e);
+            idempotencyStore.release(key, requestHash);
+        }
+    }
+
+    /**
+     * 요청 인자(요청 본문)를 JSON 으로 바꾼 SHA-256
+     */
+    private String requestHash(Object[] args) throws JsonProcessingException, NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(args));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private JavaType responseType(ProceedingJoinPoint pjp) {
+        Type returnType = ((MethodSignature) pjp.getSignature()).getMethod().getGenericReturnType();
+        Type responseType = returnType instanceof ParameterizedType
+                ? ((ParameterizedType) returnType).getActualTypeArguments()[0]
+                : Object.class;
+        return objectMapper.constructType(responseType);
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return ((ServletRequestAttributes) attributes).getRequest();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletionStage<Object> proceedAsync(ProceedingJoinPoint pjp) throws Throwable {
+        return (CompletionStage<Object>) pjp.proceed();
+    }
+
+    private static boolean isAsync(ProceedingJoinPoint pjp) {
+        return pjp.getSignature() instanceof MethodSignature
+                && CompletionStage.class.isAssignableFrom(
+                ((MethodSignature) pjp.getSignature()).getReturnType());
+    }
+}
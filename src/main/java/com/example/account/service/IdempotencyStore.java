@@ -0,0 +1,43 @@
+package com.example.account.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Optional;
+
+/**
+ * Idempotency-Key 별 응답 저장소
+ * 키는 처리 중(reserve) → 완료(complete) 순서로 바뀌며, 실패하면 release 로 지워서 다시 시도할 수 있게 한다.
+ * 키마다 처음 요청의 해시를 함께 남겨서, 같은 키로 다른 요청이 들어오면 알아챌 수 있게 한다.
+ */
+public interface IdempotencyStore {
+    /**
+     * 키로 남아 있는 요청, 없거나 만료되었으면 empty
+     */
+    Optional<StoredRequest> find(String key);
+
+    /**
+     * 키를 처리 중으로 선점한다. 이미 처리 중이거나 완료된 키면 false
+     * 처리하던 노드가 죽어도 키가 영원히 묶이지 않도록 ttlMillis 가 지나면 선점이 풀린다.
+     */
+    boolean reserve(String key, String requestHash, long ttlMillis);
+
+    void complete(String key, String requestHash, String response, long ttlMillis);
+
+    /**
+     * requestHash 로 선점한 처리 중인 키만 지운다.
+     */
+    void release(String key, String requestHash);
+
+    @Getter
+    @AllArgsConstructor
+    class StoredRequest {
+        private final String requestHash;
+        // null 이면 처리 중
+        private final String response;
+
+        public boolean isCompleted() {
+            return response != null;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.account.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 단일 노드용 Idempotency-Key 저장소
+ * 만료된 키는 조회 시점에 없는 것으로 보고, 주기적으로 한꺼번에 지운다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+    private static final long PURGE_INTERVAL_SECONDS = 30L;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService purger;
+
+    public InMemoryIdempotencyStore() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("idempotency-purge-");
+        threadFactory.setDaemon(true);
+        this.purger = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        purger.scheduleWithFixedDelay(this::purgeExpired,
+                PURGE_INTERVAL_SECONDS, PURGE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public Optional<StoredRequest> find(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.isExpired(System.currentTimeMillis())) {
+            return Optional.empty();
+        }
+        return Optional.of(new StoredRequest(entry.requestHash, entry.response));
+    }
+
+    @Override
+    public boolean reserve(String key, String requestHash, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        AtomicBoolean reserved = new AtomicBoolean();
+        entries.compute(key, (k, current) -> {
+            if (current != null && !current.isExpired(now)) {
+                return current;
+            }
+            reserved.set(true);
+            return new Entry(requestHash, null, now + ttlMillis);
+        });
+        return reserved.get();
+    }
+
+    @Override
+    public void complete(String key, String requestHash, String response, long ttlMillis) {
+        entries.put(key, new Entry(requestHash, response, System.currentTimeMillis() + ttlMillis));
+    }
+
+    @Override
+    public void release(String key, String requestHash) {
+        // 이미 완료된 응답과 다른 요청의 선점은 지우지 않는다.
+        entries.computeIfPresent(key, (k, current) ->
+                current.response == null && Objects.equals(current.requestHash, requestHash) ? null : current);
+    }
+
+    void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final String requestHash;
+        // null 이면 처리 중
+        private final String response;
+        private final long expiresAt;
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.account.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 단일 노드 배포와 테스트용 락, Redis 없이 동작한다.
+ * 대기 순서(공정성)는 LockService 의 계좌별 FIFO 대기열이 보장하므로 여기서는 소유자와 lease 만 관리한다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "in-process")
+public class InProcessLockProvider implements LockProvider {
+    private final ConcurrentMap<String, Lease> leases = new ConcurrentHashMap<>();
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(String accountNumber, long waitTimeMillis,
+                                                   long leaseTimeMillis, long ownerId) {
+        long now = System.currentTimeMillis();
+        long expiresAt = leaseTimeMillis > 0 ? now + leaseTimeMillis : Long.MAX_VALUE;
+
+        Lease lease = leases.compute(accountNumber, (key, current) ->
+                current == null || current.ownerId == ownerId || current.isExpired(now)
+                        ? new Lease(ownerId, expiresAt)
+                        : current);
+        return CompletableFuture.completedFuture(lease.ownerId == ownerId);
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String accountNumber, long ownerId) {
+        long now = System.currentTimeMillis();
+        AtomicBoolean released = new AtomicBoolean();
+        leases.computeIfPresent(accountNumber, (key, current) -> {
+            if (current.ownerId != ownerId) {
+                return current;
+            }
+            released.set(!current.isExpired(now));
+            return null;
+        });
+
+        if (!released.get()) {
+            return CompletableFuture.failedFuture(new IllegalMonitorStateException(
+                    "lock lease expired. accountNumber : " + accountNumber));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @AllArgsConstructor
+    private static class Lease {
+        private final long ownerId;
+        private final long expiresAt;
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
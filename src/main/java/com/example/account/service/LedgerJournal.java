@@ -0,0 +1,175 @@
+package com.example.account.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 메모리 매핑 파일에 쓰는 선행 기록(write-ahead) 저널
+ * 헤더 : [long DB 에 반영한 위치][long DB 에 반영한 순번]
+ * 기록 : [int 내용 길이][long 순번][int CRC32][내용], 길이가 0 이면 끝
+ * 순번이 이어지지 않거나 CRC 가 맞지 않는 기록에서 읽기를 멈추므로,
+ * 쓰다 만 꼬리나 되감기 전에 남아 있던 옛 기록은 다시 읽히지 않는다.
+ */
+public class LedgerJournal implements Closeable {
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private int writePosition;
+    private long lastSequence;
+    private int appliedPosition;
+    private long appliedSequence;
+
+    public LedgerJournal(Path path, int capacity) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        this.appliedPosition = (int) buffer.getLong(0);
+        this.appliedSequence = buffer.getLong(8);
+        if (appliedPosition < HEADER_SIZE || appliedPosition >= capacity) {
+            // 새 파일
+            appliedPosition = HEADER_SIZE;
+            appliedSequence = 0L;
+            writeHeader();
+        }
+        this.writePosition = appliedPosition;
+        this.lastSequence = appliedSequence;
+    }
+
+    /**
+     * 아직 DB 에 반영하지 않은 기록을 읽고, 그 뒤부터 이어 쓰도록 위치를 맞춘다. 시작할 때 한 번 부른다.
+     */
+    public synchronized List<Record> recover() {
+        List<Record> records = new ArrayList<>();
+        int position = appliedPosition;
+        long sequence = appliedSequence;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()
+                    || buffer.getLong(position + 4) != sequence + 1) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + RECORD_HEADER_SIZE);
+            view.get(payload);
+            if (buffer.getInt(position + 12) != checksum(sequence + 1, payload)) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+            sequence++;
+            records.add(new Record(sequence, position, payload));
+        }
+        writePosition = position;
+        lastSequence = sequence;
+        return records;
+    }
+
+    /**
+     * 기록을 덧붙이고 순번과 끝 위치를 돌려준다. 자리가 없으면 null.
+     * 디스크에 내려가는 것은 force() 를 부른 뒤다.
+     */
+    public synchronized Record append(byte[] payload) {
+        int end = writePosition + RECORD_HEADER_SIZE + payload.length;
+        if (end + 4 > buffer.capacity()) {
+            return null;
+        }
+        long sequence = lastSequence + 1;
+        buffer.putInt(end, 0);
+        ByteBuffer view = buffer.duplicate();
+        view.position(writePosition + RECORD_HEADER_SIZE);
+        view.put(payload);
+        buffer.putLong(writePosition + 4, sequence);
+        buffer.putInt(writePosition + 12, checksum(sequence, payload));
+        buffer.putInt(writePosition, payload.length);
+
+        writePosition = end;
+        lastSequence = sequence;
+        return new Record(sequence, end, payload);
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    /**
+     * 여기까지 DB 에 반영했다고 헤더에 남긴다. 다음 force() 때 함께 디스크에 내려간다.
+     */
+    public synchronized void checkpoint(Record record) {
+        if (record.getSequence() <= appliedSequence) {
+            return;
+        }
+        appliedPosition = record.getEndPosition();
+        appliedSequence = record.getSequence();
+        writeHeader();
+    }
+
+    /**
+     * 모든 기록이 DB 에 반영되었으면 처음부터 다시 쓴다. 되감았으면 true.
+     */
+    public synchronized boolean rewindIfApplied() {
+        if (appliedSequence != lastSequence || writePosition == HEADER_SIZE) {
+            return false;
+        }
+        buffer.putInt(HEADER_SIZE, 0);
+        appliedPosition = HEADER_SIZE;
+        writePosition = HEADER_SIZE;
+        writeHeader();
+        buffer.force();
+        return true;
+    }
+
+    public synchronized int getWritePosition() {
+        return writePosition;
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void writeHeader() {
+        buffer.putLong(0, appliedPosition);
+        buffer.putLong(8, appliedSequence);
+    }
+
+    private static int checksum(long sequence, byte[] payload) {
+        CRC32 crc = new CRC32();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (sequence >>> shift));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Record {
+        private final long sequence;
+        private final int endPosition;
+        private final byte[] payload;
+    }
+}
@@ -1,33 +1,177 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
 import com.example.account.aop.AccountLockIdInterface;
-import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.BalanceConcurrencyMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
 @Aspect
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class LockAopAspect {
+    private static final long MIN_ADAPTIVE_WAIT_MILLIS = 100L;
+    private static final long ADAPTIVE_WAIT_HOLD_FACTOR = 2L;
+    private static final long ADAPTIVE_WAIT_MIN_SAMPLES = 20L;
+
     private final LockService lockService;
+    private final LockMetrics lockMetrics;
+    private final BalanceSlotService balanceSlotService;
+
+    @Value("${account.balance.concurrency-mode:LOCK}")
+    private BalanceConcurrencyMode concurrencyMode;
 
-    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
+    @Value("${account.balance.coalesce.enabled:false}")
+    private boolean coalesceEnabled;
+
+    @Around("@annotation(accountLock) && args(request)")
     public Object aroundMethod(
             ProceedingJoinPoint pjp,
+            AccountLock accountLock,
             AccountLockIdInterface request
     ) throws Throwable {
+        if (concurrencyMode == BalanceConcurrencyMode.OPTIMISTIC
+                || concurrencyMode == BalanceConcurrencyMode.MAILBOX) {
+            // 락 없이 TransactionService 의 @Version 충돌 재시도나 계좌별 큐에 맡긴다.
+            return pjp.proceed();
+        }
+        if (coalesceEnabled && accountLock.coalesced()) {
+            // 같은 계좌의 요청을 모은 묶음 단위로 TransactionService 가 락을 잡는다.
+            return pjp.proceed();
+        }
+        if (request.accountNumbersToLock().size() == 1 && balanceSlotService.isSplit(request.getAccountNumber())) {
+            // 잔액을 나눈 계좌는 조각마다 조건부 UPDATE 로 검증하며 차감하므로 계좌 락이 필요 없다.
+            return pjp.proceed();
+        }
+
+        String endpoint = pjp.getSignature().toShortString();
+        long waitTime = getWaitTime(endpoint, accountLock);
+
+        if (isAsync(pjp)) {
+            return aroundAsyncMethod(pjp, accountLock, request, endpoint, waitTime);
+        }
+
         // lock 취득시도
-        lockService.lock(request.getAccountNumber());
+        long lockStartedAt = System.nanoTime();
+        try {
+            lock(request, waitTime, accountLock.leaseTime());
+        } catch (AccountException e) {
+            lockMetrics.recordFailed(endpoint, System.nanoTime() - lockStartedAt);
+            throw e;
+        }
+        long lockedAt = System.nanoTime();
+        lockMetrics.recordAcquired(endpoint, lockedAt - lockStartedAt);
         try {
             return pjp.proceed();
         }finally {
             // lock 해제
-            lockService.unlock(request.getAccountNumber());
+            unlock(request);
+            lockMetrics.recordHold(endpoint, System.nanoTime() - lockedAt);
+        }
+    }
+
+    /**
+     * CompletionStage 를 반환하는 메소드는 락을 기다리는 동안 요청 쓰레드를 반납하고,
+     * 반환된 작업이 끝나는 시점에 락을 해제한다.
+     */
+    private CompletableFuture<Object> aroundAsyncMethod(
+            ProceedingJoinPoint pjp,
+            AccountLock accountLock,
+            AccountLockIdInterface request,
+            String endpoint,
+            long waitTime
+    ) {
+        long lockStartedAt = System.nanoTime();
+
+        return lockAsync(request, waitTime, accountLock.leaseTime())
+                .whenComplete((locked, e) -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    if (cause instanceof AccountException) {
+                        lockMetrics.recordFailed(endpoint, System.nanoTime() - lockStartedAt);
+                    }
+                })
+                .thenCompose(locked -> {
+                    long lockedAt = System.nanoTime();
+                    lockMetrics.recordAcquired(endpoint, lockedAt - lockStartedAt);
+
+                    CompletionStage<Object> result;
+                    try {
+                        result = proceedAsync(pjp);
+                    } catch (Throwable e) {
+                        unlock(request, endpoint, lockedAt);
+                        return CompletableFuture.failedFuture(e);
+                    }
+                    return result.whenComplete((value, e) -> unlock(request, endpoint, lockedAt));
+                });
+    }
+
+    private void unlock(AccountLockIdInterface request, String endpoint, long lockedAt) {
+        unlock(request);
+        lockMetrics.recordHold(endpoint, System.nanoTime() - lockedAt);
+    }
+
+    /**
+     * 여러 계좌가 걸린 요청(이체)은 LockService 가 계좌번호 순서로 모두 잠근다.
+     */
+    private void lock(AccountLockIdInterface request, long waitTime, long leaseTime) {
+        if (request.accountNumbersToLock().size() > 1) {
+            lockService.lockAll(request.accountNumbersToLock(), waitTime, leaseTime);
+            return;
+        }
+        lockService.lock(request.getAccountNumber(), waitTime, leaseTime);
+    }
+
+    private CompletableFuture<Void> lockAsync(AccountLockIdInterface request, long waitTime, long leaseTime) {
+        if (request.accountNumbersToLock().size() > 1) {
+            return lockService.lockAllAsync(request.accountNumbersToLock(), waitTime, leaseTime);
+        }
+        return lockService.lockAsync(request.getAccountNumber(), waitTime, leaseTime);
+    }
+
+    private void unlock(AccountLockIdInterface request) {
+        if (request.accountNumbersToLock().size() > 1) {
+            lockService.unlockAll(request.accountNumbersToLock());
+            return;
+        }
+        lockService.unlock(request.getAccountNumber());
+    }
+
+    /**
+     * adaptiveWait 이면 최근 점유 시간 p99 의 몇 배까지만 기다린다.
+     * 그보다 오래 기다려야 한다면 대기열이 이미 길다는 뜻이므로 빨리 실패시킨다.
+     */
+    private long getWaitTime(String endpoint, AccountLock accountLock) {
+        if (!accountLock.adaptiveWait()) {
+            return accountLock.tryLockTime();
         }
+        long holdTimeP99 = lockMetrics.holdTimeP99Millis(endpoint, ADAPTIVE_WAIT_MIN_SAMPLES);
+        if (holdTimeP99 < 0) {
+            return accountLock.tryLockTime();
+        }
+        return Math.min(accountLock.tryLockTime(),
+                Math.max(MIN_ADAPTIVE_WAIT_MILLIS, holdTimeP99 * ADAPTIVE_WAIT_HOLD_FACTOR));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletionStage<Object> proceedAsync(ProceedingJoinPoint pjp) throws Throwable {
+        return (CompletionStage<Object>) pjp.proceed();
+    }
+
+    private static boolean isAsync(ProceedingJoinPoint pjp) {
+        return pjp.getSignature() instanceof MethodSignature
+                && CompletionStage.class.isAssignableFrom(
+                ((MethodSignature) pjp.getSignature()).getReturnType());
     }
 }
@@ -0,0 +1,83 @@
+package com.example.account.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/**
+ * 계좌 락 지표
+ * - account.lock.wait : 락 대기 시간 (result=acquired / ACCOUNT_TRANSACTION_LOCK)
+ * - account.lock.hold : 락 점유 시간, 적응형 대기 시간 계산에 p99 를 사용
+ * - account.lock.lease.expired : 해제 시점에 이미 lease 가 만료된 노드 간 락의 점유 시간
+ */
+@Component
+@RequiredArgsConstructor
+public class LockMetrics {
+    private static final String ACQUIRED = "acquired";
+    private static final double HOLD_TIME_PERCENTILE = 0.99;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> holdTimers = new ConcurrentHashMap<>();
+
+    public void recordAcquired(String endpoint, long waitTimeNanos) {
+        waitTimer(endpoint, ACQUIRED).record(waitTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailed(String endpoint, long waitTimeNanos) {
+        waitTimer(endpoint, ACCOUNT_TRANSACTION_LOCK.name()).record(waitTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordHold(String endpoint, long holdTimeNanos) {
+        holdTimer(endpoint).record(holdTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLeaseExpired(long heldMillis) {
+        Timer.builder("account.lock.lease.expired")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(heldMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 최근 점유 시간 p99 (ms), 표본이 부족하면 -1
+     */
+    public long holdTimeP99Millis(String endpoint, long minSamples) {
+        Timer timer = holdTimer(endpoint);
+        if (timer.count() < minSamples) {
+            return -1L;
+        }
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == HOLD_TIME_PERCENTILE) {
+                return (long) percentile.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return -1L;
+    }
+
+    private Timer waitTimer(String endpoint, String result) {
+        return Timer.builder("account.lock.wait")
+                .tag("endpoint", endpoint)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+    private Timer holdTimer(String endpoint) {
+        return holdTimers.computeIfAbsent(endpoint, key -> Timer.builder("account.lock.hold")
+                .tag("endpoint", key)
+                .publishPercentiles(0.5, 0.95, HOLD_TIME_PERCENTILE)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry));
+    }
+}
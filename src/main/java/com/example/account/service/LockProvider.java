@@ -0,0 +1,21 @@
+package com.example.account.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * LockService 의 로컬 락 뒤에서 노드 간 계좌 락을 담당하는 구현체
+ * account.lock.provider 설정(redis, in-process, database)으로 하나만 등록된다.
+ * 같은 노드의 경합은 LockService 가 먼저 직렬화하므로, 구현체는 ownerId 단위의 상호 배제만 보장하면 된다.
+ */
+public interface LockProvider {
+    /**
+     * leaseTimeMillis 가 0 이하이면 해제 시점까지 lease 를 유지한다(watchdog).
+     */
+    CompletableFuture<Boolean> tryLockAsync(String accountNumber, long waitTimeMillis,
+                                            long leaseTimeMillis, long ownerId);
+
+    /**
+     * lease 가 이미 만료되어 다른 소유자에게 넘어갔다면 IllegalMonitorStateException 으로 실패한다.
+     */
+    CompletableFuture<Void> unlockAsync(String accountNumber, long ownerId);
+}
@@ -1,45 +1,219 @@
 package com.example.account.service;
 
-import com.example.account.aop.AccountLock;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * 계좌 락
+ * 1. 로컬 락 : 같은 노드의 경합자는 계좌번호별 대기열에서 메모리로 직렬화
+ * 2. 노드 간 락(LockProvider) : 로컬 대기열 묶음마다 한 번만 취득하고 다음 로컬 보유자에게 이어준다.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LockService {
-    private final RedissonClient redissonClient;
+    private static final long WAIT_TIME_MILLIS = 1000L;
+    private static final long LEASE_TIME_MILLIS = 15_000L;
+    private static final int MAX_LOCAL_HANDOFFS = 16;
+    private static final long MAX_HANDOFF_WINDOW_MILLIS = 7_500L;
+
+    private final LockProvider lockProvider;
+    private final LockMetrics lockMetrics;
+    private final ConcurrentMap<String, AccountLockGroup> lockGroups = new ConcurrentHashMap<>();
 
     public void lock(String accountNumber) {
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+        lock(accountNumber, WAIT_TIME_MILLIS, LEASE_TIME_MILLIS);
+    }
+
+    public void lock(String accountNumber, long waitTimeMillis, long leaseTimeMillis) {
+        try {
+            lockAsync(accountNumber, waitTimeMillis, leaseTimeMillis).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AccountException) {
+                throw (AccountException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Void> lockAsync(String accountNumber) {
+        return lockAsync(accountNumber, WAIT_TIME_MILLIS, LEASE_TIME_MILLIS);
+    }
+
+    /**
+     * 요청 쓰레드를 붙잡지 않는 락 취득
+     * 로컬 차례와 노드 간 락(LockProvider)을 모두 기다린 뒤 완료되며,
+     * 대기 시간을 넘기면 ACCOUNT_TRANSACTION_LOCK 으로 실패한다.
+     * leaseTimeMillis 가 0 이하이면 해제 시점까지 lease 를 연장한다(watchdog).
+     */
+    public CompletableFuture<Void> lockAsync(String accountNumber, long waitTimeMillis, long leaseTimeMillis) {
         log.debug("Trying lock for accountNumber : {}", accountNumber);
+        long deadline = System.currentTimeMillis() + waitTimeMillis;
+        long handoffWindow = leaseTimeMillis > 0
+                ? Math.min(leaseTimeMillis / 2, MAX_HANDOFF_WINDOW_MILLIS)
+                : MAX_HANDOFF_WINDOW_MILLIS;
+
+        return lockLocal(accountNumber, waitTimeMillis).thenCompose(group -> {
+            if (group.isRemoteHeld()) {
+                log.debug("Remote lock handed off locally for accountNumber : {}", accountNumber);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            long remainingWaitTime = Math.max(0L, deadline - System.currentTimeMillis());
+            return lockProvider
+                    .tryLockAsync(accountNumber, remainingWaitTime, leaseTimeMillis, group.getOwnerId())
+                    .handle((isLock, e) -> {
+                        if (e != null) {
+                            // 노드 간 락을 확인할 수 없으면 잡지 못한 것으로 본다.
+                            unlockLocal(accountNumber, group);
+                            log.error("Remote lock failed", e);
+                            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                        }
+                        if (!isLock) {
+                            unlockLocal(accountNumber, group);
+                            log.error("====Lock acquisition failed====");
+                            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                        }
+                        group.remoteAcquired(handoffWindow);
+                        return null;
+                    });
+        });
+    }
 
+    public void lockAll(Collection<String> accountNumbers, long waitTimeMillis, long leaseTimeMillis) {
         try {
-            boolean isLock = lock.tryLock(1, 15, TimeUnit.SECONDS);
-            if (!isLock) {
-                log.error("====Lock acquisition failed====");
-                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            lockAllAsync(accountNumbers, waitTimeMillis, leaseTimeMillis).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AccountException) {
+                throw (AccountException) e.getCause();
             }
-        } catch (AccountException e) {
             throw e;
-        } catch (Exception e){
-            log.error("Redis lock failed", e);
         }
     }
 
+    /**
+     * 여러 계좌를 계좌번호 순서대로 하나씩 잠근다.
+     * 모든 요청이 같은 순서로 잠그므로 서로의 락을 기다리는 교착 상태가 생기지 않고,
+     * 중간에 실패하면 이미 잡은 락을 풀고 실패한다. 대기 시간은 전체 계좌에 걸쳐 적용된다.
+     */
+    public CompletableFuture<Void> lockAllAsync(
+            Collection<String> accountNumbers, long waitTimeMillis, long leaseTimeMillis) {
+        List<String> ordered = new ArrayList<>(new TreeSet<>(accountNumbers));
+        long deadline = System.currentTimeMillis() + waitTimeMillis;
+        List<String> locked = new ArrayList<>();
+
+        CompletableFuture<Void> result = CompletableFuture.completedFuture(null);
+        for (String accountNumber : ordered) {
+            result = result.thenCompose(ignored -> lockAsync(accountNumber,
+                            Math.max(0L, deadline - System.currentTimeMillis()), leaseTimeMillis)
+                    .thenRun(() -> locked.add(accountNumber)));
+        }
+        return result.whenComplete((ignored, e) -> {
+            if (e != null) {
+                unlockAll(locked);
+            }
+        });
+    }
+
+    /**
+     * 잠근 순서의 역순으로 해제한다.
+     */
+    public void unlockAll(Collection<String> accountNumbers) {
+        List<String> ordered = new ArrayList<>(new TreeSet<>(accountNumbers));
+        Collections.reverse(ordered);
+        ordered.forEach(this::unlock);
+    }
+
     public void unlock(String accountNumber) {
         log.debug("Unlock for accountNumber : {} ", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        AccountLockGroup group = lockGroups.get(accountNumber);
+        if (group == null) {
+            log.warn("Unlock requested without lock for accountNumber : {}", accountNumber);
+            return;
+        }
+        unlockLocal(accountNumber, group);
+    }
+
+    private CompletableFuture<AccountLockGroup> lockLocal(String accountNumber, long waitTimeMillis) {
+        CompletableFuture<AccountLockGroup> turn = new CompletableFuture<>();
+        lockGroups.compute(accountNumber, (key, group) -> {
+            AccountLockGroup target = group == null ? new AccountLockGroup() : group;
+            target.enter(turn);
+            return target;
+        });
+
+        if (!turn.isDone()) {
+            CompletableFuture.delayedExecutor(waitTimeMillis, TimeUnit.MILLISECONDS)
+                    .execute(() -> abandonLocal(accountNumber, turn));
+        }
+        return turn;
+    }
+
+    private void abandonLocal(String accountNumber, CompletableFuture<AccountLockGroup> turn) {
+        AtomicBoolean abandoned = new AtomicBoolean();
+        lockGroups.computeIfPresent(accountNumber, (key, group) -> {
+            abandoned.set(group.abandon(turn));
+            return group;
+        });
+        // 대기열에 없으면 이미 차례를 넘겨받은 것이므로 그대로 둔다.
+        if (abandoned.get()) {
+            log.error("====Local lock acquisition failed====");
+            turn.completeExceptionally(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+        }
     }
 
-    private static String getLockKey(String accountNumber) {
-        return "ACLK:" + accountNumber;
+    private void unlockLocal(String accountNumber, AccountLockGroup group) {
+        while (true) {
+            AtomicBoolean releaseRemoteFirst = new AtomicBoolean();
+            AtomicReference<CompletableFuture<AccountLockGroup>> successor = new AtomicReference<>();
+            lockGroups.computeIfPresent(accountNumber, (key, current) -> {
+                if (current.mustReleaseRemote(MAX_LOCAL_HANDOFFS)) {
+                    releaseRemoteFirst.set(true);
+                    return current;
+                }
+                successor.set(current.handOff());
+                return current.isIdle() ? null : current;
+            });
+
+            if (releaseRemoteFirst.get()) {
+                unlockRemote(accountNumber, group);
+                continue;
+            }
+            if (successor.get() != null) {
+                successor.get().complete(group);
+            }
+            return;
+        }
+    }
+
+    private void unlockRemote(String accountNumber, AccountLockGroup group) {
+        try {
+            lockProvider.unlockAsync(accountNumber, group.getOwnerId()).join();
+        } catch (Exception e) {
+            if (e.getCause() instanceof IllegalMonitorStateException) {
+                log.error("Remote lock lease expired before unlock. accountNumber : {}", accountNumber);
+                lockMetrics.recordLeaseExpired(group.getRemoteHeldMillis());
+                return;
+            }
+            log.error("Remote unlock failed", e);
+        } finally {
+            group.remoteReleased();
+        }
     }
 }
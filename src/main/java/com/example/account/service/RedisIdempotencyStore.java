@@ -0,0 +1,64 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 노드가 공유하는 Idempotency-Key 저장소
+ * 처리 중인 키에는 PENDING:요청해시 를 넣어 두고, 다른 노드로 들어온 중복 요청이 다시 실행되지 않게 한다.
+ * 완료된 키에는 요청해시와 응답(JSON)을 줄바꿈으로 이어서 넣는다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.idempotency.store", havingValue = "redis")
+public class RedisIdempotencyStore implements IdempotencyStore {
+    private static final String KEY_PREFIX = "IDEM:";
+    private static final String PENDING_PREFIX = "PENDING:";
+    private static final char SEPARATOR = '\n';
+
+    private final RedissonClient redissonClient;
+
+    @Override
+    public Optional<StoredRequest> find(String key) {
+        String value = bucket(key).get();
+        if (value == null) {
+            return Optional.empty();
+        }
+        if (value.startsWith(PENDING_PREFIX)) {
+            return Optional.of(new StoredRequest(value.substring(PENDING_PREFIX.length()), null));
+        }
+        int separator = value.indexOf(SEPARATOR);
+        if (separator <= 0) {
+            // 요청해시 없이는 다른 요청의 재사용을 가려낼 수 없으므로 응답을 돌려주지 않는다.
+            throw new IllegalStateException("Corrupt idempotency value. key : " + key);
+        }
+        return Optional.of(new StoredRequest(value.substring(0, separator), value.substring(separator + 1)));
+    }
+
+    @Override
+    public boolean reserve(String key, String requestHash, long ttlMillis) {
+        return bucket(key).trySet(PENDING_PREFIX + requestHash, ttlMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void complete(String key, String requestHash, String response, long ttlMillis) {
+        bucket(key).set(requestHash + SEPARATOR + response, ttlMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void release(String key, String requestHash) {
+        // 이미 완료된 응답과 다른 요청의 선점은 지우지 않는다.
+        bucket(key).compareAndSet(PENDING_PREFIX + requestHash, null);
+    }
+
+    private RBucket<String> bucket(String key) {
+        return redissonClient.getBucket(KEY_PREFIX + key, StringCodec.INSTANCE);
+    }
+}
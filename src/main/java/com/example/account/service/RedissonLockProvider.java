@@ -0,0 +1,39 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedissonLockProvider implements LockProvider {
+    private final RedissonClient redissonClient;
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(String accountNumber, long waitTimeMillis,
+                                                   long leaseTimeMillis, long ownerId) {
+        return getLock(accountNumber)
+                .tryLockAsync(waitTimeMillis, leaseTimeMillis > 0 ? leaseTimeMillis : -1L,
+                        TimeUnit.MILLISECONDS, ownerId)
+                .toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String accountNumber, long ownerId) {
+        return getLock(accountNumber).unlockAsync(ownerId).toCompletableFuture();
+    }
+
+    private RLock getLock(String accountNumber) {
+        return redissonClient.getLock(getLockKey(accountNumber));
+    }
+
+    private static String getLockKey(String accountNumber) {
+        return "ACLK:" + accountNumber;
+    }
+}
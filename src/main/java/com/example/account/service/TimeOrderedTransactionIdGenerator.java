@@ -0,0 +1,86 @@
+package com.example.account.service;
+
+import com.example.account.domain.CompactTransactionId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시간순 거래 id (Snowflake 형식)
+ * 41비트 ms 타임스탬프 | 10비트 노드 id | 12비트 순번 을 하나의 long 으로 만들고,
+ * CompactTransactionId 의 16자리 문자열로 내보낸다.
+ * 타임스탬프와 순번을 AtomicLong 하나에 담아 CAS 로만 갱신하므로 락이 없고,
+ * 1ms 안에 순번을 다 쓰면 다음 ms 를 미리 당겨 쓰므로 기다리지도 않는다.
+ * 노드 id 가 겹치면 같은 id 가 나오므로 기본값이 없어서, 지정하지 않으면 시작하지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.generator", havingValue = "time-ordered", matchIfMissing = true)
+public class TimeOrderedTransactionIdGenerator implements TransactionIdGenerator {
+    // 2022-01-01T00:00:00Z
+    static final long EPOCH_MILLIS = 1_640_995_200_000L;
+    static final int NODE_ID_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_ID_BITS) - 1;
+
+    private final long nodeId;
+    // (타임스탬프 << SEQUENCE_BITS) | 순번
+    private final AtomicLong lastState = new AtomicLong();
+
+    public TimeOrderedTransactionIdGenerator(
+            @Value("${account.transaction-id.node-id:#{null}}") Long nodeId) {
+        if (nodeId == null) {
+            throw new IllegalStateException("account.transaction-id.node-id must be set");
+        }
+        this.nodeId = nodeId >= 0 ? nodeId : defaultNodeId();
+        if (this.nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("account.transaction-id.node-id must be 0.." + MAX_NODE_ID);
+        }
+    }
+
+    @Override
+    public String nextId() {
+        return CompactTransactionId.format(nextNumber());
+    }
+
+    public long nextNumber() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        long next;
+        while (true) {
+            long last = lastState.get();
+            next = Math.max(now << SEQUENCE_BITS, last + 1);
+            if (lastState.compareAndSet(last, next)) {
+                break;
+            }
+        }
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_ID_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 노드 id 를 -1 로 두면 호스트 이름과 pid 로 정한다. 여러 노드에서는 겹칠 수 있으므로 local 프로파일과 테스트에서만 쓴다.
+     */
+    private static long defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        long nodeId = Math.floorMod((host + ManagementFactory.getRuntimeMXBean().getName()).hashCode(),
+                (int) MAX_NODE_ID + 1);
+        log.warn("account.transaction-id.node-id is -1. Using {} derived from host and pid.", nodeId);
+        return nodeId;
+    }
+}
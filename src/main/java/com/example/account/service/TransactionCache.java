@@ -0,0 +1,247 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 거래 조회 캐시
+ * 거래는 저장한 뒤 바뀌지 않으므로 만료나 무효화 없이 캐시한다.
+ * 1단계는 노드 메모리의 LRU 로, 항목 수(maxEntries)와 대략의 바이트 크기(maxWeightBytes) 중 먼저 넘는 쪽에서 가장 오래 안 쓴 항목을 버린다.
+ * 조회가 한 락에 몰리지 않도록 거래 id 의 해시로 SEGMENTS 개 구역에 나눠 담고, 한도도 구역마다 나눈다.
+ * 2단계(redis.enabled)는 노드가 공유하는 Redis 로, 다른 노드가 저장하거나 읽은 거래도 DB 를 거치지 않고 찾는다.
+ * 저장하면서 넣는 거래는 커밋한 뒤에 넣으므로, 롤백된 거래(JOURNAL 모드의 잔액 변경 트랜잭션 포함)는 캐시되지 않는다.
+ * 돌려준 TransactionDto 는 다른 요청과 공유하므로 고치지 않는다.
+ */
+@Slf4j
+@Component
+public class TransactionCache {
+    private static final int SEGMENTS = 16;
+    private static final String REDIS_KEY_PREFIX = "TX:";
+    // 객체 헤더와 숫자/시각 필드, 문자열은 길이만큼 더한다.
+    private static final int BASE_WEIGHT = 160;
+
+    private final boolean enabled;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final Duration redisTtl;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public TransactionCache(
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper,
+            ObjectProvider<RedissonClient> redissonClient,
+            @Value("${account.transaction.cache.enabled:true}") boolean enabled,
+            @Value("${account.transaction.cache.max-entries:100000}") int maxEntries,
+            @Value("${account.transaction.cache.max-weight:64MB}") DataSize maxWeight,
+            @Value("${account.transaction.cache.redis.enabled:false}") boolean redisEnabled,
+            @Value("${account.transaction.cache.redis.ttl:1h}") Duration redisTtl
+    ) {
+        if (maxEntries <= 0 || maxWeight.toBytes() <= 0) {
+            throw new IllegalArgumentException("account.transaction.cache.max-entries and max-weight must be positive");
+        }
+        this.enabled = enabled;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / SEGMENTS), Math.max(1L, maxWeight.toBytes() / SEGMENTS));
+        }
+        this.redissonClient = enabled && redisEnabled ? redissonClient.getIfAvailable() : null;
+        if (enabled && redisEnabled && this.redissonClient == null) {
+            throw new IllegalStateException("account.transaction.cache.redis.enabled requires a RedissonClient");
+        }
+        this.objectMapper = objectMapper;
+        this.redisTtl = redisTtl;
+        this.localHits = Counter.builder("account.transaction.cache.requests")
+                .tag("result", "hit").tag("tier", "local").register(meterRegistry);
+        this.redisHits = Counter.builder("account.transaction.cache.requests")
+                .tag("result", "hit").tag("tier", "redis").register(meterRegistry);
+        this.misses = Counter.builder("account.transaction.cache.requests")
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("account.transaction.cache.size", this, TransactionCache::size)
+                .register(meterRegistry);
+        Gauge.builder("account.transaction.cache.weight", this, TransactionCache::weight)
+                .baseUnit("bytes").register(meterRegistry);
+    }
+
+    public Optional<TransactionDto> find(String transactionId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        TransactionDto local = segment(transactionId).get(transactionId);
+        if (local != null) {
+            localHits.increment();
+            return Optional.of(local);
+        }
+        TransactionDto remote = findRemote(transactionId);
+        if (remote != null) {
+            redisHits.increment();
+            segment(transactionId).put(transactionId, remote);
+            return Optional.of(remote);
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * DB 에서 읽은 거래를 넣는다.
+     */
+    public void put(TransactionDto transaction) {
+        if (!enabled || transaction.getTransactionId() == null) {
+            return;
+        }
+        segment(transaction.getTransactionId()).put(transaction.getTransactionId(), transaction);
+        putRemote(List.of(transaction));
+    }
+
+    /**
+     * 저장한 거래를 트랜잭션이 커밋된 뒤에 넣는다. 트랜잭션 밖이면 바로 넣는다.
+     */
+    public void putAfterCommit(Collection<TransactionDto> transactions) {
+        if (!enabled || transactions.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            putAll(transactions);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                putAll(transactions);
+            }
+        });
+    }
+
+    private void putAll(Collection<TransactionDto> transactions) {
+        for (TransactionDto transaction : transactions) {
+            segment(transaction.getTransactionId()).put(transaction.getTransactionId(), transaction);
+        }
+        putRemote(transactions);
+    }
+
+    private TransactionDto findRemote(String transactionId) {
+        if (redissonClient == null) {
+            return null;
+        }
+        try {
+            String json = bucket(transactionId).get();
+            return json == null ? null : objectMapper.readValue(json, TransactionDto.class);
+        } catch (RuntimeException | JsonProcessingException e) {
+            // 공유 캐시를 못 읽어도 DB 에서 읽으면 된다.
+            log.warn("Failed to read transaction {} from redis cache.", transactionId, e);
+            return null;
+        }
+    }
+
+    private void putRemote(Collection<TransactionDto> transactions) {
+        if (redissonClient == null) {
+            return;
+        }
+        try {
+            for (TransactionDto transaction : transactions) {
+                bucket(transaction.getTransactionId()).setAsync(objectMapper.writeValueAsString(transaction),
+                        redisTtl.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("Failed to write {} transactions to redis cache.", transactions.size(), e);
+        }
+    }
+
+    private RBucket<String> bucket(String transactionId) {
+        return redissonClient.getBucket(REDIS_KEY_PREFIX + transactionId, StringCodec.INSTANCE);
+    }
+
+    private Segment segment(String transactionId) {
+        return segments[(transactionId.hashCode() & Integer.MAX_VALUE) % SEGMENTS];
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    long weight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    static int weigh(TransactionDto transaction) {
+        return BASE_WEIGHT + 2 * (length(transaction.getAccountNumber())
+                + length(transaction.getTransactionId()) + length(transaction.getTransferId()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * 접근 순서 LinkedHashMap 으로 만든 LRU, 모든 접근을 this 로 보호한다.
+     */
+    private static class Segment {
+        private final int maxEntries;
+        private final long maxWeight;
+        private final LinkedHashMap<String, TransactionDto> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+
+        private Segment(int maxEntries, long maxWeight) {
+            this.maxEntries = maxEntries;
+            this.maxWeight = maxWeight;
+        }
+
+        synchronized TransactionDto get(String transactionId) {
+            return entries.get(transactionId);
+        }
+
+        synchronized void put(String transactionId, TransactionDto transaction) {
+            TransactionDto previous = entries.put(transactionId, transaction);
+            if (previous != null) {
+                weight -= weigh(previous);
+            }
+            weight += weigh(transaction);
+            Iterator<Map.Entry<String, TransactionDto>> iterator = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+                Map.Entry<String, TransactionDto> eldest = iterator.next();
+                weight -= weigh(eldest.getValue());
+                iterator.remove();
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized long weight() {
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.account.service;
+
+import com.example.account.type.TransactionExportFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+
+/**
+ * 명령줄에서 거래를 파일로 내보낸다. 예)
+ * java -jar account.jar --spring.main.web-application-type=none
+ *   --account.transaction.export.job.output=statements-2026-09.ndjson.gz
+ *   --account.transaction.export.job.from=2026-09-01T00:00 --account.transaction.export.job.to=2026-10-01T00:00
+ * 출력 파일 이름이 .gz 로 끝나면 압축한다. 끝나면(exit) 애플리케이션을 종료한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.transaction.export.job.output")
+public class TransactionExportJob implements ApplicationRunner {
+    private final TransactionExporter transactionExporter;
+    private final ConfigurableApplicationContext applicationContext;
+    private final Path output;
+    private final TransactionExportFormat format;
+    private final String accountNumber;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final boolean exit;
+
+    public TransactionExportJob(
+            TransactionExporter transactionExporter,
+            ConfigurableApplicationContext applicationContext,
+            @Value("${account.transaction.export.job.output}") String output,
+            @Value("${account.transaction.export.job.format:NDJSON}") TransactionExportFormat format,
+            @Value("${account.transaction.export.job.account-number:}") String accountNumber,
+            @Value("${account.transaction.export.job.from:}") String from,
+            @Value("${account.transaction.export.job.to:}") String to,
+            @Value("${account.transaction.export.job.exit:true}") boolean exit
+    ) {
+        this.transactionExporter = transactionExporter;
+        this.applicationContext = applicationContext;
+        this.output = Paths.get(output);
+        this.format = format;
+        this.accountNumber = StringUtils.hasText(accountNumber) ? accountNumber : null;
+        this.from = StringUtils.hasText(from) ? LocalDateTime.parse(from) : null;
+        this.to = StringUtils.hasText(to) ? LocalDateTime.parse(to) : null;
+        this.exit = exit;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long rows;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+            rows = transactionExporter.export(format, accountNumber, from, to, out,
+                    output.getFileName().toString().endsWith(".gz"));
+        }
+        log.info("Wrote {} transactions to {}", rows, output);
+        if (exit) {
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionExportRow;
+import com.example.account.type.TransactionExportFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 거래 내보내기 (월별 명세서 등)
+ * 거래를 목록으로 모으지 않고 forward-only 커서로 fetchSize 건씩 받아 바로 출력에 쓴다.
+ * projection 으로 읽으므로 영속성 컨텍스트에도 쌓이지 않고, chunkSize 건마다 출력으로 내보내
+ * 메모리에는 드라이버가 받아 둔 fetchSize 건과 쓰기 버퍼 하나만 남는다. 건수가 늘어도 메모리 사용량은 같다.
+ * CSV 의 값은 계좌번호, 거래 id, 이름(enum), 숫자, 시각뿐이라 따옴표로 감쌀 필요가 없다.
+ */
+@Slf4j
+@Component
+public class TransactionExporter {
+    private static final String CSV_HEADER = "transactionId,accountNumber,transactionType,transactionResult,"
+            + "amount,balanceSnapshot,transferId,transactedAt";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int fetchSize;
+    private final int chunkSize;
+    @Getter
+    private final Duration timeout;
+
+    public TransactionExporter(
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${account.transaction.export.fetch-size:1000}") int fetchSize,
+            @Value("${account.transaction.export.chunk-size:1000}") int chunkSize,
+            @Value("${account.transaction.export.timeout:30m}") Duration timeout
+    ) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("account.transaction.export.chunk-size must be positive");
+        }
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.fetchSize = fetchSize;
+        this.chunkSize = chunkSize;
+        this.timeout = timeout;
+    }
+
+    /**
+     * 조건에 맞는 거래를 id 순서로 out 에 쓰고 쓴 건수를 돌려준다. 조건이 null 이면 거르지 않는다.
+     * gzip 이면 압축해서 쓰고, chunk 마다 압축 스트림도 비워서 받는 쪽이 바로 풀 수 있다.
+     * out 은 닫지 않는다.
+     */
+    public long export(TransactionExportFormat format, String accountNumber,
+                       LocalDateTime from, LocalDateTime to,
+                       OutputStream out, boolean gzip) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, WRITE_BUFFER_SIZE, true) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        RowWriter rowWriter = format == TransactionExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+
+        long rows;
+        try {
+            rows = transactionTemplate.execute(status -> {
+                try (Stream<TransactionExportRow> stream = query(accountNumber, from, to).getResultStream()) {
+                    return write(stream.iterator(), rowWriter);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rowWriter.finish();
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+        out.flush();
+
+        Counter.builder("account.transaction.export.rows")
+                .tag("format", format.name())
+                .register(meterRegistry)
+                .increment(rows);
+        log.info("Exported {} transactions as {}", rows, format);
+        return rows;
+    }
+
+    private long write(Iterator<TransactionExportRow> rows, RowWriter rowWriter) throws IOException {
+        rowWriter.start();
+        long count = 0;
+        while (rows.hasNext()) {
+            rowWriter.write(rows.next());
+            if (++count % chunkSize == 0) {
+                rowWriter.flush();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 걸러지지 않는 조건은 문장에서 빼서, 계좌번호나 기간으로 거를 때만 그 조건이 인덱스를 타게 한다.
+     */
+    private TypedQuery<TransactionExportRow> query(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        StringBuilder jpql = new StringBuilder("select new com.example.account.dto.TransactionExportRow("
+                + "a.accountNumber, t.transactionType, t.transactionResultType, t.transactionId, t.transactionNo, "
+                + "t.amount, t.balanceSnapshot, t.transferId, t.transactedAt) "
+                + "from Transaction t join t.account a where 1 = 1");
+        if (accountNumber != null) {
+            jpql.append(" and a.accountNumber = :accountNumber");
+        }
+        if (from != null) {
+            jpql.append(" and t.transactedAt >= :from");
+        }
+        if (to != null) {
+            jpql.append(" and t.transactedAt < :to");
+        }
+        jpql.append(" order by t.id");
+
+        TypedQuery<TransactionExportRow> query = entityManager.createQuery(jpql.toString(), TransactionExportRow.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true);
+        if (accountNumber != null) {
+            query.setParameter("accountNumber", accountNumber);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        return query;
+    }
+
+    private interface RowWriter {
+        void start() throws IOException;
+
+        void write(TransactionExportRow row) throws IOException;
+
+        void flush() throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void write(TransactionExportRow row) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("transactionId", row.getTransactionId());
+            generator.writeStringField("accountNumber", row.getAccountNumber());
+            generator.writeStringField("transactionType", string(row.getTransactionType()));
+            generator.writeStringField("transactionResult", string(row.getTransactionResultType()));
+            writeNumberField("amount", row.getAmount());
+            writeNumberField("balanceSnapshot", row.getBalanceSnapshot());
+            generator.writeStringField("transferId", row.getTransferId());
+            generator.writeStringField("transactedAt", string(row.getTransactedAt()));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeNumberField(String name, Long value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(name);
+            } else {
+                generator.writeNumberField(name, value);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(TransactionExportRow row) throws IOException {
+            writer.write(text(row.getTransactionId()));
+            writer.write(',');
+            writer.write(text(row.getAccountNumber()));
+            writer.write(',');
+            writer.write(text(row.getTransactionType()));
+            writer.write(',');
+            writer.write(text(row.getTransactionResultType()));
+            writer.write(',');
+            writer.write(text(row.getAmount()));
+            writer.write(',');
+            writer.write(text(row.getBalanceSnapshot()));
+            writer.write(',');
+            writer.write(text(row.getTransferId()));
+            writer.write(',');
+            writer.write(text(row.getTransactedAt()));
+            writer.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static String text(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.account.service;
+
+/**
+ * 거래 id 생성기, account.transaction-id.generator 로 구현체를 고른다.
+ */
+public interface TransactionIdGenerator {
+    String nextId();
+}
@@ -1,32 +1,69 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.BalanceHold;
+import com.example.account.domain.CompactTransactionId;
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionHistoryCursor;
+import com.example.account.dto.BatchItemDto;
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.FailedTransactionDto;
+import com.example.account.dto.HoldDto;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.dto.TransactionHistoryItem;
+import com.example.account.dto.TransactionSummary;
+import com.example.account.dto.TransferDto;
+import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.BalanceHoldRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
+import com.example.account.type.BalanceConcurrencyMode;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.HoldStatus;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.transaction.Transactional;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static com.example.account.type.ErrorCode.*;
 import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
 import static com.example.account.type.TransactionType.USE;
 
 @Slf4j
@@ -34,21 +71,359 @@ import static com.example.account.type.TransactionType.USE;
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    private static final long OPTIMISTIC_BACK_OFF_MILLIS = 10L;
+
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceMailbox balanceMailbox;
+    private final LockService lockService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final WriteBehindLedger writeBehindLedger;
+    private final EventSourcedLedger eventSourcedLedger;
+    private final DebitCoalescer debitCoalescer;
+    private final BalanceSlotService balanceSlotService;
+    private final BalanceHoldRepository balanceHoldRepository;
+    private final TransactionCache transactionCache;
+    private final AccountListCache accountListCache;
+    @Qualifier("transactionExecutor")
+    private final Executor transactionExecutor;
+
+    @Value("${account.balance.concurrency-mode:LOCK}")
+    private BalanceConcurrencyMode concurrencyMode;
+
+    @Value("${account.balance.optimistic.max-attempts:5}")
+    private int optimisticMaxAttempts;
 
+    @Value("${account.hold.ttl:10m}")
+    private Duration holdTtl;
+
+    @Value("${account.transaction.history.max-page-size:100}")
+    private int maxHistoryPageSize;
+
+    /**
+     * MAILBOX 모드에서는 계좌별 큐에 맡기고, 그 외에는 호출한 쓰레드에서 바로 실행한다.
+     * 묶음 처리(account.balance.coalesce.enabled)가 켜져 있으면 같은 계좌에 몰린 요청과 함께 한 트랜잭션으로 커밋한다.
+     * 실패한 요청의 거래는 다른 경로와 마찬가지로 호출한 쪽이 FailedTransactionRecorder 로 남긴다.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public CompletableFuture<TransactionDto> useBalanceAsync(Long userId, String accountNumber, Long amount) {
+        if (debitCoalescer.isEnabled()) {
+            return debitCoalescer.submit(new UseBalance.Request(userId, accountNumber, amount),
+                            requests -> submitBatchGroup(accountNumber,
+                                    () -> useBalanceGroup(accountNumber, requests, false)))
+                    .thenApply(TransactionService::toTransactionDto);
+        }
+        return submitBalanceChange(accountNumber, () -> useBalance(userId, accountNumber, amount));
+    }
+
+    /**
+     * /transaction/use 의 락 구간, 계좌 락은 돌려준 작업이 끝나면 풀린다.
+     * 락을 잡아 준 쓰레드(LockProvider 의 완료 쓰레드일 수 있다)를 쓰지 않도록 transactionExecutor 에서 처리한다.
+     */
+    @AccountLock(leaseTime = AccountLock.WATCHDOG, adaptiveWait = true, coalesced = true)
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public CompletableFuture<TransactionDto> useBalanceAsync(UseBalance.Request request) {
+        return CompletableFuture.supplyAsync(() -> useBalanceAsync(request.getUserId(),
+                        request.getAccountNumber(), request.getAmount()), transactionExecutor)
+                .thenCompose(Function.identity());
+    }
+
+    private static TransactionDto toTransactionDto(BatchItemDto item) {
+        if (item.getErrorCode() != null) {
+            throw new AccountException(item.getErrorCode());
+        }
+        return item.getTransaction();
+    }
+
+    /**
+     * 접수할 때 미리 정한 transactionId 로 거래를 남긴다(AcceptedUseBalanceQueue).
+     * 묶음 처리는 묶음 안에서 id 를 정하므로 거치지 않는다.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public CompletableFuture<TransactionDto> useBalanceAsync(Long userId, String accountNumber, Long amount,
+                                                             String transactionId) {
+        return submitBalanceChange(accountNumber, () -> useBalance(userId, accountNumber, amount, transactionId));
+    }
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
-        AccountUser user = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        return useBalance(userId, accountNumber, amount, transactionIdGenerator.nextId());
+    }
 
-        validateUseBalance(user, account, amount);
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount, String transactionId) {
+        return executeBalanceChange(() -> {
+            AccountUser user = accountUserRepository.findById(userId)
+                    .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+            Account account = getAccount(accountNumber);
 
-        account.useBalance(amount);
+            validateUseBalance(user, account, amount);
+
+            withdraw(account, amount);
+
+            return TransactionDto.fromEntity(recordTransaction(
+                    newTransaction(USE, S, account, amount, null, transactionId)));
+        });
+    }
+
+    /**
+     * 여러 건의 잔액 사용을 계좌번호별로 묶어 처리한다.
+     * 계좌마다 락(LOCK 모드)이나 큐(MAILBOX 모드)를 한 번만 거치고, 한 트랜잭션 안에서 요청 순서대로 차감한 뒤
+     * 성공/실패 거래를 한꺼번에 저장한다. 결과는 요청과 같은 순서로 돌려준다.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public CompletableFuture<List<BatchItemDto>> useBalanceBatchAsync(List<UseBalance.Request> items) {
+        Map<String, List<Integer>> indexesByAccount = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            indexesByAccount.computeIfAbsent(items.get(i).getAccountNumber(), key -> new ArrayList<>()).add(i);
+        }
+
+        BatchItemDto[] results = new BatchItemDto[items.size()];
+        List<CompletableFuture<Void>> groups = new ArrayList<>();
+        indexesByAccount.forEach((accountNumber, indexes) -> {
+            List<UseBalance.Request> groupItems = indexes.stream()
+                    .map(items::get)
+                    .collect(Collectors.toList());
+            groups.add(submitBatchGroup(accountNumber, () -> useBalanceGroup(accountNumber, groupItems, true))
+                    .handleAsync((groupResults, e) -> e == null
+                            ? groupResults
+                            : failBalanceGroup(accountNumber, groupItems, e), transactionExecutor)
+                    .thenAccept(groupResults -> {
+                        for (int i = 0; i < indexes.size(); i++) {
+                            results[indexes.get(i)] = groupResults.get(i);
+                        }
+                    }));
+        });
+
+        return CompletableFuture.allOf(groups.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> Arrays.asList(results));
+    }
+
+    private CompletableFuture<List<BatchItemDto>> submitBatchGroup(
+            String accountNumber, Supplier<List<BatchItemDto>> groupChange) {
+        if (concurrencyMode == BalanceConcurrencyMode.MAILBOX) {
+            return balanceMailbox.submit(accountNumber, groupChange);
+        }
+        if (concurrencyMode == BalanceConcurrencyMode.OPTIMISTIC) {
+            return CompletableFuture.supplyAsync(groupChange, transactionExecutor);
+        }
+        return lockService.lockAsync(accountNumber)
+                .thenApplyAsync(locked -> {
+                    try {
+                        return groupChange.get();
+                    } finally {
+                        lockService.unlock(accountNumber);
+                    }
+                }, transactionExecutor);
+    }
+
+    /**
+     * recordFailures 가 false 이면 실패한 항목은 거래 없이 errorCode 만 돌려준다.
+     */
+    private List<BatchItemDto> useBalanceGroup(
+            String accountNumber, List<UseBalance.Request> groupItems, boolean recordFailures) {
+        return executeBalanceChange(() -> {
+            Account account = getAccount(accountNumber);
+            Map<Long, AccountUser> users = accountUserRepository.findAllById(groupItems.stream()
+                            .map(UseBalance.Request::getUserId)
+                            .collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(AccountUser::getId, Function.identity()));
+
+            List<Transaction> transactions = new ArrayList<>(groupItems.size());
+            List<ErrorCode> errorCodes = new ArrayList<>(groupItems.size());
+            for (UseBalance.Request item : groupItems) {
+                try {
+                    AccountUser user = Optional.ofNullable(users.get(item.getUserId()))
+                            .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+                    validateUseBalance(user, account, item.getAmount());
+                    withdraw(account, item.getAmount());
+                    transactions.add(newTransaction(USE, S, account, item.getAmount(), null));
+                    errorCodes.add(null);
+                } catch (AccountException e) {
+                    transactions.add(recordFailures
+                            ? newTransaction(USE, F, account, item.getAmount(), null) : null);
+                    errorCodes.add(e.getErrorCode());
+                }
+            }
+            List<Transaction> recorded = transactions.stream()
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            if (writeBehindLedger.isEnabled()) {
+                writeBehindLedger.record(recorded);
+            } else {
+                eventSourcedLedger.append(recorded);
+                cacheAfterCommit(transactionRepository.saveAll(recorded));
+            }
+
+            List<BatchItemDto> groupResults = new ArrayList<>(groupItems.size());
+            for (int i = 0; i < groupItems.size(); i++) {
+                Transaction transaction = transactions.get(i);
+                groupResults.add(BatchItemDto.builder()
+                        .accountNumber(accountNumber)
+                        .amount(groupItems.get(i).getAmount())
+                        .transaction(transaction == null ? null : TransactionDto.fromEntity(transaction))
+                        .errorCode(errorCodes.get(i))
+                        .build());
+            }
+            return groupResults;
+        });
+    }
+
+    /**
+     * 계좌 단위로 실패하면(락 획득 실패 등) 묶음의 모든 항목을 실패로 기록한다.
+     * 계좌가 없으면 기록할 곳이 없으므로 결과만 돌려준다.
+     */
+    private List<BatchItemDto> failBalanceGroup(
+            String accountNumber, List<UseBalance.Request> groupItems, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        ErrorCode errorCode = cause instanceof AccountException
+                ? ((AccountException) cause).getErrorCode() : INTERNAL_SERVER_ERROR;
+        log.error("Failed to use balance batch. accountNumber : {}, errorCode : {}", accountNumber, errorCode);
+
+        List<Transaction> transactions = errorCode == ACCOUNT_NOT_FOUND
+                ? Collections.emptyList()
+                : saveFailedUseTransactions(accountNumber, groupItems);
+        List<BatchItemDto> groupResults = new ArrayList<>(groupItems.size());
+        for (int i = 0; i < groupItems.size(); i++) {
+            groupResults.add(BatchItemDto.builder()
+                    .accountNumber(accountNumber)
+                    .amount(groupItems.get(i).getAmount())
+                    .transaction(transactions.isEmpty() ? null : TransactionDto.fromEntity(transactions.get(i)))
+                    .errorCode(errorCode)
+                    .build());
+        }
+        return groupResults;
+    }
+
+    private List<Transaction> saveFailedUseTransactions(String accountNumber, List<UseBalance.Request> groupItems) {
+        try {
+            return transactionTemplate.execute(status -> {
+                FailedAccount account = getFailedAccount(accountNumber);
+                List<Transaction> transactions = groupItems.stream()
+                        .map(item -> newFailedTransaction(USE, account, item.getAmount(),
+                                transactionIdGenerator.nextId(), LocalDateTime.now()))
+                        .collect(Collectors.toList());
+                cacheAfterCommit(transactionRepository.saveAll(transactions));
+                return transactions;
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to save failed use transactions.", e);
+            return Collections.emptyList();
+        }
+    }
 
-        return TransactionDto.fromEntity(saveAndGetTransaction(USE, S, account, amount));
+    /**
+     * 한 트랜잭션에서 fromAccount 에서 출금하고 toAccount 에 입금한다.
+     * 두 거래는 같은 transferId 로 묶이며, LOCK 모드에서는 두 계좌의 락을 계좌번호 순서로 잡은 뒤 실행된다.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public TransferDto transferBalance(Long userId, String fromAccountNumber, String toAccountNumber, Long amount) {
+        return executeBalanceChange(() -> {
+            AccountUser user = accountUserRepository.findById(userId)
+                    .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+            Account fromAccount = getAccount(fromAccountNumber);
+            Account toAccount = getAccount(toAccountNumber);
+
+            validateTransferBalance(user, fromAccount, toAccount, amount);
+
+            withdraw(fromAccount, amount);
+            deposit(toAccount, amount);
+
+            String transferId = transactionIdGenerator.nextId();
+            Transaction withdraw = newTransaction(TRANSFER_OUT, S, fromAccount, amount, transferId);
+            Transaction deposit = newTransaction(TRANSFER_IN, S, toAccount, amount, transferId);
+            if (writeBehindLedger.isEnabled()) {
+                // 출금과 입금은 저널의 한 기록으로 함께 남는다.
+                writeBehindLedger.record(Arrays.asList(withdraw, deposit));
+            } else {
+                eventSourcedLedger.append(Arrays.asList(withdraw, deposit));
+                withdraw = transactionRepository.save(withdraw);
+                deposit = transactionRepository.save(deposit);
+                cacheAfterCommit(Arrays.asList(withdraw, deposit));
+            }
+            return TransferDto.builder()
+                    .transferId(transferId)
+                    .withdraw(TransactionDto.fromEntity(withdraw))
+                    .deposit(TransactionDto.fromEntity(deposit))
+                    .build();
+        });
+    }
+
+    /**
+     * MAILBOX 모드에서는 출금 계좌의 큐에서 실행한다. 입금 계좌 쪽 작성자와의 충돌은 @Version 재시도가 처리한다.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public CompletableFuture<TransferDto> transferBalanceAsync(
+            Long userId, String fromAccountNumber, String toAccountNumber, Long amount) {
+        return submitBalanceChange(fromAccountNumber,
+                () -> transferBalance(userId, fromAccountNumber, toAccountNumber, amount));
+    }
+
+    private void validateTransferBalance(AccountUser user, Account fromAccount, Account toAccount, Long amount) {
+        if (Objects.equals(fromAccount.getId(), toAccount.getId())) {
+            throw new AccountException(TRANSFER_TO_SAME_ACCOUNT);
+        }
+        validateUseBalance(user, fromAccount, amount);
+        if (toAccount.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+    }
+
+    public void saveFailedTransferTransaction(String fromAccountNumber, Long amount) {
+        saveFailedTransaction(TRANSFER_OUT, fromAccountNumber, amount);
+    }
+
+    private <T> CompletableFuture<T> submitBalanceChange(String accountNumber, Supplier<T> balanceChange) {
+        if (concurrencyMode == BalanceConcurrencyMode.MAILBOX) {
+            return balanceMailbox.submit(accountNumber, balanceChange);
+        }
+        try {
+            return CompletableFuture.completedFuture(balanceChange.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 잔액 변경을 시도마다 새 트랜잭션으로 실행한다.
+     * LOCK 이 아닌 모드에서는 Account 의 @Version 충돌 시(잔액을 나눈 계좌는 모든 모드에서 조각 경합 시)
+     * optimisticMaxAttempts 번까지 재시도하고,
+     * 그래도 충돌하면 락 획득 실패와 같은 ACCOUNT_TRANSACTION_LOCK 으로 응답한다.
+     * JOURNAL 모드에서는 변경을 저널에 남긴 뒤 트랜잭션을 롤백해서 Account 갱신을 WriteBehindLedger 에 맡긴다.
+     */
+    private <T> T executeBalanceChange(Supplier<T> balanceChange) {
+        int maxAttempts = concurrencyMode == BalanceConcurrencyMode.LOCK ? 1 : optimisticMaxAttempts;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    T result = balanceChange.get();
+                    if (writeBehindLedger.isEnabled()) {
+                        status.setRollbackOnly();
+                    }
+                    return result;
+                });
+            } catch (OptimisticLockingFailureException e) {
+                // 잔액을 나눈 계좌는 계좌 락 없이 조각끼리 경합하므로 LOCK 모드에서도 재시도한다.
+                int limit = e instanceof BalanceSlotService.SlotConflictException ? optimisticMaxAttempts : maxAttempts;
+                if (attempt >= limit) {
+                    log.warn("Balance update conflicted {} times.", attempt);
+                    throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1L, OPTIMISTIC_BACK_OFF_MILLIS * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
     }
 
     private void validateUseBalance(AccountUser user, Account account, Long amount) {
@@ -58,46 +433,216 @@ public class TransactionService {
         if (account.getAccountStatus() != AccountStatus.IN_USE) {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if (account.getBalance() < amount) {
+        // 잔액을 나눈 계좌는 차감하면서 조각 잔액으로 검증한다.
+        if (!account.isSplitBalance() && account.availableBalance() < amount) {
             throw new AccountException(AMOUNT_EXCEED_BALANCE);
         }
     }
 
+    /**
+     * 잔액을 나눈 계좌는 Account 행 대신 BalanceSlotService 로 조각 잔액을 바꾼다.
+     * 잔액이 바뀌므로 소유자의 계좌 목록 캐시를 트랜잭션이 끝난 뒤 지운다.
+     */
+    private void withdraw(Account account, Long amount) {
+        evictAccountList(account);
+        if (account.isSplitBalance()) {
+            balanceSlotService.debit(account, amount);
+            return;
+        }
+        account.useBalance(amount);
+    }
+
+    private void deposit(Account account, Long amount) {
+        evictAccountList(account);
+        if (account.isSplitBalance()) {
+            balanceSlotService.credit(account, amount);
+            return;
+        }
+        account.depositBalance(amount);
+    }
+
+    private void refund(Account account, Long amount) {
+        evictAccountList(account);
+        if (account.isSplitBalance()) {
+            balanceSlotService.credit(account, amount);
+            return;
+        }
+        account.cancelBalance(amount);
+    }
+
+    private void evictAccountList(Account account) {
+        accountListCache.evictAfterCompletion(account.getAccountUser().getId());
+    }
+
+    private Long balanceOf(Account account) {
+        return account.isSplitBalance() ? balanceSlotService.totalBalance(account) : account.getBalance();
+    }
+
     public void saveFailedUseTransaction(String accountNumber, Long amount) {
+        saveFailedTransaction(USE, accountNumber, amount);
+    }
+
+    /**
+     * 모아 둔 실패 거래를 한 번에 저장한다(FailedTransactionRecorder).
+     * 계좌는 계좌번호마다 한 번만 읽고, 잔액 스냅샷은 저장하는 시점의 잔액이다. 없는 계좌의 실패 거래는 남기지 않는다.
+     */
+    public void saveFailedTransactions(List<FailedTransactionDto> failures) {
+        Map<String, Optional<FailedAccount>> accounts = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>(failures.size());
+        for (FailedTransactionDto failure : failures) {
+            Optional<FailedAccount> account =
+                    accounts.computeIfAbsent(failure.getAccountNumber(), this::findFailedAccount);
+            if (account.isEmpty()) {
+                continue;
+            }
+            transactions.add(newFailedTransaction(failure.getTransactionType(), account.get(),
+                    failure.getAmount(), transactionIdGenerator.nextId(), failure.getFailedAt()));
+        }
+        cacheAfterCommit(transactionRepository.saveAll(transactions));
+    }
+
+    private Optional<FailedAccount> findFailedAccount(String accountNumber) {
+        try {
+            return Optional.of(getFailedAccount(accountNumber));
+        } catch (AccountException e) {
+            return Optional.empty();
+        }
+    }
+
+    public void saveFailedUseTransaction(String accountNumber, Long amount, String transactionId) {
+        FailedAccount account = getFailedAccount(accountNumber);
+
+        cacheAfterCommit(Collections.singletonList(transactionRepository.save(
+                newFailedTransaction(USE, account, amount, transactionId, LocalDateTime.now()))));
+    }
+
+    /**
+     * JOURNAL 모드에서는 아직 DB 에 반영하지 않은 잔액을 덮어쓴다. 반영과 엇갈리지 않도록 DB 보다 먼저 읽는다.
+     * EVENT_SOURCED 모드에서는 원장 이벤트로 다시 만든 잔액을 덮어쓴다. Account.balance 는 커밋할 때 이 값으로 맞춰진다.
+     * 두 모드는 슬롯을 모르고 Account.balance 에 합계를 써 버리므로, 모드를 켜기 전에 잔액을 나눈 계좌는 거래할 수 없다.
+     */
+    private Account getAccount(String accountNumber) {
+        OptionalLong pendingBalance = writeBehindLedger.pendingBalance(accountNumber);
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        if (account.isSplitBalance() && (writeBehindLedger.isEnabled() || eventSourcedLedger.isEnabled())) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        pendingBalance.ifPresent(account::setBalance);
+        if (eventSourcedLedger.isEnabled()) {
+            account.setBalance(eventSourcedLedger.balanceOf(account));
+        }
+        return account;
+    }
+
+    /**
+     * 실패 거래를 남길 계좌와 지금 잔액을 읽는다.
+     * getAccount 와 달리 관리 중인 Account 에 잔액을 덮어쓰지 않으므로, 실패 기록이 Account 를 flush 하거나 @Version 을 올리지 않는다.
+     * (JOURNAL 모드에서 Account.balance 는 WriteBehindLedger 만 쓴다) 잔액은 실패 거래의 balanceSnapshot 에만 남긴다.
+     */
+    private FailedAccount getFailedAccount(String accountNumber) {
+        OptionalLong pendingBalance = writeBehindLedger.pendingBalance(accountNumber);
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        long balance;
+        if (account.isSplitBalance()) {
+            balance = balanceSlotService.totalBalance(account);
+        } else if (eventSourcedLedger.isEnabled()) {
+            // 락 없이 부르므로 스냅샷을 남기지 않는다.
+            balance = eventSourcedLedger.peekBalanceOf(account);
+        } else {
+            balance = pendingBalance.orElse(account.getBalance());
+        }
+        return new FailedAccount(account, balance);
+    }
+
+    private Transaction recordTransaction(Transaction transaction) {
+        if (writeBehindLedger.isEnabled()) {
+            writeBehindLedger.record(Collections.singletonList(transaction));
+            return transaction;
+        }
+        eventSourcedLedger.append(Collections.singletonList(transaction));
+        Transaction saved = transactionRepository.save(transaction);
+        cacheAfterCommit(Collections.singletonList(saved));
+        return saved;
+    }
+
+    private void saveFailedTransaction(TransactionType transactionType, String accountNumber, Long amount) {
+        Transaction saved = transactionRepository.save(newFailedTransaction(transactionType,
+                getFailedAccount(accountNumber), amount, transactionIdGenerator.nextId(), LocalDateTime.now()));
+        cacheAfterCommit(Collections.singletonList(saved));
+    }
+
+    /**
+     * 거래는 저장한 뒤 바뀌지 않으므로 저장하면서 조회 캐시에 넣어 둔다. 롤백되면 넣지 않는다.
+     */
+    private void cacheAfterCommit(List<Transaction> transactions) {
+        transactionCache.putAfterCommit(transactions.stream()
+                .map(TransactionDto::fromEntity)
+                .collect(Collectors.toList()));
+    }
 
-        saveAndGetTransaction(USE, F, account, amount);
+    private Transaction newTransaction(TransactionType transactionType,
+                                              TransactionResultType transactionResultType,
+                                              Account account,
+                                              Long amount,
+                                              String transferId) {
+        return newTransaction(transactionType, transactionResultType, account, amount, transferId,
+                transactionIdGenerator.nextId());
     }
 
-    private Transaction saveAndGetTransaction(TransactionType transactionType,
+    private Transaction newTransaction(TransactionType transactionType,
                                               TransactionResultType transactionResultType,
                                               Account account,
-                                              Long amount) {
-        return transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(transactionType)
-                        .transactionResultType(transactionResultType)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build()
-        );
+                                              Long amount,
+                                              String transferId,
+                                              String transactionId) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceOf(account))
+                .transactionId(transactionId)
+                .transferId(transferId)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static Transaction newFailedTransaction(TransactionType transactionType,
+                                                    FailedAccount account,
+                                                    Long amount,
+                                                    String transactionId,
+                                                    LocalDateTime failedAt) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(F)
+                .account(account.account)
+                .amount(amount)
+                .balanceSnapshot(account.balance)
+                .transactionId(transactionId)
+                .transactedAt(failedAt)
+                .build();
+    }
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public CompletableFuture<TransactionDto> cancelBalanceAsync(String transactionId, String accountNumber, Long amount) {
+        return submitBalanceChange(accountNumber, () -> cancelBalance(transactionId, accountNumber, amount));
     }
 
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        return executeBalanceChange(() -> {
+            Transaction transaction = findTransaction(transactionId)
+                    .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
+            Account account = getAccount(accountNumber);
 
-        validateCancelBalance(transaction, account, amount);
+            validateCancelBalance(transaction, account, amount);
 
-        account.cancelBalance(amount);
+            refund(account, amount);
 
-        return TransactionDto.fromEntity(saveAndGetTransaction(CANCEL, S, account, amount));
+            return TransactionDto.fromEntity(recordTransaction(newTransaction(CANCEL, S, account, amount, null)));
+        });
     }
 
     private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
@@ -113,15 +658,225 @@ public class TransactionService {
     }
 
     public void saveFailedCancelTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        saveFailedTransaction(CANCEL, accountNumber, amount);
+    }
+
+    /**
+     * 잔액을 사용하지 않고 잡아 두기만 한다. 계좌 락은 잡아 두는 짧은 트랜잭션 동안만 쥐고,
+     * 오래 걸리는 후속 작업은 락 밖에서 한 뒤 captureBalance 나 voidBalance 로 마무리한다.
+     * 기한(holdTtl) 안에 마무리하지 않으면 BalanceHoldSweeper 가 해제한다.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public CompletableFuture<HoldDto> authorizeBalanceAsync(Long userId, String accountNumber, Long amount) {
+        return submitBalanceChange(accountNumber, () -> authorizeBalance(userId, accountNumber, amount));
+    }
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public HoldDto authorizeBalance(Long userId, String accountNumber, Long amount) {
+        return executeBalanceChange(() -> {
+            AccountUser user = accountUserRepository.findById(userId)
+                    .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+            Account account = getAccount(accountNumber);
 
-        saveAndGetTransaction(CANCEL, F, account, amount);
+            validateHoldSupported(account);
+            validateUseBalance(user, account, amount);
+
+            account.hold(amount);
+
+            LocalDateTime now = LocalDateTime.now();
+            return HoldDto.fromEntity(balanceHoldRepository.save(BalanceHold.builder()
+                    .account(account)
+                    .holdId(transactionIdGenerator.nextId())
+                    .amount(amount)
+                    .holdStatus(HoldStatus.AUTHORIZED)
+                    .authorizedAt(now)
+                    .expiresAt(now.plus(holdTtl))
+                    .build()));
+        });
+    }
+
+    /**
+     * JOURNAL 모드는 잔액 변경 트랜잭션을 롤백하고, 잔액을 나눈 계좌는 Account.balance 를 쓰지 않으므로 홀드를 둘 수 없다.
+     */
+    private void validateHoldSupported(Account account) {
+        if (writeBehindLedger.isEnabled() || account.isSplitBalance()) {
+            throw new AccountException(INVALID_REQUEST);
+        }
     }
 
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public CompletableFuture<TransactionDto> captureBalanceAsync(String holdId, String accountNumber) {
+        return submitBalanceChange(accountNumber, () -> captureBalance(holdId, accountNumber));
+    }
+
+    /**
+     * 잡아 둔 금액을 USE 거래로 확정한다.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public TransactionDto captureBalance(String holdId, String accountNumber) {
+        return executeBalanceChange(() -> {
+            BalanceHold hold = balanceHoldRepository.findByHoldId(holdId)
+                    .orElseThrow(() -> new AccountException(HOLD_NOT_FOUND));
+            Account account = getAccount(accountNumber);
+
+            validateCloseHold(hold, account);
+            if (hold.isExpired(LocalDateTime.now())) {
+                throw new AccountException(HOLD_EXPIRED);
+            }
+
+            evictAccountList(account);
+            account.captureHold(hold.getAmount());
+            Transaction transaction = recordTransaction(newTransaction(USE, S, account, hold.getAmount(), null));
+            hold.setHoldStatus(HoldStatus.CAPTURED);
+            hold.setTransactionId(transaction.getTransactionId());
+            balanceHoldRepository.save(hold);
+
+            return TransactionDto.fromEntity(transaction);
+        });
+    }
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public CompletableFuture<HoldDto> voidBalanceAsync(String holdId, String accountNumber) {
+        return submitBalanceChange(accountNumber, () -> voidBalance(holdId, accountNumber));
+    }
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public HoldDto voidBalance(String holdId, String accountNumber) {
+        return releaseHold(holdId, accountNumber, HoldStatus.VOIDED);
+    }
+
+    /**
+     * 기한이 지난 홀드를 해제한다. 그 사이에 확정되거나 해제되었으면 그대로 둔다.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public CompletableFuture<HoldDto> expireHoldAsync(String holdId, String accountNumber) {
+        return submitBalanceChange(accountNumber, () -> expireHold(holdId, accountNumber));
+    }
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public HoldDto expireHold(String holdId, String accountNumber) {
+        return releaseHold(holdId, accountNumber, HoldStatus.EXPIRED);
+    }
+
+    private HoldDto releaseHold(String holdId, String accountNumber, HoldStatus holdStatus) {
+        return executeBalanceChange(() -> {
+            BalanceHold hold = balanceHoldRepository.findByHoldId(holdId)
+                    .orElseThrow(() -> new AccountException(HOLD_NOT_FOUND));
+            Account account = getAccount(accountNumber);
+
+            if (holdStatus == HoldStatus.EXPIRED && (hold.getHoldStatus() != HoldStatus.AUTHORIZED
+                    || !hold.isExpired(LocalDateTime.now()))) {
+                return HoldDto.fromEntity(hold);
+            }
+            validateCloseHold(hold, account);
+
+            account.releaseHold(hold.getAmount());
+            hold.setHoldStatus(holdStatus);
+            balanceHoldRepository.save(hold);
+            return HoldDto.fromEntity(hold);
+        });
+    }
+
+    private void validateCloseHold(BalanceHold hold, Account account) {
+        if (!Objects.equals(hold.getAccount().getId(), account.getId())) {
+            throw new AccountException(HOLD_ACCOUNT_UN_MATCH);
+        }
+        if (hold.getHoldStatus() != HoldStatus.AUTHORIZED) {
+            throw new AccountException(HOLD_ALREADY_CLOSED);
+        }
+    }
+
+    /**
+     * 거래는 바뀌지 않으므로 TransactionCache 에 있으면 DB 를 읽지 않고, 없으면 읽은 결과를 넣어 둔다.
+     */
     public TransactionDto queryTransaction(String transactionId) {
-        return TransactionDto.fromEntity(transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND)));
+        Optional<TransactionDto> cached = transactionCache.find(transactionId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        TransactionDto transaction = findTransactionDto(transactionId)
+                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
+        transactionCache.put(transaction);
+        return transaction;
+    }
+
+    /**
+     * 엔티티와 계좌를 읽지 않고 조회 응답에 필요한 컬럼만 한 문장으로 읽는다.
+     */
+    private Optional<TransactionDto> findTransactionDto(String transactionId) {
+        Optional<Transaction> pending = writeBehindLedger.findPending(transactionId);
+        if (pending.isPresent()) {
+            return pending.map(TransactionDto::fromEntity);
+        }
+        OptionalLong transactionNo = CompactTransactionId.parse(transactionId);
+        Optional<TransactionSummary> summary = transactionNo.isPresent()
+                ? transactionRepository.findSummaryByTransactionNo(transactionNo.getAsLong())
+                : transactionRepository.findSummaryByTransactionId(transactionId);
+        return summary.map(TransactionDto::fromSummary);
+    }
+
+    /**
+     * 계좌의 거래를 최근 것부터 size 건씩 돌려준다. 거래 종류와 결과로 거를 수 있다.
+     * cursor 가 있으면 그 위치 뒤부터 읽으므로 몇 번째 페이지든 같은 비용으로 읽는다.
+     * 한 건을 더 읽어서 다음 페이지가 있을 때만 nextCursor 를 준다.
+     * JOURNAL 모드에서 아직 DB 에 반영하지 않은 거래는 보이지 않는다.
+     */
+    public TransactionHistoryDto getTransactionHistory(String accountNumber, TransactionType transactionType,
+                                                       TransactionResultType transactionResultType,
+                                                       String cursor, int size) {
+        if (size <= 0 || size > maxHistoryPageSize) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        Long accountId = accountRepository.findIdByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<TransactionHistoryItem> items;
+        if (cursor == null) {
+            items = transactionRepository.findHistory(accountId, transactionType, transactionResultType, page);
+        } else {
+            TransactionHistoryCursor after = TransactionHistoryCursor.decode(cursor);
+            items = transactionRepository.findHistoryBefore(accountId, transactionType, transactionResultType,
+                    after.getTransactedAt(), after.getId(), page);
+        }
+
+        String nextCursor = null;
+        if (items.size() > size) {
+            items = items.subList(0, size);
+            TransactionHistoryItem last = items.get(size - 1);
+            nextCursor = new TransactionHistoryCursor(last.getTransactedAt(), last.getId()).encode();
+        }
+        return TransactionHistoryDto.builder()
+                .accountNumber(accountNumber)
+                .transactions(items.stream()
+                        .map(item -> TransactionDto.fromHistoryItem(accountNumber, item))
+                        .collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
     }
 
+    /**
+     * 시간순 id 는 숫자 컬럼으로, 기존 UUID 형식 id 는 문자열 컬럼으로 찾는다.
+     * JOURNAL 모드에서 아직 DB 에 반영하지 않은 거래는 WriteBehindLedger 에서 찾는다.
+     */
+    private Optional<Transaction> findTransaction(String transactionId) {
+        Optional<Transaction> pending = writeBehindLedger.findPending(transactionId);
+        if (pending.isPresent()) {
+            return pending;
+        }
+        OptionalLong transactionNo = CompactTransactionId.parse(transactionId);
+        if (transactionNo.isPresent()) {
+            return transactionRepository.findByTransactionNo(transactionNo.getAsLong());
+        }
+        return transactionRepository.findByTransactionId(transactionId);
+    }
+
+    /**
+     * 실패 거래를 남길 계좌와 그때의 잔액, 계좌 엔티티의 잔액은 바꾸지 않는다.
+     */
+    @RequiredArgsConstructor
+    private static class FailedAccount {
+        private final Account account;
+        private final long balance;
+    }
 }
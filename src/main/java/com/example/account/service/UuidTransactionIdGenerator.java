@@ -0,0 +1,18 @@
+package com.example.account.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * 기존 방식의 32자리 랜덤 id, 문자열 컬럼에 저장된다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.generator", havingValue = "uuid")
+public class UuidTransactionIdGenerator implements TransactionIdGenerator {
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
@@ -0,0 +1,598 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.CompactTransactionId;
+import com.example.account.domain.Transaction;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.BalanceConcurrencyMode;
+import com.example.account.type.JournalDurability;
+import com.example.account.type.LedgerWriteMode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL;
+import static com.example.account.type.ErrorCode.LEDGER_SYNC_FAILED;
+import static com.example.account.type.ErrorCode.TRANSACTION_QUEUE_FULL;
+
+/**
+ * JOURNAL 모드의 거래 기록
+ * 1. 잔액 변경의 거래들을 LedgerJournal 에 한 기록으로 덧붙이고, FSYNC 이면 그룹 커밋(force)을 기다린 뒤 돌려준다.
+ * 2. 백그라운드 writer 가 반영하지 않은 기록을 모아 한 트랜잭션으로 Transaction 을 저장하고 Account 잔액을 맞춘다.
+ * 3. 시작할 때 반영하지 않은 기록을 다시 읽어 같은 방식으로 반영한다. 이미 저장된 거래 id 는 건너뛴다.
+ * 묶음 반영이 DB 연결 문제가 아닌 이유로 실패하면 기록을 하나씩 다시 반영하고, 그래도 실패한 기록은
+ * 저널 옆 .quarantine 파일로 격리한 뒤 넘어가서 뒤의 기록이 막히지 않게 한다. 격리한 기록은 직접 확인해서 반영한다.
+ * DB 에 반영되기 전의 잔액과 거래는 이 노드의 메모리에만 있으므로, JOURNAL 모드는 계좌의 작성자가 한 노드일 때만 쓴다.
+ * SYNC 모드에서는 아무것도 열지 않고 isEnabled() 가 false 다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WriteBehindLedger {
+    private static final int RECORDED_QUERY_CHUNK = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final AccountListCache accountListCache;
+
+    @Value("${account.ledger.write-mode:SYNC}")
+    private LedgerWriteMode writeMode;
+
+    @Value("${account.balance.concurrency-mode:LOCK}")
+    private BalanceConcurrencyMode concurrencyMode;
+
+    @Value("${account.ledger.journal.path:./ledger.journal}")
+    private String path;
+
+    @Value("${account.ledger.journal.capacity:64MB}")
+    private DataSize capacity;
+
+    @Value("${account.ledger.journal.durability:FSYNC}")
+    private JournalDurability durability;
+
+    @Value("${account.ledger.journal.sync-interval:2ms}")
+    private Duration syncInterval;
+
+    @Value("${account.ledger.journal.sync-batch-size:256}")
+    private int syncBatchSize;
+
+    @Value("${account.ledger.writer.interval:100ms}")
+    private Duration flushInterval;
+
+    @Value("${account.ledger.writer.batch-size:5000}")
+    private int flushBatchSize;
+
+    // 저널에 남았지만 DB 에 반영하지 않은 기록, 순번 순서로 쌓인다.
+    private final Queue<PendingRecord> unflushed = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<String, PendingBalance> pendingBalances = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Transaction> pendingTransactions = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    private final Object flushLock = new Object();
+    private final Object syncMonitor = new Object();
+    private List<CompletableFuture<Void>> syncWaiters = new ArrayList<>();
+
+    private LedgerJournal journal;
+    private Counter quarantined;
+    private Counter syncFailed;
+    private ScheduledExecutorService writer;
+    private Thread syncer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (writeMode != LedgerWriteMode.JOURNAL) {
+            return;
+        }
+        if (concurrencyMode == BalanceConcurrencyMode.OPTIMISTIC) {
+            // 저널 모드에서는 요청이 Account 를 갱신하지 않으므로 @Version 충돌로 막을 수 없다.
+            throw new IllegalStateException("account.ledger.write-mode=JOURNAL needs LOCK or MAILBOX concurrency mode");
+        }
+        log.warn("Ledger JOURNAL mode : unflushed balances are kept on this node only. "
+                + "Run a single writer node. durability : {}", durability);
+
+        try {
+            journal = new LedgerJournal(Paths.get(path), (int) capacity.toBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open ledger journal " + path, e);
+        }
+        List<LedgerJournal.Record> recovered = journal.recover();
+        recovered.forEach(record -> enqueue(record, decode(record.getPayload())));
+        if (!recovered.isEmpty()) {
+            log.info("Replaying {} ledger journal records.", recovered.size());
+        }
+
+        Gauge.builder("account.ledger.journal.unflushed", unflushed, Queue::size)
+                .register(meterRegistry);
+        quarantined = Counter.builder("account.ledger.journal.quarantined")
+                .description("Journal records that could not be applied to DB")
+                .register(meterRegistry);
+        syncFailed = Counter.builder("account.ledger.journal.sync.failed")
+                .description("Group commits that failed to force the journal")
+                .register(meterRegistry);
+
+        running = true;
+        syncer = new CustomizableThreadFactory("ledger-sync-").newThread(this::syncLoop);
+        syncer.start();
+        writer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("ledger-writer-"));
+        writer.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * 한 번의 잔액 변경으로 생긴 거래들을 하나의 기록으로 남긴다.
+     * 계좌 락이나 계좌별 큐 안에서 불러야 같은 계좌의 기록 순서와 대기 중인 잔액이 맞는다.
+     * FSYNC 에서 force 에 실패하면 LEDGER_SYNC_FAILED 로 실패한다. 기록은 이미 대기 중인 잔액에 있어서
+     * DB 에 반영될 수 있으므로, 요청한 쪽은 거래 내역을 확인해서 맞춘다.
+     */
+    public void record(List<Transaction> transactions) {
+        if (!running) {
+            // 종료 중인 노드는 기록을 받지 않는다. 그룹 커밋을 기다리다 멈추지 않도록 바로 거절한다.
+            throw new AccountException(TRANSACTION_QUEUE_FULL);
+        }
+        byte[] payload = encode(transactions);
+        synchronized (appendLock) {
+            LedgerJournal.Record record = journal.append(payload);
+            if (record == null) {
+                record = appendAfterDrain(payload);
+            }
+            enqueue(record, transactions);
+        }
+        if (durability == JournalDurability.FSYNC) {
+            awaitSync();
+        }
+    }
+
+    /**
+     * 아직 DB 에 반영하지 않은 최신 잔액
+     * DB 에서 계좌를 읽기 전에 불러야 한다. 반영과 동시에 읽어도 둘 중 하나는 최신 잔액을 본다.
+     */
+    public OptionalLong pendingBalance(String accountNumber) {
+        PendingBalance pendingBalance = pendingBalances.get(accountNumber);
+        return pendingBalance == null ? OptionalLong.empty() : OptionalLong.of(pendingBalance.getBalance());
+    }
+
+    public Optional<Transaction> findPending(String transactionId) {
+        return Optional.ofNullable(pendingTransactions.get(transactionId));
+    }
+
+    /**
+     * 반영하지 않은 기록을 flushBatchSize 건 정도까지 한 트랜잭션으로 DB 에 반영하고, 반영한 기록 수를 돌려준다.
+     */
+    int flush() {
+        synchronized (flushLock) {
+            List<PendingRecord> batch = new ArrayList<>();
+            int rows = 0;
+            for (PendingRecord pendingRecord : unflushed) {
+                if (rows >= flushBatchSize) {
+                    break;
+                }
+                batch.add(pendingRecord);
+                rows += pendingRecord.getTransactions().size();
+            }
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(batch));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    throw e;
+                }
+                log.warn("Failed to apply {} ledger journal records at once. Applying one by one.", batch.size(), e);
+                batch.forEach(this::applyAlone);
+                return batch.size();
+            }
+
+            applied(batch);
+            return batch.size();
+        }
+    }
+
+    /**
+     * 기록 하나만 반영하고, 그래도 실패하면 격리한다. DB 에 닿지 못한 실패는 다음 주기에 이 기록부터 다시 시도한다.
+     */
+    private void applyAlone(PendingRecord pendingRecord) {
+        List<PendingRecord> single = Collections.singletonList(pendingRecord);
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(single));
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            quarantine(pendingRecord, e);
+        }
+        applied(single);
+    }
+
+    private void applied(List<PendingRecord> batch) {
+        batch.forEach(pendingRecord -> unflushed.poll());
+        journal.checkpoint(batch.get(batch.size() - 1).getRecord());
+        batch.forEach(this::release);
+    }
+
+    /**
+     * 반영하지 못한 기록을 저널 옆 파일에 한 줄(Base64)씩 남긴다. 파일에 쓰지 못해도 로그에 같은 내용이 남는다.
+     * 대기 중인 잔액도 함께 버리므로 이 기록의 잔액 변경은 직접 반영하기 전까지 DB 잔액에 없다.
+     */
+    private void quarantine(PendingRecord pendingRecord, RuntimeException cause) {
+        quarantined.increment();
+        String encoded = Base64.getEncoder().encodeToString(pendingRecord.getRecord().getPayload());
+        log.error("Quarantined ledger journal record. transactionIds : {}, payload : {}",
+                pendingRecord.getTransactions().stream()
+                        .map(Transaction::getTransactionId)
+                        .collect(Collectors.toList()),
+                encoded, cause);
+        try {
+            Files.write(Paths.get(path + ".quarantine"), (encoded + System.lineSeparator())
+                            .getBytes(StandardCharsets.US_ASCII),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            log.error("Failed to write ledger journal quarantine file.", e);
+        }
+    }
+
+    /**
+     * DB 연결이나 일시적인 충돌 같은 실패는 기록 탓이 아니므로 격리하지 않고 다시 시도한다.
+     */
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void flushAll() {
+        while (flush() > 0) {
+            // 모두 반영할 때까지
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flushAll();
+            if (journal.getWritePosition() > journal.getCapacity() / 2) {
+                journal.rewindIfApplied();
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to flush ledger journal. Will retry. unflushed : {}", unflushed.size(), e);
+        }
+    }
+
+    /**
+     * 저널이 가득 차면 반영하지 않은 기록을 모두 반영하고 처음부터 다시 쓴다.
+     * 그래도 자리가 없으면 DB 반영이 밀린 것이므로 요청을 거절한다.
+     */
+    private LedgerJournal.Record appendAfterDrain(byte[] payload) {
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            log.error("Ledger journal is full and failed to flush.", e);
+            throw new AccountException(ACCOUNT_TRANSACTION_QUEUE_FULL);
+        }
+        journal.rewindIfApplied();
+        LedgerJournal.Record record = journal.append(payload);
+        if (record == null) {
+            throw new AccountException(ACCOUNT_TRANSACTION_QUEUE_FULL);
+        }
+        return record;
+    }
+
+    private void enqueue(LedgerJournal.Record record, List<Transaction> transactions) {
+        Map<String, PendingBalance> balances = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            pendingTransactions.put(transaction.getTransactionId(), transaction);
+            balances.put(transaction.getAccount().getAccountNumber(),
+                    new PendingBalance(transaction.getBalanceSnapshot()));
+        }
+        pendingBalances.putAll(balances);
+        unflushed.add(new PendingRecord(record, transactions, balances));
+    }
+
+    private void release(PendingRecord pendingRecord) {
+        // 그 사이 더 새로운 기록이 들어왔으면 그대로 둔다.
+        pendingRecord.getTransactions().forEach(transaction ->
+                pendingTransactions.remove(transaction.getTransactionId(), transaction));
+        pendingRecord.getBalances().forEach(pendingBalances::remove);
+    }
+
+    private void apply(List<PendingRecord> batch) {
+        List<Transaction> transactions = batch.stream()
+                .flatMap(pendingRecord -> pendingRecord.getTransactions().stream())
+                .collect(Collectors.toList());
+        Set<String> recorded = findRecorded(transactions);
+        Map<Long, Account> accounts = accountRepository.findAllById(transactions.stream()
+                        .map(transaction -> transaction.getAccount().getId())
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+        List<Transaction> rows = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            Account account = accounts.get(transaction.getAccount().getId());
+            if (account == null) {
+                log.error("Account of journaled transaction not found. accountNumber : {}, transactionId : {}",
+                        transaction.getAccount().getAccountNumber(), transaction.getTransactionId());
+                continue;
+            }
+            account.setBalance(transaction.getBalanceSnapshot());
+            if (!recorded.contains(transaction.getTransactionId())) {
+                rows.add(copyOf(transaction, account));
+            }
+        }
+        transactionRepository.saveAll(rows);
+        // 요청 트랜잭션이 끝날 때 지운 목록은 반영 전 잔액으로 다시 채워졌을 수 있으므로, 반영을 커밋한 뒤 다시 지운다.
+        accounts.values().forEach(account ->
+                accountListCache.evictAfterCompletion(account.getAccountUser().getId()));
+    }
+
+    /**
+     * 다시 반영하는 기록 중 이미 저장된 거래 id
+     */
+    private Set<String> findRecorded(List<Transaction> transactions) {
+        List<Long> transactionNos = new ArrayList<>();
+        List<String> transactionIds = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            OptionalLong transactionNo = CompactTransactionId.parse(transaction.getTransactionId());
+            if (transactionNo.isPresent()) {
+                transactionNos.add(transactionNo.getAsLong());
+            } else {
+                transactionIds.add(transaction.getTransactionId());
+            }
+        }
+
+        Set<String> recorded = new HashSet<>();
+        for (int from = 0; from < transactionNos.size(); from += RECORDED_QUERY_CHUNK) {
+            transactionRepository.findByTransactionNoIn(transactionNos.subList(from,
+                            Math.min(from + RECORDED_QUERY_CHUNK, transactionNos.size())))
+                    .forEach(transaction -> recorded.add(transaction.getTransactionId()));
+        }
+        for (int from = 0; from < transactionIds.size(); from += RECORDED_QUERY_CHUNK) {
+            transactionRepository.findByTransactionIdIn(transactionIds.subList(from,
+                            Math.min(from + RECORDED_QUERY_CHUNK, transactionIds.size())))
+                    .forEach(transaction -> recorded.add(transaction.getTransactionId()));
+        }
+        return recorded;
+    }
+
+    private static Transaction copyOf(Transaction transaction, Account account) {
+        return Transaction.builder()
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .account(account)
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactionId(transaction.getTransactionId())
+                .transferId(transaction.getTransferId())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
+
+    private void awaitSync() {
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        synchronized (syncMonitor) {
+            if (!running) {
+                // 그룹 커밋 쓰레드가 멈췄으면 직접 기록한다.
+                sync(Collections.singletonList(synced));
+            } else {
+                syncWaiters.add(synced);
+                if (syncWaiters.size() == 1 || syncWaiters.size() >= syncBatchSize) {
+                    syncMonitor.notifyAll();
+                }
+            }
+        }
+        try {
+            synced.join();
+        } catch (CompletionException e) {
+            throw new AccountException(LEDGER_SYNC_FAILED);
+        }
+    }
+
+    /**
+     * 그룹 커밋 : 첫 대기자가 생기면 syncInterval 동안 또는 syncBatchSize 명이 모일 때까지 기다렸다가 한 번에 force 한다.
+     */
+    private void syncLoop() {
+        while (running) {
+            List<CompletableFuture<Void>> waiters;
+            synchronized (syncMonitor) {
+                try {
+                    while (running && syncWaiters.isEmpty()) {
+                        syncMonitor.wait();
+                    }
+                    long deadline = System.nanoTime() + syncInterval.toNanos();
+                    long remaining;
+                    while (running && syncWaiters.size() < syncBatchSize
+                            && (remaining = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(syncMonitor, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+                waiters = syncWaiters;
+                syncWaiters = new ArrayList<>();
+            }
+            sync(waiters);
+        }
+    }
+
+    private void sync(List<CompletableFuture<Void>> waiters) {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        try {
+            journal.force();
+        } catch (RuntimeException e) {
+            // 디스크에 남았는지 모르는 기록을 성공으로 응답하지 않는다.
+            syncFailed.increment();
+            log.error("Failed to force ledger journal. {} records failed.", waiters.size(), e);
+            waiters.forEach(waiter -> waiter.completeExceptionally(e));
+            return;
+        }
+        waiters.forEach(waiter -> waiter.complete(null));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (journal == null) {
+            return;
+        }
+        running = false;
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+        synchronized (syncMonitor) {
+            syncMonitor.notifyAll();
+        }
+        syncer.join(TimeUnit.SECONDS.toMillis(10));
+        // 그룹 커밋 쓰레드가 마지막으로 가져간 뒤에 들어온 대기자
+        List<CompletableFuture<Void>> waiters;
+        synchronized (syncMonitor) {
+            waiters = syncWaiters;
+            syncWaiters = new ArrayList<>();
+        }
+        sync(waiters);
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            log.warn("Unflushed ledger journal records will be replayed on next start. unflushed : {}",
+                    unflushed.size(), e);
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.error("Failed to close ledger journal.", e);
+        }
+    }
+
+    private static byte[] encode(List<Transaction> transactions) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * transactions.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(transactions.size());
+            for (Transaction transaction : transactions) {
+                out.writeUTF(transaction.getTransactionType().name());
+                out.writeUTF(transaction.getTransactionResultType().name());
+                out.writeLong(transaction.getAccount().getId());
+                out.writeUTF(transaction.getAccount().getAccountNumber());
+                out.writeLong(transaction.getAmount());
+                out.writeLong(transaction.getBalanceSnapshot());
+                out.writeUTF(transaction.getTransactionId());
+                out.writeBoolean(transaction.getTransferId() != null);
+                if (transaction.getTransferId() != null) {
+                    out.writeUTF(transaction.getTransferId());
+                }
+                out.writeUTF(transaction.getTransactedAt().toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Transaction> decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int count = in.readInt();
+            List<Transaction> transactions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                TransactionType transactionType = TransactionType.valueOf(in.readUTF());
+                TransactionResultType transactionResultType = TransactionResultType.valueOf(in.readUTF());
+                Account account = Account.builder().build();
+                account.setId(in.readLong());
+                account.setAccountNumber(in.readUTF());
+                long amount = in.readLong();
+                long balanceSnapshot = in.readLong();
+                String transactionId = in.readUTF();
+                String transferId = in.readBoolean() ? in.readUTF() : null;
+                LocalDateTime transactedAt = LocalDateTime.parse(in.readUTF());
+
+                transactions.add(Transaction.builder()
+                        .transactionType(transactionType)
+                        .transactionResultType(transactionResultType)
+                        .account(account)
+                        .amount(amount)
+                        .balanceSnapshot(balanceSnapshot)
+                        .transactionId(transactionId)
+                        .transferId(transferId)
+                        .transactedAt(transactedAt)
+                        .build());
+            }
+            return transactions;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class PendingRecord {
+        private final LedgerJournal.Record record;
+        private final List<Transaction> transactions;
+        private final Map<String, PendingBalance> balances;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class PendingBalance {
+        private final long balance;
+    }
+}
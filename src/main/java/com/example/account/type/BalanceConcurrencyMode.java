@@ -0,0 +1,11 @@
+package com.example.account.type;
+
+/**
+ * 잔액 변경 동시성 제어 방식
+ * LOCK : @AccountLock 으로 계좌 락을 잡고 변경
+ * OPTIMISTIC : 락 없이 Account 의 @Version 으로 충돌을 감지하고 재시도
+ * MAILBOX : 락 없이 계좌별 단일 작성자 큐(BalanceMailbox)에서 차례로 변경
+ */
+public enum BalanceConcurrencyMode {
+    LOCK, OPTIMISTIC, MAILBOX
+}
@@ -11,15 +11,27 @@ public enum ErrorCode {
     USER_NOT_FOUND("사용자가 없습니다."),
     ACCOUNT_NOT_FOUND("계좌가 없습니다."),
     ACCOUNT_TRANSACTION_LOCK("해당 게좌는 사용 중입니다."),
+    ACCOUNT_TRANSACTION_QUEUE_FULL("해당 계좌에 처리 대기 중인 거래가 너무 많습니다."),
+    TRANSACTION_QUEUE_FULL("처리 대기 중인 거래가 너무 많습니다. 잠시 후 다시 시도해 주세요."),
+    IDEMPOTENT_REQUEST_IN_PROGRESS("같은 Idempotency-Key 로 요청한 거래가 처리 중입니다."),
+    IDEMPOTENCY_KEY_REUSED("같은 Idempotency-Key 로 다른 내용의 요청을 보냈습니다."),
     TRANSACTION_NOT_FOUND("해당 거래가 없습니다."),
+    HOLD_NOT_FOUND("해당 승인 내역이 없습니다."),
+    LEDGER_SYNC_FAILED("거래를 기록하지 못했습니다. 거래 내역을 확인한 뒤 다시 시도해 주세요."),
 
     AMOUNT_EXCEED_BALANCE("거래 금액이 게좌 잔액보다 큽니다."),
     TRANSACTION_ACCOUNT_UN_MATCH("이 거래는 해당 계좌에서 발생한 거래가 아닙니다."),
     CANCEL_MUST_FULLY("부분 취소는 허용되지 않습니다."),
     TOO_OLD_ORDER_TO_CANCEL("1년이 지난 거래는 취소가 불가능합니다."),
     USER_ACCOUNT_UN_MATCH("사용자와 계좌의 소유자가 다릅니다."),
+    TRANSFER_TO_SAME_ACCOUNT("같은 계좌로는 이체할 수 없습니다."),
     ACCOUNT_ALREADY_UNREGISTERED("계좌가 이미 해지되었습니다."),
     BALANCE_HAS_EMPTY("잔액이 있는 계좌는 해지할 수 없습니다."),
+    ACCOUNT_ALREADY_SPLIT("이미 잔액을 나눈 계좌입니다."),
+    ACCOUNT_HAS_HELD_BALANCE("승인으로 잡아 둔 금액이 있는 계좌는 잔액을 나눌 수 없습니다."),
+    HOLD_ACCOUNT_UN_MATCH("이 승인은 해당 계좌에서 발생한 승인이 아닙니다."),
+    HOLD_ALREADY_CLOSED("이미 확정되었거나 해제된 승인입니다."),
+    HOLD_EXPIRED("기한이 지난 승인입니다."),
     MAX_ACCOUNT_PER_USER_10("사용자 최대 계좌는 10개입니다.")
     ;
 
@@ -0,0 +1,9 @@
+package com.example.account.type;
+
+/**
+ * 잔액 홀드 상태
+ * AUTHORIZED : 잔액을 잡아 둔 상태, CAPTURED : 실제 사용으로 확정, VOIDED : 요청으로 해제, EXPIRED : 기한이 지나 해제
+ */
+public enum HoldStatus {
+    AUTHORIZED, CAPTURED, VOIDED, EXPIRED
+}
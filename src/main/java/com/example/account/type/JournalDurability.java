@@ -0,0 +1,10 @@
+package com.example.account.type;
+
+/**
+ * JOURNAL 모드에서 응답 전에 보장하는 저널 기록 수준
+ * FSYNC : 그룹 커밋으로 디스크에 강제 기록(force)한 뒤 응답, 장비 장애에도 남는다.
+ * PAGE_CACHE : 매핑된 메모리에 쓰고 바로 응답, 프로세스 장애는 견디지만 OS 장애나 전원 차단 시 유실될 수 있다.
+ */
+public enum JournalDurability {
+    FSYNC, PAGE_CACHE
+}
@@ -0,0 +1,9 @@
+package com.example.account.type;
+
+/**
+ * 잔액을 바꾸는 원장 이벤트 종류
+ * CREATE 는 계좌 개설 시 초기 잔액, 나머지는 같은 이름의 성공 거래다.
+ */
+public enum LedgerEventType {
+    CREATE, USE, CANCEL, TRANSFER_OUT, TRANSFER_IN
+}
@@ -0,0 +1,12 @@
+package com.example.account.type;
+
+/**
+ * 거래 기록 방식
+ * SYNC : 요청 안에서 Transaction 을 저장하고 Account 를 갱신
+ * JOURNAL : 로컬 저널(LedgerJournal)에 남기고 응답한 뒤, WriteBehindLedger 가 모아서 DB 에 반영
+ * EVENT_SOURCED : SYNC 와 같이 저장하면서 잔액 변경을 바뀌지 않는 LedgerEvent 로 덧붙이고,
+ *                 잔액은 EventSourcedLedger 가 최근 스냅샷과 그 뒤 이벤트로 다시 만든 값을 쓴다.
+ */
+public enum LedgerWriteMode {
+    SYNC, JOURNAL, EVENT_SOURCED
+}
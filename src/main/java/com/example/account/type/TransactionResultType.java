@@ -1,5 +1,9 @@
 package com.example.account.type;
 
+/**
+ * S : 성공, F : 실패
+ * P : 접수만 하고 아직 처리하지 않음, 조회 응답에만 쓰고 저장하지 않는다.
+ */
 public enum TransactionResultType {
-    S, F
+    S, F, P
 }
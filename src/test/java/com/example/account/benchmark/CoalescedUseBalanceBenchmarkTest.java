@@ -0,0 +1,21 @@
+package com.example.account.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "account.lock.provider=in-process",
+        "account.balance.coalesce.enabled=true",
+        "account.balance.coalesce.window=2ms",
+        "account.balance.coalesce.max-batch-size=100"
+})
+class CoalescedUseBalanceBenchmarkTest extends UseBalanceLockBenchmark {
+    @Override
+    protected String providerName() {
+        return "coalesced";
+    }
+
+    @Override
+    protected void useBalance(String accountNumber, long amount) {
+        transactionService.useBalanceAsync(1L, accountNumber, amount).join();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.account.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "account.lock.provider=in-process")
+class InProcessLockBenchmarkTest extends UseBalanceLockBenchmark {
+    @Override
+    protected String providerName() {
+        return "in-process";
+    }
+}
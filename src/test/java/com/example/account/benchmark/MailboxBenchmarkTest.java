@@ -0,0 +1,20 @@
+package com.example.account.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "account.lock.provider=in-process",
+        "account.balance.concurrency-mode=MAILBOX",
+        "account.balance.mailbox.queue-capacity=10000"
+})
+class MailboxBenchmarkTest extends UseBalanceLockBenchmark {
+    @Override
+    protected String providerName() {
+        return "mailbox";
+    }
+
+    @Override
+    protected void useBalance(String accountNumber, long amount) {
+        transactionService.useBalanceAsync(1L, accountNumber, amount).join();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.account.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "account.lock.provider=in-process",
+        "account.id.generator=pooled-lo",
+        "spring.datasource.url=jdbc:h2:mem:pooled-lo-id",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class PooledLoEntityIdInsertBenchmarkTest extends TransactionInsertBenchmark {
+    @Override
+    protected String generatorName() {
+        return "entity-id pooled-lo";
+    }
+}
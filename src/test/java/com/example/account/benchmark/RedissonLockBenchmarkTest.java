@@ -0,0 +1,16 @@
+package com.example.account.benchmark;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * spring.redis.host/port 의 Redis 서버가 필요하므로 -Dbenchmark.redis=true 일 때만 실행한다.
+ */
+@EnabledIfSystemProperty(named = "benchmark.redis", matches = "true")
+@SpringBootTest(properties = "account.lock.provider=redis")
+class RedissonLockBenchmarkTest extends UseBalanceLockBenchmark {
+    @Override
+    protected String providerName() {
+        return "redis";
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.account.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "account.lock.provider=in-process",
+        "account.transaction-id.generator=time-ordered",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class TimeOrderedTransactionInsertBenchmarkTest extends TransactionInsertBenchmark {
+    @Override
+    protected String generatorName() {
+        return "time-ordered";
+    }
+}
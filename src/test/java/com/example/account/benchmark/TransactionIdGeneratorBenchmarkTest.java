@@ -0,0 +1,58 @@
+package com.example.account.benchmark;
+
+import com.example.account.service.TimeOrderedTransactionIdGenerator;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.service.UuidTransactionIdGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 거래 id 생성 비용 비교 (JMH)
+ * 테스트 JVM 안에서 바로 돌리므로(fork 0) 절대값보다는 두 생성기의 상대 비교로 본다.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransactionIdGeneratorBenchmarkTest {
+    private final TransactionIdGenerator uuid = new UuidTransactionIdGenerator();
+    private final TransactionIdGenerator timeOrdered = new TimeOrderedTransactionIdGenerator(1L);
+
+    @Benchmark
+    public String uuid() {
+        return uuid.nextId();
+    }
+
+    @Benchmark
+    public String timeOrdered() {
+        return timeOrdered.nextId();
+    }
+
+    @Test
+    public void compareGenerators() throws Exception {
+        for (int threads : new int[]{1, 8}) {
+            Options options = new OptionsBuilder()
+                    .include(TransactionIdGeneratorBenchmarkTest.class.getName())
+                    .forks(0)
+                    .threads(threads)
+                    .warmupIterations(2)
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementIterations(3)
+                    .measurementTime(TimeValue.seconds(1))
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
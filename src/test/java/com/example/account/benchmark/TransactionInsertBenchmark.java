@@ -0,0 +1,101 @@
+package com.example.account.benchmark;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 거래 id 생성기, 엔티티 id 생성기별 Transaction 행 저장 속도 비교
+ */
+@Slf4j
+@Tag("benchmark")
+abstract class TransactionInsertBenchmark {
+    private static final int ROWS = 20_000;
+    private static final int WARM_UP_ROWS = 10_000;
+    private static final int ROWS_PER_COMMIT = 500;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    protected abstract String generatorName();
+
+    @Test
+    public void insertTransactions() {
+        //given
+        String accountNumber = accountService.createAccount(1L, 1_000_000L).getAccountNumber();
+        Account account = accountRepository.findByAccountNumber(accountNumber).get();
+        // 먼저 실행되는 테스트만 JIT 워밍업 비용을 떠안지 않도록 측정 전에 한 번 저장해 둔다.
+        insert(account, WARM_UP_ROWS);
+        long before = transactionRepository.count();
+        // 메모리 H2 에서는 왕복 비용이 거의 없으므로 DB 로 보낸 문장 수도 함께 본다.
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        //when
+        long startedAt = System.nanoTime();
+        insert(account, ROWS);
+        long elapsed = System.nanoTime() - startedAt;
+
+        //then
+        log.info("[{}] {} rows, {} rows/s, {} statements", generatorName(), ROWS,
+                ROWS * TimeUnit.SECONDS.toNanos(1) / elapsed, statistics.getPrepareStatementCount());
+        statistics.setStatisticsEnabled(false);
+        assertThat(transactionRepository.count() - before).isEqualTo(ROWS);
+    }
+
+    private void insert(Account account, int rows) {
+        for (int inserted = 0; inserted < rows; inserted += ROWS_PER_COMMIT) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Transaction> transactions = new ArrayList<>(ROWS_PER_COMMIT);
+                for (int i = 0; i < ROWS_PER_COMMIT; i++) {
+                    transactions.add(Transaction.builder()
+                            .transactionType(USE)
+                            .transactionResultType(S)
+                            .account(account)
+                            .amount(10L)
+                            .balanceSnapshot(account.getBalance())
+                            .transactionId(transactionIdGenerator.nextId())
+                            .transactedAt(LocalDateTime.now())
+                            .build());
+                }
+                transactionRepository.saveAll(transactions);
+            });
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.service.AccountService;
+import com.example.account.service.LockService;
+import com.example.account.service.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 두 계좌 사이에서 양방향으로 돈을 옮길 때
+ * 이체 한 번(두 락을 계좌번호 순서로 한 번에)과 계좌별 요청 두 번(락 두 사이클)의 처리량 비교
+ * 입금 API 가 없으므로 두 번 호출 방식은 계좌마다 잔액 사용을 한 번씩 하는 것으로 대신한다.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = "account.lock.provider=in-process")
+class TransferBenchmarkTest {
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 50;
+    private static final long AMOUNT = 10L;
+    private static final long INITIAL_BALANCE = 1_000_000_000L;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LockService lockService;
+
+    @Test
+    public void transferVersusTwoCalls() throws Exception {
+        //given
+        String first = accountService.createAccount(1L, INITIAL_BALANCE).getAccountNumber();
+        String second = accountService.createAccount(1L, INITIAL_BALANCE).getAccountNumber();
+
+        //when
+        Move twoCalls = i -> {
+            for (String accountNumber : Arrays.asList(first, second)) {
+                lockService.lock(accountNumber, 10_000L, 15_000L);
+                try {
+                    transactionService.useBalance(1L, accountNumber, AMOUNT);
+                } finally {
+                    lockService.unlock(accountNumber);
+                }
+            }
+        };
+        Move transfer = i -> {
+            // 절반은 반대 방향으로 보내서 교착 상태가 생기지 않는지도 함께 확인한다.
+            String from = i % 2 == 0 ? first : second;
+            String to = i % 2 == 0 ? second : first;
+            List<String> accountNumbers = Arrays.asList(from, to);
+            lockService.lockAll(accountNumbers, 10_000L, 15_000L);
+            try {
+                transactionService.transferBalance(1L, from, to, AMOUNT);
+            } finally {
+                lockService.unlockAll(accountNumbers);
+            }
+        };
+        // 첫 실행은 JIT 워밍업으로 버린다.
+        run(twoCalls);
+        run(transfer);
+        long twoCallsElapsed = run(twoCalls);
+        long transferElapsed = run(transfer);
+
+        //then
+        int total = THREADS * REQUESTS_PER_THREAD;
+        log.info("[transfer] {} moves, {} ops/s", total, total * TimeUnit.SECONDS.toNanos(1) / transferElapsed);
+        log.info("[two-calls] {} moves, {} ops/s", total, total * TimeUnit.SECONDS.toNanos(1) / twoCallsElapsed);
+        // 이체는 합계를 바꾸지 않고, 두 번 호출 방식은 실행마다 계좌별로 total * AMOUNT 씩 줄인다.
+        long spent = 2 * 2 * total * AMOUNT;
+        assertThat(balanceOf(first) + balanceOf(second)).isEqualTo(2 * INITIAL_BALANCE - spent);
+    }
+
+    private long run(Move move) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long startedAt = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                    move.run(j);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        return System.nanoTime() - startedAt;
+    }
+
+    private long balanceOf(String accountNumber) {
+        return accountService.getAccountsByUserId(1L).stream()
+                .filter(accountDto -> accountDto.getAccountNumber().equals(accountNumber))
+                .findFirst()
+                .map(AccountDto::getBalance)
+                .get();
+    }
+
+    private interface Move {
+        void run(int sequence);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.service.AccountService;
+import com.example.account.service.LockService;
+import com.example.account.service.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 한 계좌에 잔액 사용 요청이 몰릴 때 락 구현체별 처리량과 지연 시간 비교
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Slf4j
+@Tag("benchmark")
+abstract class UseBalanceLockBenchmark {
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 100;
+    private static final long AMOUNT = 10L;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    protected TransactionService transactionService;
+
+    @Autowired
+    private LockService lockService;
+
+    protected abstract String providerName();
+
+    protected void useBalance(String accountNumber, long amount) {
+        lockService.lock(accountNumber, 10_000L, 15_000L);
+        try {
+            transactionService.useBalance(1L, accountNumber, amount);
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    @Test
+    public void useBalanceOnHotAccount() throws Exception {
+        //given
+        AccountDto account = accountService.createAccount(1L, 1_000_000_000L);
+        String accountNumber = account.getAccountNumber();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        //when
+        long startedAt = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                    long requestedAt = System.nanoTime();
+                    useBalance(accountNumber, AMOUNT);
+                    latencies.add(System.nanoTime() - requestedAt);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        executor.shutdown();
+
+        //then
+        int total = THREADS * REQUESTS_PER_THREAD;
+        Collections.sort(latencies);
+        log.info("[{}] {} requests, {} ops/s, p50 {} ms, p99 {} ms",
+                providerName(), total,
+                total * TimeUnit.SECONDS.toNanos(1) / elapsed,
+                TimeUnit.NANOSECONDS.toMillis(latencies.get(total / 2)),
+                TimeUnit.NANOSECONDS.toMillis(latencies.get(total * 99 / 100)));
+        assertThat(accountService.getAccountsByUserId(1L).stream()
+                .filter(accountDto -> accountDto.getAccountNumber().equals(accountNumber))
+                .findFirst().get().getBalance())
+                .isEqualTo(1_000_000_000L - total * AMOUNT);
+    }
+}
@@ -2,8 +2,10 @@ package com.example.account.controller;
 
 import com.example.account.domain.Account;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.BalanceAsOfDto;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.SplitBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.service.AccountService;
 import com.example.account.type.AccountStatus;
@@ -20,6 +22,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
@@ -64,6 +67,28 @@ class AccountControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    void successSplitBalance() throws Exception {
+        //given
+        given(accountService.splitBalance(anyLong(), anyString(), anyInt()))
+                .willReturn(AccountDto.builder()
+                        .userId(1L)
+                        .accountNumber("1234567890")
+                        .balance(10000L)
+                        .build());
+        //when
+        //then
+        mockMvc.perform(post("/account/split")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new SplitBalance.Request(1L, "1234567890", 8)
+                        )))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1234567890"))
+                .andExpect(jsonPath("$.balance").value(10000))
+                .andDo(print());
+    }
+
     @Test
     void successDeleteAccount() throws Exception {
         //given
@@ -94,6 +119,11 @@ class AccountControllerTest {
                 .willReturn(Account.builder()
                         .accountNumber("3456")
                         .accountStatus(AccountStatus.IN_USE)
+                        .balanceSlots(4)
+                        .heldBalance(100L)
+                        .version(3L)
+                        .lockOwner("node:1")
+                        .lockExpiresAt(LocalDateTime.now())
                         .build());
         //when
         //then
@@ -101,6 +131,11 @@ class AccountControllerTest {
                 .andDo(print())
                 .andExpect(jsonPath("$.accountNumber").value("3456"))
                 .andExpect(jsonPath("$.accountStatus").value("IN_USE"))
+                .andExpect(jsonPath("$.balanceSlots").doesNotExist())
+                .andExpect(jsonPath("$.heldBalance").doesNotExist())
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andExpect(jsonPath("$.lockOwner").doesNotExist())
+                .andExpect(jsonPath("$.lockExpiresAt").doesNotExist())
                 .andExpect(status().isOk());
     }
 
@@ -149,4 +184,24 @@ class AccountControllerTest {
 
     }
 
+    @Test
+    void successGetBalanceAsOf() throws Exception {
+        //given
+        LocalDateTime asOf = LocalDateTime.of(2026, 9, 30, 23, 59, 59);
+        given(accountService.getBalanceAsOf("1234567890", asOf))
+                .willReturn(BalanceAsOfDto.builder()
+                        .accountNumber("1234567890")
+                        .asOf(asOf)
+                        .balance(4800L)
+                        .build());
+
+        //when
+        //then
+        mockMvc.perform(get("/account/1234567890/balance")
+                        .param("asOf", "2026-09-30T23:59:59"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1234567890"))
+                .andExpect(jsonPath("$.balance").value(4800));
+    }
 }
\ No newline at end of file
@@ -1,34 +1,74 @@
 package com.example.account.controller;
 
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AuthorizeBalance;
+import com.example.account.dto.BatchItemDto;
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.CaptureBalance;
+import com.example.account.dto.HoldDto;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.dto.TransferBalance;
+import com.example.account.dto.TransferDto;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.service.AcceptedUseBalanceQueue;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.TransactionExporter;
 import com.example.account.service.TransactionService;
+import com.example.account.type.HoldStatus;
+import com.example.account.type.TransactionExportFormat;
 import com.example.account.type.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL;
+import static com.example.account.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static com.example.account.type.ErrorCode.TRANSACTION_QUEUE_FULL;
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.P;
 import static com.example.account.type.TransactionResultType.S;
 
 import static com.example.account.type.TransactionType.*;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransactionController.class)
@@ -36,32 +76,53 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private AcceptedUseBalanceQueue acceptedUseBalanceQueue;
+
+    @MockBean
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @MockBean
+    private TransactionExporter transactionExporter;
+
     @Autowired
     private MockMvc mockMvc;
 
+    @TestConfiguration
+    static class DirectExecutorConfig {
+        @Bean
+        public Executor transactionExecutor() {
+            return Runnable::run;
+        }
+    }
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @Test
     public void successUseBalance() throws Exception{
         //given
-        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
-                .willReturn(TransactionDto.builder()
+        given(transactionService.useBalanceAsync(any(UseBalance.Request.class)))
+                .willReturn(CompletableFuture.completedFuture(TransactionDto.builder()
                         .accountNumber("1000000000")
                         .transactedAt(LocalDateTime.now())
                         .amount(12345L)
                         .transactionId("transactionId")
                         .transactionResultType(S)
-                        .build());
+                        .build()));
 
         //when
         //then
-        mockMvc.perform(post("/transaction/use")
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/use")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(
                                 new UseBalance.Request(1L, "2000000000", 3000L)
                         ))
-                ).andDo(print())
+                ).andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accountNumber").value("1000000000"))
                 .andExpect(jsonPath("$.transactionResult").value("S"))
@@ -69,26 +130,79 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount").value(12345));
     }
 
+    @Test
+    public void successUseBalanceBatch() throws Exception{
+        //given
+        given(transactionService.useBalanceBatchAsync(anyList()))
+                .willReturn(CompletableFuture.completedFuture(Arrays.asList(
+                        BatchItemDto.builder()
+                                .accountNumber("1000000000")
+                                .amount(3000L)
+                                .transaction(TransactionDto.builder()
+                                        .accountNumber("1000000000")
+                                        .transactionResultType(S)
+                                        .transactionId("transactionId")
+                                        .amount(3000L)
+                                        .transactedAt(LocalDateTime.now())
+                                        .build())
+                                .build(),
+                        BatchItemDto.builder()
+                                .accountNumber("1000000000")
+                                .amount(5000L)
+                                .transaction(TransactionDto.builder()
+                                        .accountNumber("1000000000")
+                                        .transactionResultType(F)
+                                        .transactionId("failedTransactionId")
+                                        .amount(5000L)
+                                        .transactedAt(LocalDateTime.now())
+                                        .build())
+                                .errorCode(AMOUNT_EXCEED_BALANCE)
+                                .build())));
+
+        //when
+        //then
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UseBalanceBatch.Request(Arrays.asList(
+                                new UseBalance.Request(1L, "1000000000", 3000L),
+                                new UseBalance.Request(1L, "1000000000", 5000L)
+                        ))))
+                ).andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].transactionResult").value("S"))
+                .andExpect(jsonPath("$.results[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.results[1].transactionResult").value("F"))
+                .andExpect(jsonPath("$.results[1].errorCode").value("AMOUNT_EXCEED_BALANCE"));
+    }
+
     @Test
     public void successCancelBalance() throws Exception{
         //given
-        given(transactionService.cancelBalance(anyString(), anyString(), anyLong()))
-                .willReturn(TransactionDto.builder()
+        given(transactionService.cancelBalanceAsync(anyString(), anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(TransactionDto.builder()
                         .accountNumber("1000000000")
                         .transactedAt(LocalDateTime.now())
                         .amount(54321L)
                         .transactionId("transactionIdForCancel")
                         .transactionResultType(S)
-                        .build());
+                        .build()));
 
         //when
         //then
-        mockMvc.perform(post("/transaction/cancel")
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/cancel")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(
                                 new CancelBalance.Request("transactionId", "2000000000", 3000L)
                         ))
-                ).andDo(print())
+                ).andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accountNumber").value("1000000000"))
                 .andExpect(jsonPath("$.transactionResult").value("S"))
@@ -96,6 +210,76 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount").value(54321));
     }
 
+    @Test
+    public void failUseBalance_saveFailedTransaction() throws Exception{
+        //given
+        given(transactionService.useBalanceAsync(any(UseBalance.Request.class)))
+                .willReturn(CompletableFuture.failedFuture(
+                        new AccountException(ACCOUNT_TRANSACTION_QUEUE_FULL)));
+
+        //when
+        //then
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, "2000000000", 3000L)
+                        ))
+                ).andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("ACCOUNT_TRANSACTION_QUEUE_FULL"));
+        verify(failedTransactionRecorder).record(USE, "2000000000", 3000L);
+    }
+
+    @Test
+    public void successTransferBalance() throws Exception{
+        //given
+        given(transactionService.transferBalanceAsync(anyLong(), anyString(), anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(TransferDto.builder()
+                        .transferId("transferId")
+                        .withdraw(TransactionDto.builder()
+                                .accountNumber("1000000000")
+                                .transactionType(TRANSFER_OUT)
+                                .transactionResultType(S)
+                                .transactionId("withdrawTransactionId")
+                                .amount(3000L)
+                                .transactedAt(LocalDateTime.now())
+                                .build())
+                        .deposit(TransactionDto.builder()
+                                .accountNumber("2000000000")
+                                .transactionType(TRANSFER_IN)
+                                .transactionResultType(S)
+                                .transactionId("depositTransactionId")
+                                .amount(3000L)
+                                .transactedAt(LocalDateTime.now())
+                                .build())
+                        .build()));
+
+        //when
+        //then
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new TransferBalance.Request(1L, "1000000000", "2000000000", 3000L)
+                        ))
+                ).andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transferId").value("transferId"))
+                .andExpect(jsonPath("$.fromAccountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.toAccountNumber").value("2000000000"))
+                .andExpect(jsonPath("$.transactionResult").value("S"))
+                .andExpect(jsonPath("$.withdrawTransactionId").value("withdrawTransactionId"))
+                .andExpect(jsonPath("$.depositTransactionId").value("depositTransactionId"))
+                .andExpect(jsonPath("$.amount").value(3000));
+    }
+
     @Test
     public void successQueryTransaction() throws Exception{
         //given
@@ -121,4 +305,201 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount").value(54321));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void successGetTransactionHistory() throws Exception{
+        //given
+        given(transactionService.getTransactionHistory(
+                eq("1000000000"), eq(USE), eq(S), eq("cursor"), eq(2)))
+                .willReturn(TransactionHistoryDto.builder()
+                        .accountNumber("1000000000")
+                        .transactions(Arrays.asList(TransactionDto.builder()
+                                .accountNumber("1000000000")
+                                .transactionType(USE)
+                                .transactionResultType(S)
+                                .transactionId("00f1a2b3c4d5e6f7")
+                                .amount(1000L)
+                                .balanceSnapshot(9000L)
+                                .transactedAt(LocalDateTime.now())
+                                .build()))
+                        .nextCursor("nextCursor")
+                        .build());
+
+        //when
+        //then
+        mockMvc.perform(get("/account/1000000000/transactions")
+                        .param("transaction_type", "USE")
+                        .param("transaction_result", "S")
+                        .param("cursor", "cursor")
+                        .param("size", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.transactions[0].transactionId").value("00f1a2b3c4d5e6f7"))
+                .andExpect(jsonPath("$.transactions[0].transactionResult").value("S"))
+                .andExpect(jsonPath("$.transactions[0].balanceSnapshot").value(9000))
+                .andExpect(jsonPath("$.nextCursor").value("nextCursor"));
+    }
+
+    @Test
+    public void exportTransactionsStreaming() throws Exception{
+        //given
+        given(transactionExporter.getTimeout()).willReturn(Duration.ofMinutes(30));
+        willAnswer(invocation -> {
+            invocation.getArgument(4, OutputStream.class)
+                    .write("{\"accountNumber\":\"1000000000\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).given(transactionExporter).export(eq(TransactionExportFormat.NDJSON), eq("1000000000"),
+                eq(LocalDateTime.of(2026, 9, 1, 0, 0)), isNull(), any(), eq(false));
+
+        //when
+        //then
+        MvcResult mvcResult = mockMvc.perform(get("/transaction/export")
+                        .param("account_number", "1000000000")
+                        .param("from", "2026-09-01T00:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-ndjson"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions.ndjson\""))
+                .andExpect(content().string("{\"accountNumber\":\"1000000000\"}\n"));
+    }
+
+    @Test
+    public void acceptUseBalance() throws Exception{
+        //given
+        given(acceptedUseBalanceQueue.accept(any()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionType(USE)
+                        .transactionResultType(P)
+                        .transactionId("transactionId")
+                        .amount(3000L)
+                        .transactedAt(LocalDateTime.now())
+                        .build());
+
+        //when
+        //then
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/use")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, "1000000000", 3000L)
+                        ))
+                ).andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.transactionResult").value("P"))
+                .andExpect(jsonPath("$.transactionId").value("transactionId"));
+        verify(transactionService, never()).useBalanceAsync(any(UseBalance.Request.class));
+    }
+
+    @Test
+    public void acceptUseBalance_queueFull() throws Exception{
+        //given
+        given(acceptedUseBalanceQueue.accept(any()))
+                .willThrow(new AccountException(TRANSACTION_QUEUE_FULL));
+
+        //when
+        //then
+        mockMvc.perform(post("/transaction/use")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, "1000000000", 3000L)
+                        )))
+                .andDo(print())
+                .andExpect(jsonPath("$.errorCode").value("TRANSACTION_QUEUE_FULL"));
+    }
+
+    @Test
+    public void queryAcceptedTransaction() throws Exception{
+        //given
+        given(acceptedUseBalanceQueue.findAccepted("transactionId"))
+                .willReturn(Optional.of(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionType(USE)
+                        .transactionResultType(P)
+                        .transactionId("transactionId")
+                        .amount(3000L)
+                        .transactedAt(LocalDateTime.now())
+                        .build()));
+
+        //when
+        //then
+        mockMvc.perform(get("/transaction/transactionId"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionResult").value("P"));
+        verify(transactionService, never()).queryTransaction(anyString());
+    }
+
+    @Test
+    public void successAuthorizeBalance() throws Exception{
+        //given
+        given(transactionService.authorizeBalanceAsync(anyLong(), anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(HoldDto.builder()
+                        .accountNumber("1000000000")
+                        .holdId("holdId")
+                        .amount(3000L)
+                        .holdStatus(HoldStatus.AUTHORIZED)
+                        .authorizedAt(LocalDateTime.now())
+                        .expiresAt(LocalDateTime.now().plusMinutes(10))
+                        .build()));
+
+        //when
+        //then
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/authorize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new AuthorizeBalance.Request(1L, "1000000000", 3000L)
+                        ))
+                ).andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.holdId").value("holdId"))
+                .andExpect(jsonPath("$.holdStatus").value("AUTHORIZED"))
+                .andExpect(jsonPath("$.amount").value(3000));
+    }
+
+    @Test
+    public void successCaptureBalance() throws Exception{
+        //given
+        given(transactionService.captureBalanceAsync(anyString(), anyString()))
+                .willReturn(CompletableFuture.completedFuture(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactedAt(LocalDateTime.now())
+                        .amount(3000L)
+                        .transactionId("transactionId")
+                        .transactionResultType(S)
+                        .build()));
+
+        //when
+        //then
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/capture")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new CaptureBalance.Request("holdId", "1000000000")
+                        ))
+                ).andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.holdId").value("holdId"))
+                .andExpect(jsonPath("$.transactionResult").value("S"))
+                .andExpect(jsonPath("$.transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.amount").value(3000));
+    }
+}
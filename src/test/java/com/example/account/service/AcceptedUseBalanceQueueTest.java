@@ -0,0 +1,106 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.BalanceConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.TransactionResultType.P;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class AcceptedUseBalanceQueueTest {
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final LockService lockService = mock(LockService.class);
+    private AcceptedUseBalanceQueue acceptedUseBalanceQueue;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        acceptedUseBalanceQueue.shutdown();
+    }
+
+    private AcceptedUseBalanceQueue newQueue(BalanceConcurrencyMode concurrencyMode, int queueCapacity) {
+        return new AcceptedUseBalanceQueue(transactionService, lockService,
+                new TimeOrderedTransactionIdGenerator(1L), new SimpleMeterRegistry(),
+                concurrencyMode, 1, queueCapacity);
+    }
+
+    @Test
+    public void acceptThenProcessUnderAccountLock() throws Exception {
+        //given
+        acceptedUseBalanceQueue = newQueue(BalanceConcurrencyMode.LOCK, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return TransactionDto.builder().build();
+        }).given(transactionService).useBalance(eq(12L), eq("1000000012"), eq(1000L), anyString());
+
+        //when
+        TransactionDto pending = acceptedUseBalanceQueue.accept(new UseBalance.Request(12L, "1000000012", 1000L));
+
+        //then
+        assertThat(pending.getTransactionResultType()).isEqualTo(P);
+        assertThat(acceptedUseBalanceQueue.findAccepted(pending.getTransactionId())).isPresent();
+        release.countDown();
+        verify(transactionService, timeout(5000)).useBalance(12L, "1000000012", 1000L, pending.getTransactionId());
+        verify(lockService, timeout(5000)).unlock("1000000012");
+        verify(lockService).lock("1000000012");
+        assertThat(acceptedUseBalanceQueue.findAccepted(pending.getTransactionId())).isEmpty();
+    }
+
+    @Test
+    public void failedRequest_saveFailedTransactionWithAcceptedId() {
+        //given
+        acceptedUseBalanceQueue = newQueue(BalanceConcurrencyMode.MAILBOX, 10);
+        given(transactionService.useBalanceAsync(eq(12L), eq("1000000012"), eq(1000L), anyString()))
+                .willReturn(CompletableFuture.failedFuture(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE)));
+
+        //when
+        TransactionDto pending = acceptedUseBalanceQueue.accept(new UseBalance.Request(12L, "1000000012", 1000L));
+
+        //then
+        verify(transactionService, timeout(5000))
+                .saveFailedUseTransaction("1000000012", 1000L, pending.getTransactionId());
+        verify(lockService, never()).lock(anyString());
+    }
+
+    @Test
+    public void queueFull_reject() throws Exception {
+        //given
+        acceptedUseBalanceQueue = newQueue(BalanceConcurrencyMode.LOCK, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return TransactionDto.builder().build();
+        }).given(transactionService).useBalance(eq(12L), eq("1000000012"), eq(1000L), anyString());
+        acceptedUseBalanceQueue.accept(new UseBalance.Request(12L, "1000000012", 1000L));
+        started.await(5, TimeUnit.SECONDS);
+        acceptedUseBalanceQueue.accept(new UseBalance.Request(12L, "1000000012", 1000L));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> acceptedUseBalanceQueue.accept(new UseBalance.Request(12L, "1000000012", 1000L)));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.TRANSACTION_QUEUE_FULL);
+        release.countDown();
+    }
+}
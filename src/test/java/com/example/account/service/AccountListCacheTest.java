@@ -0,0 +1,145 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class AccountListCacheTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private AccountListCache accountListCache;
+
+    @AfterEach
+    void tearDown() {
+        accountListCache.shutdown();
+    }
+
+    private AccountListCache newCache(Duration maxStaleness, RedissonClient redissonClient) {
+        return new AccountListCache(meterRegistry, redissonClientProvider(redissonClient), true, maxStaleness, 100,
+                redissonClient != null, Duration.ofHours(1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<RedissonClient> redissonClientProvider(RedissonClient redissonClient) {
+        ObjectProvider<RedissonClient> provider = mock(ObjectProvider.class);
+        lenient().when(provider.getIfAvailable()).thenReturn(redissonClient);
+        return provider;
+    }
+
+    private List<AccountDto> load() {
+        loads.incrementAndGet();
+        return Collections.singletonList(AccountDto.builder()
+                .userId(12L)
+                .accountNumber("1000000012")
+                .balance(1000L)
+                .build());
+    }
+
+    @Test
+    public void cachedUntilEvicted() {
+        //given
+        accountListCache = newCache(Duration.ofMinutes(1), null);
+
+        //when
+        accountListCache.get(12L, this::load);
+        accountListCache.get(12L, this::load);
+        accountListCache.evictAfterCompletion(12L);
+        accountListCache.get(12L, this::load);
+
+        //then
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(accountListCache.hitRatio()).isEqualTo(1.0 / 3);
+        assertThat(meterRegistry.get("account.account-list.cache.requests")
+                .tag("result", "hit").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void olderThanMaxStaleness_reload() throws InterruptedException {
+        //given
+        accountListCache = newCache(Duration.ofMillis(10), null);
+        accountListCache.get(12L, this::load);
+
+        //when
+        Thread.sleep(20L);
+        accountListCache.get(12L, this::load);
+
+        //then
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void evictedWhileLoading_notCached() {
+        //given
+        accountListCache = newCache(Duration.ofMinutes(1), null);
+
+        //when
+        accountListCache.get(12L, () -> {
+            accountListCache.evict(12L);
+            return load();
+        });
+        accountListCache.get(12L, this::load);
+
+        //then
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void broadcast_publishBatchedAndEvictOnMessage() {
+        //given
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RTopic topic = mock(RTopic.class);
+        given(redissonClient.getTopic(AccountListCache.TOPIC, StringCodec.INSTANCE)).willReturn(topic);
+        accountListCache = newCache(Duration.ofMinutes(1), redissonClient);
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(topic).addListener(eq(String.class), listener.capture());
+
+        //when
+        accountListCache.evict(12L);
+        accountListCache.evict(13L);
+        accountListCache.evict(12L);
+        accountListCache.publish();
+        accountListCache.get(14L, this::load);
+        listener.getValue().onMessage(AccountListCache.TOPIC, "14");
+        accountListCache.get(14L, this::load);
+
+        //then
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(topic).publishAsync(message.capture());
+        assertThat(message.getValue().split(",")).containsExactlyInAnyOrder("12", "13");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void disabled_alwaysLoad() {
+        //given
+        accountListCache = new AccountListCache(meterRegistry, redissonClientProvider(null), false,
+                Duration.ofMinutes(1), 100, false, Duration.ofHours(1));
+
+        //when
+        accountListCache.get(12L, this::load);
+        accountListCache.get(12L, this::load);
+
+        //then
+        assertThat(loads.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountNumberBlock;
+import com.example.account.repository.AccountNumberBlockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+    @Mock
+    private AccountNumberBlockRepository accountNumberBlockRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AccountNumberBlock counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = AccountNumberBlock.builder().name("account").nextBlock(0L).build();
+        lenient().when(accountNumberBlockRepository.saveAndFlush(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void reserveBlockOnce_andHandOutFromMemory() {
+        //given
+        given(accountNumberBlockRepository.findForUpdateByName("account"))
+                .willReturn(Optional.of(counter));
+        AccountNumberAllocator allocator =
+                new AccountNumberAllocator(accountNumberBlockRepository, transactionManager, 100, 7L);
+
+        //when
+        Set<String> numbers = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            numbers.add(allocator.nextAccountNumber());
+        }
+
+        //then
+        verify(accountNumberBlockRepository, times(1)).findForUpdateByName(anyString());
+        assertThat(counter.getNextBlock()).isEqualTo(1L);
+        assertThat(numbers).hasSize(100)
+                .allMatch(number -> number.matches("[1-9]\\d{9}"))
+                .allMatch(AccountNumberAllocator::isValid);
+    }
+
+    @Test
+    void reserveNextBlock_whenBlockUsedUp() {
+        //given
+        given(accountNumberBlockRepository.findForUpdateByName("account"))
+                .willReturn(Optional.of(counter));
+        AccountNumberAllocator allocator =
+                new AccountNumberAllocator(accountNumberBlockRepository, transactionManager, 10, 7L);
+
+        //when
+        Set<String> numbers = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            numbers.add(allocator.nextAccountNumber());
+        }
+
+        //then
+        verify(accountNumberBlockRepository, times(3)).findForUpdateByName(anyString());
+        assertThat(counter.getNextBlock()).isEqualTo(3L);
+        assertThat(numbers).hasSize(25);
+    }
+
+    @Test
+    void createCounter_whenFirstUse() {
+        //given
+        given(accountNumberBlockRepository.findForUpdateByName("account"))
+                .willReturn(Optional.empty());
+        AccountNumberAllocator allocator =
+                new AccountNumberAllocator(accountNumberBlockRepository, transactionManager, 10, 7L);
+
+        //when
+        allocator.nextAccountNumber();
+
+        //then
+        verify(accountNumberBlockRepository, times(1)).saveAndFlush(
+                argThat(block ->
+                        "account".equals(block.getName()) && block.getNextBlock() == 1L));
+    }
+
+    @Test
+    void failWhenNumberSpaceExhausted() {
+        //given
+        counter.setNextBlock(AccountNumberAllocator.BODY_SPACE / 1000);
+        given(accountNumberBlockRepository.findForUpdateByName("account"))
+                .willReturn(Optional.of(counter));
+        AccountNumberAllocator allocator =
+                new AccountNumberAllocator(accountNumberBlockRepository, transactionManager, 1000, 7L);
+
+        //when
+        //then
+        assertThrows(IllegalStateException.class, allocator::nextAccountNumber);
+    }
+
+    @Test
+    void permutation_isOneToOne_andNotSequential() {
+        //given
+        AccountNumberAllocator allocator =
+                new AccountNumberAllocator(accountNumberBlockRepository, transactionManager, 1000, 7L);
+
+        //when
+        Set<Long> permuted = new HashSet<>();
+        int sequentialNeighbors = 0;
+        long previous = -1L;
+        for (long sequence = 0; sequence < 100_000; sequence++) {
+            long value = allocator.permute(sequence);
+            assertThat(value).isBetween(0L, AccountNumberAllocator.BODY_SPACE - 1);
+            permuted.add(value);
+            if (value == previous + 1) {
+                sequentialNeighbors++;
+            }
+            previous = value;
+        }
+
+        //then
+        assertThat(permuted).hasSize(100_000);
+        assertThat(sequentialNeighbors).isLessThan(10);
+    }
+
+    @Test
+    void checkDigit_detectSingleDigitError() {
+        //given
+        long body = 123_456_789L;
+        String accountNumber = String.valueOf(body) + AccountNumberAllocator.checkDigit(body);
+
+        //when
+        //then
+        assertThat(accountNumber).isEqualTo("1234567897");
+        assertThat(AccountNumberAllocator.isValid(accountNumber)).isTrue();
+        assertThat(AccountNumberAllocator.isValid("1234567807")).isFalse();
+        assertThat(AccountNumberAllocator.isValid("1234567879")).isFalse();
+    }
+
+    @Test
+    void withoutPermutationKey_failToStart() {
+        //given
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+                new AccountNumberAllocator(accountNumberBlockRepository, transactionManager, 1000, null));
+
+        //then
+        assertThat(exception.getMessage()).contains("account.number.permutation-key");
+    }
+}
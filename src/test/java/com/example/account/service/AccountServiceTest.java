@@ -3,11 +3,18 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountSummary;
+import com.example.account.dto.BalanceAsOfDto;
+import com.example.account.dto.TransactionHistoryItem;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.repository.AccountRepository;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,11 +22,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,6 +42,8 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -40,14 +56,41 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private BalanceSlotService balanceSlotService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private BalanceCheckpointIndex balanceCheckpointIndex;
+
+    @Mock
+    private EventSourcedLedger eventSourcedLedger;
+
+    @Mock
+    private WriteBehindLedger writeBehindLedger;
+
+    @Spy
+    private AccountListCache accountListCache = new AccountListCache(new SimpleMeterRegistry(),
+            withoutRedisson(), true, Duration.ofSeconds(5), 100, false, Duration.ofMillis(50));
+
     @InjectMocks
     private AccountService accountService;
 
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<RedissonClient> withoutRedisson() {
+        return mock(ObjectProvider.class);
+    }
+
     @Test
     @DisplayName("계좌 조회 성공")
     void testGetAccount() {
         //given
-        given(accountRepository.findById(anyLong()))
+        given(accountRepository.findWithAccountUserById(anyLong()))
                 .willReturn(Optional.of(Account.builder()
                         .accountStatus(AccountStatus.UNREGISTERED)
                         .accountNumber("65789").build()));
@@ -57,7 +100,7 @@ class AccountServiceTest {
         Account account = accountService.getAccount(4555L);
 
         //then
-        verify(accountRepository, times(1)).findById(captor.capture());
+        verify(accountRepository, times(1)).findWithAccountUserById(captor.capture());
         verify(accountRepository, times(0)).save(any());
         assertThat(captor.getValue()).isEqualTo(4555L);
         assertThat(captor.getValue()).isNotEqualTo(45551L);
@@ -85,6 +128,8 @@ class AccountServiceTest {
         user.setId(12L);
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1000000013");
 
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
@@ -100,6 +145,7 @@ class AccountServiceTest {
         assertTrue(captor.getValue().getAccountNumber().matches("\\d{10}"));
         assertThat(accountDto.getUserId()).isEqualTo(12L);
         assertThat(accountDto.getAccountNumber()).isEqualTo("1000000013");
+        verify(accountRepository, never()).existsByAccountNumber(anyString());
     }
 
     @Test
@@ -200,6 +246,31 @@ class AccountServiceTest {
         assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.BALANCE_HAS_EMPTY);
     }
 
+    @Test
+    void deleteAccountFailed_pendingBalanceNotEmpty(){
+        //given
+        AccountUser pobi = AccountUser.builder()
+                .name("Pobi").build();
+        pobi.setId(12L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(pobi));
+        given(writeBehindLedger.pendingBalance("1234567890"))
+                .willReturn(OptionalLong.of(1000L));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(pobi)
+                        .balance(0L)
+                        .accountNumber("1234567890").build()));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.deleteAccount(1L, "1234567890"));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.BALANCE_HAS_EMPTY);
+        verify(accountRepository, never()).save(any());
+    }
+
     @Test
     void deleteAccountFailed_alreadyUnregistered(){
         //given
@@ -236,6 +307,8 @@ class AccountServiceTest {
         user.setId(12L);
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1000000015");
 
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
@@ -313,30 +386,13 @@ class AccountServiceTest {
     @Test
     public void successGetAccountByUserId() throws Exception{
         //given
-        AccountUser pobi = AccountUser.builder()
-                .name("Pobi").build();
-        pobi.setId(12L);
-        List<Account> accounts = Arrays.asList(
-                Account.builder()
-                        .accountUser(pobi)
-                        .accountNumber("1111111111")
-                        .balance(1000L)
-                        .build(),
-                Account.builder()
-                        .accountUser(pobi)
-                        .accountNumber("2222222222")
-                        .balance(2000L)
-                        .build(),
-                Account.builder()
-                        .accountUser(pobi)
-                        .accountNumber("3333333333")
-                        .balance(3000L)
-                        .build()
-        );
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(pobi));
-        given(accountRepository.findByAccountUser(any()))
-                .willReturn(accounts);
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(true);
+        given(accountRepository.findSummariesByAccountUserId(anyLong()))
+                .willReturn(Arrays.asList(
+                        new AccountSummary("1111111111", 1000L),
+                        new AccountSummary("2222222222", 2000L),
+                        new AccountSummary("3333333333", 3000L)));
 
         //when
         List<AccountDto> accountDtos = accountService.getAccountsByUserId(1L);
@@ -349,13 +405,14 @@ class AccountServiceTest {
         assertThat(accountDtos.get(1).getBalance()).isEqualTo(2000);
         assertThat(accountDtos.get(2).getAccountNumber()).isEqualTo("3333333333");
         assertThat(accountDtos.get(2).getBalance()).isEqualTo(3000);
+        assertThat(accountDtos).extracting(AccountDto::getUserId).containsOnly(1L);
     }
 
     @Test
     public void failedToGetAccounts() throws Exception{
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(false);
 
         //when
         AccountException exception = assertThrows(AccountException.class,
@@ -363,6 +420,172 @@ class AccountServiceTest {
 
         //then
         assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.USER_NOT_FOUND);
+        verify(accountRepository, never()).findSummariesByAccountUserId(anyLong());
+    }
+
+    @Test
+    public void getAccountsByUserId_cachedUntilAccountCreated() throws Exception{
+        //given
+        AccountUser pobi = AccountUser.builder()
+                .name("Pobi").build();
+        pobi.setId(12L);
+        given(accountUserRepository.findById(12L))
+                .willReturn(Optional.of(pobi));
+        given(accountUserRepository.existsById(12L))
+                .willReturn(true);
+        given(accountRepository.findSummariesByAccountUserId(12L))
+                .willReturn(Arrays.asList(new AccountSummary("1111111111", 1000L)));
+        given(accountNumberAllocator.nextAccountNumber()).willReturn("2222222222");
+        given(accountRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        accountService.getAccountsByUserId(12L);
+        accountService.getAccountsByUserId(12L);
+        accountService.createAccount(12L, 1000L);
+        accountService.getAccountsByUserId(12L);
+
+        //then
+        verify(accountRepository, times(2)).findSummariesByAccountUserId(12L);
+        verify(accountListCache).evictAfterCompletion(12L);
+    }
+
+    @Test
+    public void getBalanceAsOf_lastSnapshotBefore() throws Exception{
+        //given
+        LocalDateTime asOf = LocalDateTime.of(2026, 9, 30, 23, 59);
+        LocalDateTime transactedAt = LocalDateTime.of(2026, 9, 30, 12, 0);
+        Account account = Account.builder()
+                .accountNumber("1000000012")
+                .balance(3000L)
+                .registeredAt(LocalDateTime.of(2026, 1, 1, 0, 0))
+                .build();
+        account.setId(7L);
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.findLastSucceededAtOrBefore(eq(7L), eq(asOf), any()))
+                .willReturn(Arrays.asList(new TransactionHistoryItem(
+                        1L, TransactionType.USE, TransactionResultType.S, "transactionId", null,
+                        200L, 4800L, transactedAt)));
+
+        //when
+        BalanceAsOfDto balanceAsOf = accountService.getBalanceAsOf("1000000012", asOf);
+
+        //then
+        assertThat(balanceAsOf.getBalance()).isEqualTo(4800L);
+        verify(balanceCheckpointIndex).record("1000000012", transactedAt, asOf, 4800L);
+        verify(transactionRepository, never()).findFirstSucceededAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    public void getBalanceAsOf_beforeFirstTransaction() throws Exception{
+        //given
+        LocalDateTime registeredAt = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime asOf = LocalDateTime.of(2026, 2, 1, 0, 0);
+        Account account = Account.builder()
+                .accountNumber("1000000012")
+                .balance(3000L)
+                .registeredAt(registeredAt)
+                .build();
+        account.setId(7L);
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.findLastSucceededAtOrBefore(eq(7L), eq(asOf), any()))
+                .willReturn(Collections.emptyList());
+        given(transactionRepository.findFirstSucceededAfter(eq(7L), eq(asOf), any()))
+                .willReturn(Arrays.asList(new TransactionHistoryItem(
+                        1L, TransactionType.TRANSFER_OUT, TransactionResultType.S, "transactionId", null,
+                        500L, 500L, asOf.plusDays(1))));
+
+        //when
+        BalanceAsOfDto balanceAsOf = accountService.getBalanceAsOf("1000000012", asOf);
+
+        //then
+        assertThat(balanceAsOf.getBalance()).isEqualTo(1000L);
+        verify(balanceCheckpointIndex).record("1000000012", registeredAt, asOf, 1000L);
+    }
+
+    @Test
+    public void getBalanceAsOf_indexed() throws Exception{
+        //given
+        LocalDateTime asOf = LocalDateTime.of(2026, 2, 1, 0, 0);
+        given(balanceCheckpointIndex.find("1000000012", asOf))
+                .willReturn(OptionalLong.of(1000L));
+
+        //when
+        BalanceAsOfDto balanceAsOf = accountService.getBalanceAsOf("1000000012", asOf);
+
+        //then
+        assertThat(balanceAsOf.getBalance()).isEqualTo(1000L);
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+        verify(transactionRepository, never()).findLastSucceededAtOrBefore(anyLong(), any(), any());
+    }
+
+    @Test
+    void getBalanceAsOf_beforeRegistered(){
+        //given
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(Account.builder()
+                        .accountNumber("1000000012")
+                        .balance(3000L)
+                        .registeredAt(LocalDateTime.of(2026, 1, 1, 0, 0))
+                        .build()));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.getBalanceAsOf("1000000012", LocalDateTime.of(2025, 12, 31, 0, 0)));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_NOT_FOUND);
+    }
 
+    @Test
+    void splitBalanceSuccess(){
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findForUpdateByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        accountService.splitBalance(12L, "1000000012", 4);
+
+        //then
+        verify(balanceSlotService, times(1)).split(account, 4);
+    }
+
+    @Test
+    void splitBalanceFailed_userUnMatch(){
+        //given
+        AccountUser pobi = AccountUser.builder()
+                .name("Pobi").build();
+        pobi.setId(12L);
+        AccountUser harry = AccountUser.builder()
+                .name("Harry").build();
+        harry.setId(13L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(pobi));
+        given(accountRepository.findForUpdateByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(harry)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(10000L)
+                        .accountNumber("1000000012").build()));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.splitBalance(12L, "1000000012", 4));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        verify(balanceSlotService, never()).split(any(), anyInt());
     }
-}
\ No newline at end of file
+}
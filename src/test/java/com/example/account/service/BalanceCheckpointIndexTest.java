@@ -0,0 +1,81 @@
+package com.example.account.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BalanceCheckpointIndexTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 9, 1, 0, 0);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void find_withinRecordedRange() throws Exception {
+        //given
+        BalanceCheckpointIndex index = new BalanceCheckpointIndex(meterRegistry, true, 10, 10, Duration.ofMinutes(5));
+        index.record("1000000012", DAY, DAY.plusHours(6), 1000L);
+        index.record("1000000012", DAY.plusHours(8), DAY.plusHours(9), 700L);
+
+        //when
+        //then
+        assertThat(index.find("1000000012", DAY.plusHours(3))).isEqualTo(OptionalLong.of(1000L));
+        assertThat(index.find("1000000012", DAY.plusHours(6))).isEqualTo(OptionalLong.of(1000L));
+        assertThat(index.find("1000000012", DAY.plusHours(7))).isEmpty();
+        assertThat(index.find("1000000012", DAY.plusHours(8).plusMinutes(30))).isEqualTo(OptionalLong.of(700L));
+        assertThat(index.find("1000000012", DAY.minusHours(1))).isEmpty();
+        assertThat(index.find("2000000012", DAY.plusHours(3))).isEmpty();
+        assertThat(meterRegistry.get("account.balance.as-of.requests").tag("result", "hit").counter().count())
+                .isEqualTo(3.0);
+    }
+
+    @Test
+    public void record_extendsRangeFromSameTransaction() throws Exception {
+        //given
+        BalanceCheckpointIndex index = new BalanceCheckpointIndex(meterRegistry, true, 10, 10, Duration.ofMinutes(5));
+        index.record("1000000012", DAY, DAY.plusHours(6), 1000L);
+
+        //when
+        index.record("1000000012", DAY, DAY.plusHours(12), 1000L);
+        index.record("1000000012", DAY, DAY.plusHours(1), 1000L);
+
+        //then
+        assertThat(index.find("1000000012", DAY.plusHours(12))).isEqualTo(OptionalLong.of(1000L));
+    }
+
+    @Test
+    public void record_skipsUnsettledAsOf() throws Exception {
+        //given
+        BalanceCheckpointIndex index = new BalanceCheckpointIndex(meterRegistry, true, 10, 10, Duration.ofMinutes(5));
+        LocalDateTime recent = LocalDateTime.now().minusMinutes(1);
+
+        //when
+        index.record("1000000012", recent.minusHours(1), recent, 1000L);
+
+        //then
+        assertThat(index.find("1000000012", recent)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    public void record_boundedAccountsAndCheckpoints() throws Exception {
+        //given
+        BalanceCheckpointIndex index = new BalanceCheckpointIndex(meterRegistry, true, 2, 2, Duration.ofMinutes(5));
+
+        //when
+        index.record("1000000012", DAY, DAY.plusHours(1), 100L);
+        index.record("1000000012", DAY.plusHours(2), DAY.plusHours(3), 200L);
+        index.record("1000000012", DAY.plusHours(4), DAY.plusHours(5), 300L);
+        index.record("2000000012", DAY, DAY.plusHours(1), 100L);
+        index.record("3000000012", DAY, DAY.plusHours(1), 100L);
+
+        //then
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.find("1000000012", DAY)).isEmpty();
+        assertThat(index.find("3000000012", DAY)).isEqualTo(OptionalLong.of(100L));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.BalanceHold;
+import com.example.account.dto.HoldDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.BalanceHoldRepository;
+import com.example.account.type.BalanceConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.HoldStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceHoldSweeperTest {
+    @Mock
+    private BalanceHoldRepository balanceHoldRepository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private LockService lockService;
+
+    @InjectMocks
+    private BalanceHoldSweeper balanceHoldSweeper;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(balanceHoldSweeper, "concurrencyMode", BalanceConcurrencyMode.LOCK);
+        ReflectionTestUtils.setField(balanceHoldSweeper, "sweepBatchSize", 100);
+    }
+
+    @Test
+    public void expireUnderAccountLock() {
+        //given
+        given(balanceHoldRepository.findByHoldStatusAndExpiresAtBeforeOrderByExpiresAt(
+                eq(HoldStatus.AUTHORIZED), any(), any()))
+                .willReturn(Arrays.asList(hold("hold1"), hold("hold2")));
+        given(transactionService.expireHold(any(), eq("1000000012")))
+                .willReturn(HoldDto.builder().holdStatus(HoldStatus.EXPIRED).build());
+
+        //when
+        int expired = balanceHoldSweeper.sweep();
+
+        //then
+        assertThat(expired).isEqualTo(2);
+        verify(lockService, times(2)).lock("1000000012");
+        verify(lockService, times(2)).unlock("1000000012");
+    }
+
+    @Test
+    public void lockFailed_skipHold() {
+        //given
+        given(balanceHoldRepository.findByHoldStatusAndExpiresAtBeforeOrderByExpiresAt(
+                eq(HoldStatus.AUTHORIZED), any(), any()))
+                .willReturn(Collections.singletonList(hold("hold1")));
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock("1000000012");
+
+        //when
+        int expired = balanceHoldSweeper.sweep();
+
+        //then
+        assertThat(expired).isZero();
+        verify(transactionService, never()).expireHold(any(), any());
+        verify(lockService, never()).unlock(any());
+    }
+
+    @Test
+    public void mailboxMode_expireThroughMailbox() {
+        //given
+        ReflectionTestUtils.setField(balanceHoldSweeper, "concurrencyMode", BalanceConcurrencyMode.MAILBOX);
+        given(balanceHoldRepository.findByHoldStatusAndExpiresAtBeforeOrderByExpiresAt(
+                eq(HoldStatus.AUTHORIZED), any(), any()))
+                .willReturn(Collections.singletonList(hold("hold1")));
+        given(transactionService.expireHoldAsync("hold1", "1000000012"))
+                .willReturn(CompletableFuture.completedFuture(
+                        HoldDto.builder().holdStatus(HoldStatus.EXPIRED).build()));
+
+        //when
+        int expired = balanceHoldSweeper.sweep();
+
+        //then
+        assertThat(expired).isEqualTo(1);
+        verify(lockService, never()).lock(any());
+    }
+
+    @Test
+    public void mailboxMode_failedHoldSkipped() {
+        //given
+        ReflectionTestUtils.setField(balanceHoldSweeper, "concurrencyMode", BalanceConcurrencyMode.MAILBOX);
+        given(balanceHoldRepository.findByHoldStatusAndExpiresAtBeforeOrderByExpiresAt(
+                eq(HoldStatus.AUTHORIZED), any(), any()))
+                .willReturn(Arrays.asList(hold("hold1"), hold("hold2")));
+        given(transactionService.expireHoldAsync("hold1", "1000000012"))
+                .willReturn(CompletableFuture.failedFuture(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL)));
+        given(transactionService.expireHoldAsync("hold2", "1000000012"))
+                .willReturn(CompletableFuture.completedFuture(
+                        HoldDto.builder().holdStatus(HoldStatus.EXPIRED).build()));
+
+        //when
+        int expired = balanceHoldSweeper.sweep();
+
+        //then
+        assertThat(expired).isEqualTo(1);
+        verify(transactionService, times(1)).expireHoldAsync("hold2", "1000000012");
+    }
+
+    private static BalanceHold hold(String holdId) {
+        return BalanceHold.builder()
+                .account(Account.builder().accountNumber("1000000012").build())
+                .holdId(holdId)
+                .amount(1000L)
+                .holdStatus(HoldStatus.AUTHORIZED)
+                .expiresAt(LocalDateTime.now().minusSeconds(1))
+                .build();
+    }
+}
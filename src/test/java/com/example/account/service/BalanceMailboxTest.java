@@ -0,0 +1,85 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BalanceMailboxTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BalanceMailbox balanceMailbox;
+
+    @AfterEach
+    void tearDown() {
+        balanceMailbox.shutdown();
+    }
+
+    @Test
+    public void sameAccount_runInSubmitOrderOnOneThread() {
+        //given
+        balanceMailbox = new BalanceMailbox(meterRegistry, 4, 100);
+        List<Integer> applied = new ArrayList<>();
+        List<String> threads = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 50; i++) {
+            int sequence = i;
+            results.add(balanceMailbox.submit("1000000012", () -> {
+                applied.add(sequence);
+                threads.add(Thread.currentThread().getName());
+                return sequence;
+            }));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+
+        //then
+        assertThat(applied).hasSize(50).isSorted();
+        assertThat(threads).containsOnly(threads.get(0));
+    }
+
+    @Test
+    public void fullShard_rejectWithoutWaiting() throws Exception {
+        //given
+        balanceMailbox = new BalanceMailbox(meterRegistry, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        balanceMailbox.submit("1000000012", () -> {
+            started.countDown();
+            await(release);
+            return 1;
+        });
+        started.await();
+        CompletableFuture<Integer> queued = balanceMailbox.submit("1000000012", () -> 2);
+
+        //when
+        CompletableFuture<Integer> rejected = balanceMailbox.submit("1000000012", () -> 3);
+
+        //then
+        CompletionException exception = assertThrows(CompletionException.class, rejected::join);
+        assertThat(((AccountException) exception.getCause()).getErrorCode())
+                .isEqualTo(ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL);
+        assertThat(meterRegistry.get("account.balance.mailbox.rejected").counter().count())
+                .isEqualTo(1.0);
+        release.countDown();
+        assertThat(queued.join()).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
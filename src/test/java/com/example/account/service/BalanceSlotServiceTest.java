@@ -0,0 +1,206 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountBalanceSlot;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountBalanceSlotRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceSlotServiceTest {
+    @Mock
+    private AccountBalanceSlotRepository accountBalanceSlotRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private WriteBehindLedger writeBehindLedger;
+
+    @Mock
+    private EventSourcedLedger eventSourcedLedger;
+
+    @Captor
+    private ArgumentCaptor<List<AccountBalanceSlot>> slotsCaptor;
+
+    @InjectMocks
+    private BalanceSlotService balanceSlotService;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(balanceSlotService, "lookupTtl", Duration.ofSeconds(10));
+        account = Account.builder()
+                .accountNumber("1000000012")
+                .balance(0L)
+                .balanceSlots(4)
+                .build();
+        account.setId(1L);
+    }
+
+    private static AccountBalanceSlot slot(int slot, long balance) {
+        return AccountBalanceSlot.builder()
+                .slot(slot)
+                .balance(balance)
+                .build();
+    }
+
+    @Test
+    public void split_spreadBalanceEvenly() {
+        //given
+        Account unsplit = Account.builder()
+                .accountNumber("1000000012")
+                .balance(10L)
+                .build();
+
+        //when
+        balanceSlotService.split(unsplit, 4);
+
+        //then
+        verify(accountBalanceSlotRepository, times(1)).saveAll(slotsCaptor.capture());
+        assertThat(slotsCaptor.getValue()).extracting(AccountBalanceSlot::getBalance)
+                .containsExactly(3L, 3L, 2L, 2L);
+        assertThat(unsplit.getBalance()).isEqualTo(0L);
+        assertThat(unsplit.getBalanceSlots()).isEqualTo(4);
+        assertThat(balanceSlotService.isSplit("1000000012")).isTrue();
+    }
+
+    @Test
+    public void split_alreadySplit() {
+        //given
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceSlotService.split(account, 4));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_ALREADY_SPLIT);
+    }
+
+    @Test
+    public void split_heldBalance_rejectedAndHoldStillCaptured() {
+        //given
+        Account held = Account.builder()
+                .accountNumber("1000000012")
+                .balance(10000L)
+                .build();
+        held.hold(3000L);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceSlotService.split(held, 4));
+        held.captureHold(3000L);
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_HAS_HELD_BALANCE);
+        verify(accountBalanceSlotRepository, never()).saveAll(any());
+        assertThat(held.isSplitBalance()).isFalse();
+        assertThat(held.getBalance()).isEqualTo(7000L);
+        assertThat(held.availableBalance()).isEqualTo(7000L);
+    }
+
+    @Test
+    public void debit_fromSlotWithEnoughBalance() {
+        //given
+        given(accountBalanceSlotRepository.findBalancesByAccountId(1L))
+                .willReturn(Arrays.asList(100L, 500L, 200L, 0L));
+        given(accountBalanceSlotRepository.debit(1L, 1, 300L)).willReturn(1);
+
+        //when
+        balanceSlotService.debit(account, 300L);
+
+        //then
+        verify(accountBalanceSlotRepository, times(1)).debit(1L, 1, 300L);
+        verify(accountBalanceSlotRepository, never()).findForUpdateByAccountId(anyLong());
+    }
+
+    @Test
+    public void debit_slotChanged_conflict() {
+        //given
+        given(accountBalanceSlotRepository.findBalancesByAccountId(1L))
+                .willReturn(Arrays.asList(100L, 500L, 200L, 0L));
+        given(accountBalanceSlotRepository.debit(1L, 1, 300L)).willReturn(0);
+
+        //when
+        //then
+        assertThrows(BalanceSlotService.SlotConflictException.class,
+                () -> balanceSlotService.debit(account, 300L));
+        verify(accountBalanceSlotRepository, never()).findForUpdateByAccountId(anyLong());
+    }
+
+    @Test
+    public void debit_noSingleSlotEnough_rebalance() {
+        //given
+        List<AccountBalanceSlot> slots = Arrays.asList(slot(0, 100L), slot(1, 300L), slot(2, 200L), slot(3, 0L));
+        given(accountBalanceSlotRepository.findBalancesByAccountId(1L))
+                .willReturn(Arrays.asList(100L, 300L, 200L, 0L));
+        given(accountBalanceSlotRepository.findForUpdateByAccountId(1L)).willReturn(slots);
+
+        //when
+        balanceSlotService.debit(account, 550L);
+
+        //then
+        verify(accountBalanceSlotRepository, never()).debit(anyLong(), anyInt(), anyLong());
+        assertThat(slots).extracting(AccountBalanceSlot::getBalance)
+                .containsExactly(13L, 13L, 12L, 12L);
+    }
+
+    @Test
+    public void debit_totalNotEnough() {
+        //given
+        List<AccountBalanceSlot> slots = Arrays.asList(slot(0, 100L), slot(1, 300L), slot(2, 200L), slot(3, 0L));
+        given(accountBalanceSlotRepository.findBalancesByAccountId(1L))
+                .willReturn(Arrays.asList(100L, 300L, 200L, 0L));
+        given(accountBalanceSlotRepository.findForUpdateByAccountId(1L)).willReturn(slots);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceSlotService.debit(account, 601L));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        assertThat(slots).extracting(AccountBalanceSlot::getBalance)
+                .containsExactly(100L, 300L, 200L, 0L);
+    }
+
+    @Test
+    public void isSplit_rememberUnsplitAccountForTtl() {
+        //given
+        given(accountRepository.existsByAccountNumberAndBalanceSlotsNotNull("1000000013")).willReturn(false);
+
+        //when
+        boolean first = balanceSlotService.isSplit("1000000013");
+        boolean second = balanceSlotService.isSplit("1000000013");
+
+        //then
+        assertThat(first).isFalse();
+        assertThat(second).isFalse();
+        verify(accountRepository, times(1)).existsByAccountNumberAndBalanceSlotsNotNull(eq("1000000013"));
+        verify(accountBalanceSlotRepository, never()).saveAll(any());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLock;
+import com.example.account.domain.Account;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.AccountStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = {
+        "account.lock.provider=database",
+        "account.lock.database.watchdog-lease=300ms"
+})
+@Import(DatabaseLockProvider.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DatabaseLockProviderTest {
+    @Autowired
+    private DatabaseLockProvider databaseLockProvider;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository.deleteAll();
+        accountRepository.save(Account.builder()
+                .accountUser(accountUserRepository.findById(1L).get())
+                .accountNumber("1000000000")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .build());
+    }
+
+    @Test
+    public void lockOwnedByOtherOwner() {
+        //given
+        databaseLockProvider.tryLockAsync("1000000000", 0L, 15000L, 1L).join();
+
+        //when
+        boolean isLock = databaseLockProvider.tryLockAsync("1000000000", 100L, 15000L, 2L).join();
+
+        //then
+        assertThat(isLock).isFalse();
+        assertThat(accountRepository.findByAccountNumber("1000000000").get().getLockOwner())
+                .endsWith(":1");
+    }
+
+    @Test
+    public void lockAfterUnlock() {
+        //given
+        databaseLockProvider.tryLockAsync("1000000000", 0L, 15000L, 1L).join();
+        databaseLockProvider.unlockAsync("1000000000", 1L).join();
+
+        //when
+        boolean isLock = databaseLockProvider.tryLockAsync("1000000000", 0L, 15000L, 2L).join();
+
+        //then
+        assertThat(isLock).isTrue();
+    }
+
+    @Test
+    public void lockAfterOtherLeaseExpired() throws InterruptedException {
+        //given
+        databaseLockProvider.tryLockAsync("1000000000", 0L, 10L, 1L).join();
+        Thread.sleep(30L);
+
+        //when
+        boolean isLock = databaseLockProvider.tryLockAsync("1000000000", 0L, 15000L, 2L).join();
+
+        //then
+        assertThat(isLock).isTrue();
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> databaseLockProvider.unlockAsync("1000000000", 1L).join());
+        assertThat(exception.getCause()).isInstanceOf(IllegalMonitorStateException.class);
+    }
+
+    @Test
+    public void watchdogLeaseRenewedUntilUnlock() throws InterruptedException {
+        //given
+        databaseLockProvider.tryLockAsync("1000000000", 0L, AccountLock.WATCHDOG, 1L).join();
+        Thread.sleep(900L);
+
+        //when
+        boolean lockedWhileHeld = databaseLockProvider.tryLockAsync("1000000000", 0L, 15000L, 2L).join();
+        databaseLockProvider.unlockAsync("1000000000", 1L).join();
+        boolean lockedAfterUnlock = databaseLockProvider.tryLockAsync("1000000000", 0L, 15000L, 2L).join();
+
+        //then
+        assertThat(lockedWhileHeld).isFalse();
+        assertThat(lockedAfterUnlock).isTrue();
+    }
+
+    @Test
+    public void balanceUpdateDoesNotOverwriteLockOwner() {
+        //given
+        databaseLockProvider.tryLockAsync("1000000000", 0L, 15000L, 1L).join();
+
+        //when
+        Account account = accountRepository.findByAccountNumber("1000000000").get();
+        account.useBalance(100L);
+        accountRepository.save(account);
+
+        //then
+        assertThat(accountRepository.findByAccountNumber("1000000000").get().getLockOwner())
+                .endsWith(":1");
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.account.service;
+
+import com.example.account.dto.BatchItemDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DebitCoalescerTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<UseBalance.Request>> committed = new ArrayList<>();
+    private DebitCoalescer debitCoalescer;
+
+    @AfterEach
+    void tearDown() {
+        debitCoalescer.shutdown();
+    }
+
+    private synchronized CompletableFuture<List<BatchItemDto>> commit(List<UseBalance.Request> requests) {
+        committed.add(new ArrayList<>(requests));
+        return CompletableFuture.completedFuture(requests.stream()
+                .map(request -> BatchItemDto.builder()
+                        .accountNumber(request.getAccountNumber())
+                        .amount(request.getAmount())
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void sameAccountWithinWindow_commitOnce() {
+        //given
+        debitCoalescer = new DebitCoalescer(meterRegistry, true, Duration.ofMillis(50), 100);
+
+        //when
+        List<CompletableFuture<BatchItemDto>> results = new ArrayList<>();
+        for (long amount = 1; amount <= 10; amount++) {
+            results.add(debitCoalescer.submit(new UseBalance.Request(12L, "1000000012", amount), this::commit));
+        }
+        CompletableFuture<BatchItemDto> other =
+                debitCoalescer.submit(new UseBalance.Request(12L, "1000000013", 100L), this::commit);
+
+        //then
+        assertThat(results.stream().map(CompletableFuture::join).map(BatchItemDto::getAmount))
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(other.join().getAccountNumber()).isEqualTo("1000000013");
+        assertThat(committed).hasSize(2);
+        assertThat(meterRegistry.get("account.balance.coalesce.batch.size").summary().max())
+                .isEqualTo(10.0);
+    }
+
+    @Test
+    public void fullBatch_commitWithoutWaitingForWindow() {
+        //given
+        debitCoalescer = new DebitCoalescer(meterRegistry, true, Duration.ofHours(1), 3);
+
+        //when
+        List<CompletableFuture<BatchItemDto>> results = new ArrayList<>();
+        for (long amount = 1; amount <= 4; amount++) {
+            results.add(debitCoalescer.submit(new UseBalance.Request(12L, "1000000012", amount), this::commit));
+        }
+
+        //then
+        assertThat(results.subList(0, 3)).allMatch(CompletableFuture::isDone);
+        assertThat(results.get(3)).isNotDone();
+        assertThat(committed).hasSize(1);
+        debitCoalescer.shutdown();
+        assertThat(results.get(3).join().getAmount()).isEqualTo(4L);
+        assertThat(committed).hasSize(2);
+    }
+
+    @Test
+    public void failedCommit_failAllRequestsInBatch() {
+        //given
+        debitCoalescer = new DebitCoalescer(meterRegistry, true, Duration.ofHours(1), 2);
+
+        //when
+        CompletableFuture<BatchItemDto> first = debitCoalescer.submit(
+                new UseBalance.Request(12L, "1000000012", 100L),
+                requests -> CompletableFuture.failedFuture(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK)));
+        CompletableFuture<BatchItemDto> second = debitCoalescer.submit(
+                new UseBalance.Request(12L, "1000000012", 100L), this::commit);
+
+        //then
+        for (CompletableFuture<BatchItemDto> result : List.of(first, second)) {
+            CompletionException exception = assertThrows(CompletionException.class, result::join);
+            assertThat(((AccountException) exception.getCause()).getErrorCode())
+                    .isEqualTo(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        assertThat(committed).isEmpty();
+    }
+}
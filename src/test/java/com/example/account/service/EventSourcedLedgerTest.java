@@ -0,0 +1,204 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountSnapshot;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountSnapshotRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.LedgerEventRepository;
+import com.example.account.type.AccountStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:event-sourced-ledger",
+        "account.lock.provider=in-process",
+        "account.ledger.write-mode=EVENT_SOURCED",
+        "account.ledger.snapshot.interval=3",
+        // 테스트에서는 직접 snapshot 한다.
+        "account.ledger.snapshot.delay=1h"
+})
+class EventSourcedLedgerTest {
+    private static final int SNAPSHOT_INTERVAL = 3;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private EventSourcedLedger eventSourcedLedger;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private LedgerEventRepository ledgerEventRepository;
+
+    @Autowired
+    private AccountSnapshotRepository accountSnapshotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void useAndCancel_recordedAsEvents() {
+        //given
+        AccountDto account = accountService.createAccount(1L, 10000L);
+
+        //when
+        TransactionDto used = transactionService.useBalance(1L, account.getAccountNumber(), 1000L);
+        transactionService.cancelBalance(used.getTransactionId(), account.getAccountNumber(), 1000L);
+        transactionService.useBalance(1L, account.getAccountNumber(), 300L);
+
+        //then
+        Long accountId = accountRepository.findIdByAccountNumber(account.getAccountNumber()).get();
+        // CREATE, USE, CANCEL, USE
+        assertThat(ledgerEventRepository.countByAccountId(accountId)).isEqualTo(4);
+        assertThat(ledgerBalance(account.getAccountNumber())).isEqualTo(9700L);
+        assertThat(accountRepository.findByAccountNumber(account.getAccountNumber()).get().getBalance())
+                .isEqualTo(9700L);
+    }
+
+    @Test
+    void balanceChange_validatedAgainstLedger() {
+        //given
+        AccountDto account = accountService.createAccount(2L, 1000L);
+        Account stale = accountRepository.findByAccountNumber(account.getAccountNumber()).get();
+        stale.setBalance(0L);
+        accountRepository.save(stale);
+
+        //when
+        TransactionDto transaction = transactionService.useBalance(2L, account.getAccountNumber(), 400L);
+
+        //then
+        assertThat(transaction.getBalanceSnapshot()).isEqualTo(600L);
+        assertThat(accountRepository.findByAccountNumber(account.getAccountNumber()).get().getBalance())
+                .isEqualTo(600L);
+    }
+
+    @Test
+    void failedTransaction_doesNotWriteAccount() {
+        //given
+        AccountDto account = accountService.createAccount(6L, 1000L);
+        Account stale = accountRepository.findByAccountNumber(account.getAccountNumber()).get();
+        stale.setBalance(0L);
+        accountRepository.save(stale);
+        Long version = accountRepository.findByAccountNumber(account.getAccountNumber()).get().getVersion();
+
+        //when
+        transactionService.saveFailedUseTransaction(account.getAccountNumber(), 5000L);
+
+        //then
+        Account saved = accountRepository.findByAccountNumber(account.getAccountNumber()).get();
+        assertThat(saved.getVersion()).isEqualTo(version);
+        assertThat(saved.getBalance()).isEqualTo(0L);
+        assertThat(ledgerBalance(account.getAccountNumber())).isEqualTo(1000L);
+    }
+
+    @Test
+    void snapshotTakenInBackground() {
+        //given
+        AccountDto account = accountService.createAccount(3L, 10000L);
+        for (int i = 0; i < SNAPSHOT_INTERVAL - 1; i++) {
+            transactionService.useBalance(3L, account.getAccountNumber(), 100L);
+        }
+
+        //when
+        int taken = eventSourcedLedger.snapshot();
+
+        //then
+        Long accountId = accountRepository.findIdByAccountNumber(account.getAccountNumber()).get();
+        AccountSnapshot snapshot = accountSnapshotRepository.findFirstByAccountIdOrderBySequenceDesc(accountId).get();
+        assertThat(taken).isGreaterThanOrEqualTo(1);
+        assertThat(snapshot.getSequence()).isEqualTo(SNAPSHOT_INTERVAL);
+        assertThat(snapshot.getBalance()).isEqualTo(9800L);
+        assertThat(ledgerBalance(account.getAccountNumber())).isEqualTo(9800L);
+    }
+
+    @Test
+    void replayBoundedBySnapshotInterval_withoutBackgroundSnapshots() {
+        //given
+        AccountDto from = accountService.createAccount(4L, 10000L);
+        AccountDto to = accountService.createAccount(4L, 0L);
+
+        //when
+        for (int i = 0; i < SNAPSHOT_INTERVAL * 4; i++) {
+            transactionService.transferBalance(4L, from.getAccountNumber(), to.getAccountNumber(), 100L);
+        }
+
+        //then
+        assertThat(ledgerBalance(from.getAccountNumber())).isEqualTo(8800L);
+        assertThat(ledgerBalance(to.getAccountNumber())).isEqualTo(1200L);
+        assertThat(meterRegistry.get("account.ledger.replay.events").summary().max())
+                .isLessThanOrEqualTo(SNAPSHOT_INTERVAL);
+        assertThat(meterRegistry.get("account.ledger.snapshots").tag("source", "inline").counter().count())
+                .isGreaterThan(0);
+    }
+
+    @Test
+    void accountCreatedBeforeLedger_startsFromCurrentBalance() {
+        //given
+        // 원장을 거치지 않고 저장해서 이 모드를 켜기 전에 만든 계좌처럼 둔다.
+        Account account = accountRepository.save(Account.builder()
+                .accountUser(accountUserRepository.findById(5L).get())
+                .accountNumber("9999999999")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(5000L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+
+        //when
+        TransactionDto transaction = transactionService.useBalance(5L, "9999999999", 10L);
+
+        //then
+        AccountSnapshot snapshot = accountSnapshotRepository
+                .findFirstByAccountIdOrderBySequenceDesc(account.getId()).get();
+        assertThat(snapshot.getSequence()).isEqualTo(0L);
+        assertThat(snapshot.getBalance()).isEqualTo(5000L);
+        assertThat(transaction.getBalanceSnapshot()).isEqualTo(4990L);
+        assertThat(ledgerEventRepository.countByAccountId(account.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void failedTransaction_doesNotTakeSnapshot() {
+        //given
+        Account account = accountRepository.save(Account.builder()
+                .accountUser(accountUserRepository.findById(7L).get())
+                .accountNumber("9999999998")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(5000L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+
+        //when
+        transactionService.saveFailedUseTransaction("9999999998", 10000L);
+
+        //then
+        Long balance = transactionTemplate.execute(status -> eventSourcedLedger.peekBalanceOf(
+                accountRepository.findByAccountNumber("9999999998").get()));
+        assertThat(accountSnapshotRepository.findFirstByAccountIdOrderBySequenceDesc(account.getId())).isEmpty();
+        assertThat(balance).isEqualTo(5000L);
+    }
+
+    private long ledgerBalance(String accountNumber) {
+        return transactionTemplate.execute(status -> eventSourcedLedger.balanceOf(
+                accountRepository.findByAccountNumber(accountNumber).get()));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransactionDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class FailedTransactionRecorderTest {
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        failedTransactionRecorder.shutdown();
+    }
+
+    private FailedTransactionRecorder newRecorder(int bufferCapacity, int batchSize) {
+        // 테스트에서 직접 flush 하도록 주기를 길게 둔다.
+        return new FailedTransactionRecorder(transactionService, meterRegistry,
+                bufferCapacity, batchSize, Duration.ofHours(1));
+    }
+
+    @Test
+    public void recordThenFlushInBatches() {
+        //given
+        failedTransactionRecorder = newRecorder(10, 2);
+        List<List<FailedTransactionDto>> batches = new ArrayList<>();
+        willAnswer(invocation -> batches.add(new ArrayList<>(invocation.getArgument(0))))
+                .given(transactionService).saveFailedTransactions(anyList());
+        failedTransactionRecorder.record(USE, "1000000012", 1000L);
+        failedTransactionRecorder.record(USE, "1000000012", 2000L);
+        failedTransactionRecorder.record(CANCEL, "1000000013", 3000L);
+
+        //when
+        int written = failedTransactionRecorder.flush();
+
+        //then
+        assertThat(written).isEqualTo(3);
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0)).extracting(FailedTransactionDto::getAmount).containsExactly(1000L, 2000L);
+        assertThat(batches.get(1).get(0).getTransactionType()).isEqualTo(CANCEL);
+        assertThat(meterRegistry.get("account.transaction.failure.buffer.size").gauge().value()).isZero();
+    }
+
+    @Test
+    public void bufferFull_dropAndCount() {
+        //given
+        failedTransactionRecorder = newRecorder(2, 10);
+
+        //when
+        failedTransactionRecorder.record(USE, "1000000012", 1000L);
+        failedTransactionRecorder.record(USE, "1000000012", 2000L);
+        failedTransactionRecorder.record(USE, "1000000012", 3000L);
+
+        //then
+        assertThat(meterRegistry.get("account.transaction.failure.buffer.size").gauge().value()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("account.transaction.failure.dropped").counter().count()).isEqualTo(1.0);
+        verify(transactionService, never()).saveFailedTransactions(anyList());
+    }
+
+    @Test
+    public void saveFailed_dropBatch() {
+        //given
+        failedTransactionRecorder = newRecorder(10, 10);
+        willThrow(new IllegalStateException("database unavailable"))
+                .given(transactionService).saveFailedTransactions(anyList());
+        failedTransactionRecorder.record(USE, "1000000012", 1000L);
+        failedTransactionRecorder.record(USE, "1000000012", 2000L);
+
+        //when
+        int written = failedTransactionRecorder.flush();
+
+        //then
+        assertThat(written).isZero();
+        assertThat(meterRegistry.get("account.transaction.failure.dropped").counter().count()).isEqualTo(2.0);
+        verify(transactionService, times(1)).saveFailedTransactions(anyList());
+    }
+}
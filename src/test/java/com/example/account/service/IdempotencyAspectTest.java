@@ -0,0 +1,256 @@
+package com.example.account.service;
+
+import com.example.account.aop.Idempotent;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.TransactionResultType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static com.example.account.type.ErrorCode.IDEMPOTENCY_KEY_REUSED;
+import static com.example.account.type.ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyAspectTest {
+    private static final String KEY = "POST /transaction/use:retry-1";
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Mock
+    private ProceedingJoinPoint proceedingJoinPoint;
+
+    @Mock
+    private MethodSignature methodSignature;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private IdempotencyAspect idempotencyAspect;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        idempotencyAspect = new IdempotencyAspect(idempotencyStore, objectMapper);
+        ReflectionTestUtils.setField(idempotencyAspect, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(idempotencyAspect, "pendingTtl", Duration.ofSeconds(30));
+        lenient().when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
+        lenient().when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{request(1000L)});
+        lenient().when(methodSignature.getReturnType()).thenReturn((Class) CompletableFuture.class);
+        lenient().when(methodSignature.getMethod())
+                .thenReturn(IdempotencyAspectTest.class.getDeclaredMethod("useBalance"));
+        withIdempotencyKey("retry-1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Idempotent
+    private CompletableFuture<UseBalance.Response> useBalance() {
+        return null;
+    }
+
+    private static Idempotent idempotent() throws NoSuchMethodException {
+        return IdempotencyAspectTest.class.getDeclaredMethod("useBalance").getAnnotation(Idempotent.class);
+    }
+
+    private static void withIdempotencyKey(String idempotencyKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transaction/use");
+        if (idempotencyKey != null) {
+            request.addHeader(IdempotencyAspect.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static UseBalance.Request request(Long amount) {
+        UseBalance.Request request = new UseBalance.Request();
+        ReflectionTestUtils.setField(request, "userId", 1L);
+        ReflectionTestUtils.setField(request, "accountNumber", "1000000000");
+        ReflectionTestUtils.setField(request, "amount", amount);
+        return request;
+    }
+
+    private static UseBalance.Response response() {
+        return UseBalance.Response.builder()
+                .accountNumber("1000000000")
+                .transactionResult(TransactionResultType.S)
+                .transactionId("transactionId")
+                .amount(1000L)
+                .build();
+    }
+
+    @Test
+    public void firstRequest_storeResponse() throws Throwable {
+        //given
+        given(idempotencyStore.find(KEY)).willReturn(Optional.empty());
+        given(idempotencyStore.reserve(eq(KEY), anyString(), eq(30_000L))).willReturn(true);
+        given(proceedingJoinPoint.proceed()).willReturn(CompletableFuture.completedFuture(response()));
+
+        //when
+        CompletableFuture<?> result = (CompletableFuture<?>) idempotencyAspect.aroundMethod(
+                proceedingJoinPoint, idempotent());
+
+        //then
+        assertThat(((UseBalance.Response) result.join()).getTransactionId()).isEqualTo("transactionId");
+        verify(idempotencyStore, times(1)).complete(eq(KEY), anyString(), anyString(), eq(Duration.ofHours(24).toMillis()));
+    }
+
+    @Test
+    public void retry_replayWithoutProceed() throws Throwable {
+        //given
+        given(idempotencyStore.find(KEY)).willReturn(Optional.of(new IdempotencyStore.StoredRequest(
+                requestHash(request(1000L)), objectMapper.writeValueAsString(response()))));
+
+        //when
+        CompletableFuture<?> result = (CompletableFuture<?>) idempotencyAspect.aroundMethod(
+                proceedingJoinPoint, idempotent());
+
+        //then
+        UseBalance.Response replayed = (UseBalance.Response) result.join();
+        assertThat(replayed.getTransactionId()).isEqualTo("transactionId");
+        assertThat(replayed.getAmount()).isEqualTo(1000L);
+        verify(proceedingJoinPoint, never()).proceed();
+        verify(idempotencyStore, never()).reserve(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    public void concurrentDuplicate_coalesceIntoOneExecution() throws Throwable {
+        //given
+        CompletableFuture<Object> running = new CompletableFuture<>();
+        given(idempotencyStore.find(KEY)).willReturn(Optional.empty());
+        given(idempotencyStore.reserve(eq(KEY), anyString(), eq(30_000L))).willReturn(true);
+        given(proceedingJoinPoint.proceed()).willReturn(running);
+
+        //when
+        CompletableFuture<?> first = (CompletableFuture<?>) idempotencyAspect.aroundMethod(
+                proceedingJoinPoint, idempotent());
+        CompletableFuture<?> duplicate = (CompletableFuture<?>) idempotencyAspect.aroundMethod(
+                proceedingJoinPoint, idempotent());
+        running.complete(response());
+
+        //then
+        verify(proceedingJoinPoint, times(1)).proceed();
+        assertThat(first.join()).isSameAs(duplicate.join());
+    }
+
+    @Test
+    public void pendingOnOtherNode_failInProgress() throws Throwable {
+        //given
+        given(idempotencyStore.find(KEY)).willReturn(Optional.empty());
+        given(idempotencyStore.reserve(eq(KEY), anyString(), eq(30_000L))).willReturn(false);
+
+        //when
+        CompletableFuture<?> result = (CompletableFuture<?>) idempotencyAspect.aroundMethod(
+                proceedingJoinPoint, idempotent());
+
+        //then
+        Exception exception = assertThrows(Exception.class, result::join);
+        assertThat(((AccountException) exception.getCause()).getErrorCode())
+                .isEqualTo(IDEMPOTENT_REQUEST_IN_PROGRESS);
+        verify(proceedingJoinPoint, never()).proceed();
+    }
+
+    @Test
+    public void failedRequest_releaseKey() throws Throwable {
+        //given
+        given(idempotencyStore.find(KEY)).willReturn(Optional.empty());
+        given(idempotencyStore.reserve(eq(KEY), anyString(), eq(30_000L))).willReturn(true);
+        given(proceedingJoinPoint.proceed()).willReturn(
+                CompletableFuture.failedFuture(new AccountException(ACCOUNT_TRANSACTION_LOCK)));
+
+        //when
+        CompletableFuture<?> result = (CompletableFuture<?>) idempotencyAspect.aroundMethod(
+                proceedingJoinPoint, idempotent());
+
+        //then
+        assertThat(result).isCompletedExceptionally();
+        verify(idempotencyStore, times(1)).release(eq(KEY), anyString());
+        verify(idempotencyStore, never()).complete(anyString(), anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    public void withoutHeader_proceed() throws Throwable {
+        //given
+        withIdempotencyKey(null);
+        given(proceedingJoinPoint.proceed()).willReturn(CompletableFuture.completedFuture(response()));
+
+        //when
+        idempotencyAspect.aroundMethod(proceedingJoinPoint, idempotent());
+
+        //then
+        verify(proceedingJoinPoint, times(1)).proceed();
+        verify(idempotencyStore, never()).find(anyString());
+    }
+
+    @Test
+    public void sameKeyWithDifferentRequest_failKeyReused() throws Throwable {
+        //given
+        given(proceedingJoinPoint.getArgs()).willReturn(new Object[]{request(2000L)});
+        given(idempotencyStore.find(KEY)).willReturn(Optional.of(new IdempotencyStore.StoredRequest(
+                requestHash(request(1000L)), objectMapper.writeValueAsString(response()))));
+
+        //when
+        CompletableFuture<?> result = (CompletableFuture<?>) idempotencyAspect.aroundMethod(
+                proceedingJoinPoint, idempotent());
+
+        //then
+        Exception exception = assertThrows(Exception.class, result::join);
+        assertThat(((AccountException) exception.getCause()).getErrorCode())
+                .isEqualTo(IDEMPOTENCY_KEY_REUSED);
+        verify(proceedingJoinPoint, never()).proceed();
+        verify(idempotencyStore, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    public void syncUseAndAsyncAccept_shareKey() throws Throwable {
+        //given
+        // 동기로 처리한 요청을 같은 키로 Prefer: respond-async 와 함께 다시 보낸다.
+        MockHttpServletRequest accept = new MockHttpServletRequest("POST", "/transaction/use");
+        accept.addHeader(IdempotencyAspect.IDEMPOTENCY_KEY_HEADER, "retry-1");
+        accept.addHeader("Prefer", "respond-async");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(accept));
+        given(idempotencyStore.find(KEY)).willReturn(Optional.of(new IdempotencyStore.StoredRequest(
+                requestHash(request(1000L)), objectMapper.writeValueAsString(response()))));
+
+        //when
+        CompletableFuture<?> result = (CompletableFuture<?>) idempotencyAspect.aroundMethod(
+                proceedingJoinPoint, idempotent());
+
+        //then
+        assertThat(((UseBalance.Response) result.join()).getTransactionId()).isEqualTo("transactionId");
+        verify(proceedingJoinPoint, never()).proceed();
+    }
+
+    private String requestHash(Object... args) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(args));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryIdempotencyStoreTest {
+    private final InMemoryIdempotencyStore idempotencyStore = new InMemoryIdempotencyStore();
+
+    @AfterEach
+    void tearDown() {
+        idempotencyStore.shutdown();
+    }
+
+    @Test
+    public void reserve_onlyOnce() {
+        //given
+        //when
+        boolean first = idempotencyStore.reserve("key", "hash", 30_000L);
+        boolean second = idempotencyStore.reserve("key", "hash", 30_000L);
+
+        //then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(idempotencyStore.find("key").get().isCompleted()).isFalse();
+    }
+
+    @Test
+    public void complete_thenFindAndKeepOnRelease() {
+        //given
+        idempotencyStore.reserve("key", "hash", 30_000L);
+
+        //when
+        idempotencyStore.complete("key", "hash", "{\"amount\":1000}", 60_000L);
+        idempotencyStore.release("key", "hash");
+
+        //then
+        assertThat(idempotencyStore.find("key").get().getRequestHash()).isEqualTo("hash");
+        assertThat(idempotencyStore.find("key").get().getResponse()).isEqualTo("{\"amount\":1000}");
+        assertThat(idempotencyStore.reserve("key", "hash", 30_000L)).isFalse();
+    }
+
+    @Test
+    public void release_pendingKeyCanBeReservedAgain() {
+        //given
+        idempotencyStore.reserve("key", "hash", 30_000L);
+
+        //when
+        idempotencyStore.release("key", "hash");
+
+        //then
+        assertThat(idempotencyStore.reserve("key", "hash", 30_000L)).isTrue();
+    }
+
+    @Test
+    public void release_keepOtherRequestReservation() {
+        //given
+        idempotencyStore.reserve("key", "hash", 30_000L);
+
+        //when
+        idempotencyStore.release("key", "other-hash");
+
+        //then
+        assertThat(idempotencyStore.find("key").get().getRequestHash()).isEqualTo("hash");
+    }
+
+    @Test
+    public void expiredKey_evicted() throws Exception {
+        //given
+        idempotencyStore.complete("key", "hash", "{}", 1L);
+        Thread.sleep(5L);
+
+        //when
+        idempotencyStore.purgeExpired();
+
+        //then
+        assertThat(idempotencyStore.size()).isZero();
+        assertThat(idempotencyStore.find("key")).isEmpty();
+        assertThat(idempotencyStore.reserve("key", "hash", 30_000L)).isTrue();
+    }
+}
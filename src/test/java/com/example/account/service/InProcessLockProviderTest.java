@@ -0,0 +1,51 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InProcessLockProviderTest {
+    private final InProcessLockProvider inProcessLockProvider = new InProcessLockProvider();
+
+    @Test
+    public void lockOwnedByOtherOwner() {
+        //given
+        inProcessLockProvider.tryLockAsync("1000000000", 0L, 15000L, 1L).join();
+
+        //when
+        boolean isLock = inProcessLockProvider.tryLockAsync("1000000000", 0L, 15000L, 2L).join();
+
+        //then
+        assertThat(isLock).isFalse();
+    }
+
+    @Test
+    public void lockAfterUnlock() {
+        //given
+        inProcessLockProvider.tryLockAsync("1000000000", 0L, 15000L, 1L).join();
+        inProcessLockProvider.unlockAsync("1000000000", 1L).join();
+
+        //when
+        boolean isLock = inProcessLockProvider.tryLockAsync("1000000000", 0L, 15000L, 2L).join();
+
+        //then
+        assertThat(isLock).isTrue();
+    }
+
+    @Test
+    public void unlockAfterLeaseExpired() throws InterruptedException {
+        //given
+        inProcessLockProvider.tryLockAsync("1000000000", 0L, 10L, 1L).join();
+        Thread.sleep(30L);
+
+        //when
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> inProcessLockProvider.unlockAsync("1000000000", 1L).join());
+
+        //then
+        assertThat(exception.getCause()).isInstanceOf(IllegalMonitorStateException.class);
+    }
+}
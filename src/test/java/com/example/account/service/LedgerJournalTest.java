@@ -0,0 +1,131 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LedgerJournalTest {
+    private static final int CAPACITY = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] payload(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void recoverAppendedRecords() throws Exception {
+        //given
+        Path path = tempDir.resolve("ledger.journal");
+        try (LedgerJournal journal = new LedgerJournal(path, CAPACITY)) {
+            journal.recover();
+            journal.append(payload("first"));
+            journal.append(payload("second"));
+        }
+
+        //when
+        List<LedgerJournal.Record> records;
+        try (LedgerJournal journal = new LedgerJournal(path, CAPACITY)) {
+            records = journal.recover();
+        }
+
+        //then
+        assertThat(records).extracting(LedgerJournal.Record::getSequence).containsExactly(1L, 2L);
+        assertThat(new String(records.get(1).getPayload(), StandardCharsets.UTF_8)).isEqualTo("second");
+    }
+
+    @Test
+    void skipCheckpointedRecords() throws Exception {
+        //given
+        Path path = tempDir.resolve("ledger.journal");
+        try (LedgerJournal journal = new LedgerJournal(path, CAPACITY)) {
+            journal.recover();
+            LedgerJournal.Record first = journal.append(payload("first"));
+            journal.append(payload("second"));
+            journal.checkpoint(first);
+        }
+
+        //when
+        List<LedgerJournal.Record> records;
+        try (LedgerJournal journal = new LedgerJournal(path, CAPACITY)) {
+            records = journal.recover();
+        }
+
+        //then
+        assertThat(records).extracting(LedgerJournal.Record::getSequence).containsExactly(2L);
+    }
+
+    @Test
+    void stopAtTornRecord() throws Exception {
+        //given
+        Path path = tempDir.resolve("ledger.journal");
+        LedgerJournal.Record first;
+        try (LedgerJournal journal = new LedgerJournal(path, CAPACITY)) {
+            journal.recover();
+            first = journal.append(payload("first"));
+            journal.append(payload("second"));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(first.getEndPosition() + LedgerJournal.RECORD_HEADER_SIZE);
+            file.write('X');
+        }
+
+        //when
+        List<LedgerJournal.Record> records;
+        LedgerJournal.Record appended;
+        try (LedgerJournal journal = new LedgerJournal(path, CAPACITY)) {
+            records = journal.recover();
+            appended = journal.append(payload("third"));
+        }
+
+        //then
+        assertThat(records).extracting(LedgerJournal.Record::getSequence).containsExactly(1L);
+        assertThat(appended.getSequence()).isEqualTo(2L);
+        assertThat(appended.getEndPosition()).isEqualTo(
+                first.getEndPosition() + LedgerJournal.RECORD_HEADER_SIZE + "third".length());
+    }
+
+    @Test
+    void rewindAfterAllApplied_oldRecordsNotReplayed() throws Exception {
+        //given
+        Path path = tempDir.resolve("ledger.journal");
+        try (LedgerJournal journal = new LedgerJournal(path, CAPACITY)) {
+            journal.recover();
+            journal.append(payload("first"));
+            LedgerJournal.Record second = journal.append(payload("second"));
+            journal.checkpoint(second);
+
+            //when
+            assertThat(journal.rewindIfApplied()).isTrue();
+            journal.append(payload("third"));
+        }
+
+        //then
+        try (LedgerJournal journal = new LedgerJournal(path, CAPACITY)) {
+            List<LedgerJournal.Record> records = journal.recover();
+            assertThat(records).extracting(LedgerJournal.Record::getSequence).containsExactly(3L);
+            assertThat(new String(records.get(0).getPayload(), StandardCharsets.UTF_8)).isEqualTo("third");
+        }
+    }
+
+    @Test
+    void returnNullWhenFull() throws Exception {
+        //given
+        try (LedgerJournal journal = new LedgerJournal(tempDir.resolve("ledger.journal"), 64)) {
+            journal.recover();
+
+            //when
+            LedgerJournal.Record record = journal.append(new byte[64]);
+
+            //then
+            assertThat(record).isNull();
+        }
+    }
+}
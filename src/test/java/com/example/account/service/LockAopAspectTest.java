@@ -1,20 +1,35 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
+import com.example.account.dto.TransferBalance;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.type.BalanceConcurrencyMode;
 import com.example.account.type.ErrorCode;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 import static com.example.account.type.ErrorCode.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -23,23 +38,55 @@ class LockAopAspectTest {
     @Mock
     private LockService lockService;
 
+    @Mock
+    private LockMetrics lockMetrics;
+
+    @Mock
+    private BalanceSlotService balanceSlotService;
+
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
+    @Mock
+    private MethodSignature methodSignature;
+
     @InjectMocks
     private LockAopAspect lockAopAspect;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
+        lenient().when(methodSignature.toShortString()).thenReturn("TransactionController.useBalance(..)");
+    }
+
+    @AccountLock
+    private void defaultLock() {
+    }
+
+    @AccountLock(tryLockTime = 3000L, leaseTime = AccountLock.WATCHDOG, adaptiveWait = true)
+    private void adaptiveLock() {
+    }
+
+    @AccountLock(coalesced = true)
+    private void coalescedLock() {
+    }
+
+    private static AccountLock accountLock(String methodName) throws NoSuchMethodException {
+        return LockAopAspectTest.class.getDeclaredMethod(methodName).getAnnotation(AccountLock.class);
+    }
+
     @Test
     public void lockAndUnlock() throws Throwable {
         //given
         ArgumentCaptor<String> lockArgumentCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> unLockArgumentCaptor = ArgumentCaptor.forClass(String.class);
         UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(methodSignature.getReturnType()).willReturn((Class) UseBalance.Response.class);
 
         //when
-        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock("defaultLock"), request);
         //then
-        verify(lockService, times(1)).lock(lockArgumentCaptor.capture());
+        verify(lockService, times(1)).lock(lockArgumentCaptor.capture(), eq(5000L), eq(15000L));
         verify(lockService, times(1)).unlock(unLockArgumentCaptor.capture());
         assertThat(lockArgumentCaptor.getValue()).isEqualTo("1234");
         assertThat(unLockArgumentCaptor.getValue()).isEqualTo("1234");
@@ -51,16 +98,175 @@ class LockAopAspectTest {
         ArgumentCaptor<String> lockArgumentCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> unLockArgumentCaptor = ArgumentCaptor.forClass(String.class);
         UseBalance.Request request = new UseBalance.Request(123L, "54321", 1000L);
+        given(methodSignature.getReturnType()).willReturn((Class) UseBalance.Response.class);
         given(proceedingJoinPoint.proceed())
                 .willThrow(new AccountException(ACCOUNT_NOT_FOUND));
 
         //when
         assertThrows(AccountException.class, () ->
-                lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+                lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock("defaultLock"), request));
         //then
-        verify(lockService, times(1)).lock(lockArgumentCaptor.capture());
+        verify(lockService, times(1)).lock(lockArgumentCaptor.capture(), anyLong(), anyLong());
         verify(lockService, times(1)).unlock(unLockArgumentCaptor.capture());
         assertThat(lockArgumentCaptor.getValue()).isEqualTo("54321");
         assertThat(unLockArgumentCaptor.getValue()).isEqualTo("54321");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void failLock_recordFailure() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "54321", 1000L);
+        given(methodSignature.getReturnType()).willReturn((Class) UseBalance.Response.class);
+        willThrow(new AccountException(ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock(anyString(), anyLong(), anyLong());
+
+        //when
+        assertThrows(AccountException.class, () ->
+                lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock("defaultLock"), request));
+        //then
+        verify(lockMetrics, times(1)).recordFailed(eq("TransactionController.useBalance(..)"), anyLong());
+        verify(proceedingJoinPoint, never()).proceed();
+        verify(lockService, never()).unlock(anyString());
+    }
+
+    @Test
+    public void adaptiveWait_boundedByHoldTimeP99() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(methodSignature.getReturnType()).willReturn((Class) UseBalance.Response.class);
+        given(lockMetrics.holdTimeP99Millis(anyString(), anyLong())).willReturn(400L);
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock("adaptiveLock"), request);
+        //then
+        verify(lockService, times(1)).lock("1234", 800L, AccountLock.WATCHDOG);
+    }
+
+    @Test
+    public void adaptiveWait_withoutSamples_useTryLockTime() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(methodSignature.getReturnType()).willReturn((Class) UseBalance.Response.class);
+        given(lockMetrics.holdTimeP99Millis(anyString(), anyLong())).willReturn(-1L);
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock("adaptiveLock"), request);
+        //then
+        verify(lockService, times(1)).lock("1234", 3000L, AccountLock.WATCHDOG);
+    }
+
+    @Test
+    public void asyncLock_unlockWhenResultCompletes() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        given(methodSignature.getReturnType()).willReturn((Class) CompletableFuture.class);
+        given(lockService.lockAsync("1234", 5000L, 15000L)).willReturn(CompletableFuture.completedFuture(null));
+        given(proceedingJoinPoint.proceed()).willReturn(result);
+
+        //when
+        CompletableFuture<?> returned = (CompletableFuture<?>) lockAopAspect.aroundMethod(
+                proceedingJoinPoint, accountLock("defaultLock"), request);
+        //then
+        verify(lockService, never()).unlock("1234");
+        result.complete("done");
+        assertThat(returned.join()).isEqualTo("done");
+        verify(lockService, times(1)).unlock("1234");
+        verify(lockMetrics, times(1)).recordHold(eq("TransactionController.useBalance(..)"), anyLong());
+    }
+
+    @Test
+    public void asyncLock_failToLock() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(methodSignature.getReturnType()).willReturn((Class) CompletableFuture.class);
+        given(lockService.lockAsync("1234", 5000L, 15000L)).willReturn(
+                CompletableFuture.failedFuture(new AccountException(ACCOUNT_TRANSACTION_LOCK)));
+
+        //when
+        CompletableFuture<?> returned = (CompletableFuture<?>) lockAopAspect.aroundMethod(
+                proceedingJoinPoint, accountLock("defaultLock"), request);
+        //then
+        assertThat(returned).isCompletedExceptionally();
+        verify(proceedingJoinPoint, never()).proceed();
+        verify(lockService, never()).unlock("1234");
+        verify(lockMetrics, times(1)).recordFailed(eq("TransactionController.useBalance(..)"), anyLong());
+    }
+
+    @Test
+    public void optimisticMode_proceedWithoutLock() throws Throwable {
+        //given
+        ReflectionTestUtils.setField(lockAopAspect, "concurrencyMode", BalanceConcurrencyMode.OPTIMISTIC);
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(proceedingJoinPoint.proceed()).willReturn("done");
+
+        //when
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock("defaultLock"), request);
+
+        //then
+        assertThat(result).isEqualTo("done");
+        verify(lockService, never()).lock(anyString(), anyLong(), anyLong());
+        verify(lockService, never()).lockAsync(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void coalesced_proceedWithoutLockWhenCoalescing() throws Throwable {
+        //given
+        ReflectionTestUtils.setField(lockAopAspect, "coalesceEnabled", true);
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(proceedingJoinPoint.proceed()).willReturn("done");
+
+        //when
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock("coalescedLock"), request);
+
+        //then
+        assertThat(result).isEqualTo("done");
+        verify(lockService, never()).lock(anyString(), anyLong(), anyLong());
+        verify(lockService, never()).lockAsync(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void coalesced_lockWhenCoalescingDisabled() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(methodSignature.getReturnType()).willReturn((Class) UseBalance.Response.class);
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock("coalescedLock"), request);
+
+        //then
+        verify(lockService, times(1)).lock("1234", 5000L, 15000L);
+        verify(lockService, times(1)).unlock("1234");
+    }
+
+    @Test
+    public void splitBalanceAccount_proceedWithoutLock() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(balanceSlotService.isSplit("1234")).willReturn(true);
+        given(proceedingJoinPoint.proceed()).willReturn("done");
+
+        //when
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock("defaultLock"), request);
+
+        //then
+        assertThat(result).isEqualTo("done");
+        verify(lockService, never()).lock(anyString(), anyLong(), anyLong());
+        verify(lockService, never()).lockAsync(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void multiAccountRequest_lockAllAccounts() throws Throwable {
+        //given
+        TransferBalance.Request request = new TransferBalance.Request(123L, "2000000000", "1000000000", 1000L);
+        given(methodSignature.getReturnType()).willReturn((Class) TransferBalance.Response.class);
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock("defaultLock"), request);
+
+        //then
+        verify(lockService, times(1)).lockAll(Arrays.asList("2000000000", "1000000000"), 5000L, 15000L);
+        verify(lockService, times(1)).unlockAll(Arrays.asList("2000000000", "1000000000"));
+        verify(lockService, never()).lock(anyString(), anyLong(), anyLong());
+    }
+}
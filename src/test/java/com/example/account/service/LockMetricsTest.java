@@ -0,0 +1,53 @@
+package com.example.account.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LockMetricsTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LockMetrics lockMetrics = new LockMetrics(meterRegistry);
+
+    @Test
+    public void holdTimeP99_notEnoughSamples() {
+        //given
+        lockMetrics.recordHold("useBalance", TimeUnit.MILLISECONDS.toNanos(100));
+
+        //when
+        long p99 = lockMetrics.holdTimeP99Millis("useBalance", 20);
+
+        //then
+        assertThat(p99).isEqualTo(-1L);
+    }
+
+    @Test
+    public void holdTimeP99_fromRecordedHolds() {
+        //given
+        for (int i = 0; i < 100; i++) {
+            lockMetrics.recordHold("useBalance", TimeUnit.MILLISECONDS.toNanos(200));
+        }
+
+        //when
+        long p99 = lockMetrics.holdTimeP99Millis("useBalance", 20);
+
+        //then
+        assertThat(p99).isBetween(150L, 250L);
+    }
+
+    @Test
+    public void waitTimeHistogram_taggedByResult() {
+        //given
+        //when
+        lockMetrics.recordAcquired("useBalance", TimeUnit.MILLISECONDS.toNanos(10));
+        lockMetrics.recordFailed("useBalance", TimeUnit.MILLISECONDS.toNanos(1000));
+
+        //then
+        assertThat(meterRegistry.get("account.lock.wait").tag("result", "acquired").timer().count())
+                .isEqualTo(1L);
+        assertThat(meterRegistry.get("account.lock.wait").tag("result", "ACCOUNT_TRANSACTION_LOCK").timer().count())
+                .isEqualTo(1L);
+    }
+}
@@ -1,31 +1,38 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
 import com.example.account.domain.Account;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 
 import java.rmi.AccessException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class LockServiceTest {
     @Mock
-    private RedissonClient redissonClient;
+    private LockProvider lockProvider;
 
     @Mock
-    private RLock rLock;
+    private LockMetrics lockMetrics;
 
     @InjectMocks
     private LockService lockService;
@@ -33,10 +40,8 @@ class LockServiceTest {
     @Test
     public void successGetLock() throws Exception{
         //given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
-                .willReturn(true);
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
 
         //when
         //then
@@ -44,16 +49,170 @@ class LockServiceTest {
     }
 
     @Test
-    public void failLock() throws InterruptedException{
+    public void failLock() {
         //given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
-                .willReturn(false);
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(false));
 
         //when
         AccountException exception = assertThrows(AccountException.class, () -> lockService.lock("123"));
         //then
         assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void failLock_whenProviderFails() {
+        //given
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.failedFuture(new IllegalStateException("redis down")))
+                .willReturn(CompletableFuture.completedFuture(true));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () -> lockService.lock("123"));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        // 로컬 차례도 놓았으므로 다음 요청은 바로 다시 시도한다.
+        assertDoesNotThrow(() -> lockService.lock("123"));
+        verify(lockProvider, times(2)).tryLockAsync(anyString(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void sameAccountContention_redisLockOncePerLocalGroup() throws Exception{
+        //given
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+        given(lockProvider.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        lockService.lock("1000000000");
+
+        //when
+        List<Thread> contenders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Thread contender = new Thread(() -> {
+                lockService.lock("1000000000");
+                lockService.unlock("1000000000");
+            });
+            contenders.add(contender);
+            contender.start();
+        }
+        Thread.sleep(200L);
+        lockService.unlock("1000000000");
+        for (Thread contender : contenders) {
+            contender.join();
+        }
+
+        //then
+        verify(lockProvider, times(1)).tryLockAsync(anyString(), anyLong(), anyLong(), anyLong());
+        verify(lockProvider, times(1)).unlockAsync(anyString(), anyLong());
+    }
+
+    @Test
+    public void failLocalLock_whenHolderDoesNotRelease() throws Exception{
+        //given
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+        lockService.lock("1000000000");
+
+        //when
+        List<AccountException> exceptions = new ArrayList<>();
+        Thread contender = new Thread(() -> {
+            try {
+                lockService.lock("1000000000");
+            } catch (AccountException e) {
+                exceptions.add(e);
+            }
+        });
+        contender.start();
+        contender.join();
+
+        //then
+        assertThat(exceptions).hasSize(1);
+        assertThat(exceptions.get(0).getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        verify(lockProvider, times(1)).tryLockAsync(anyString(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void lockAsync_completesWhenPreviousHolderUnlocks() throws Exception{
+        //given
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+        given(lockProvider.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        lockService.lock("1000000000");
+
+        //when
+        CompletableFuture<Void> waiting = lockService.lockAsync("1000000000");
+        //then
+        assertThat(waiting).isNotDone();
+        lockService.unlock("1000000000");
+        assertThat(waiting).isCompleted();
+        lockService.unlock("1000000000");
+        verify(lockProvider, times(1)).tryLockAsync(anyString(), anyLong(), anyLong(), anyLong());
+        verify(lockProvider, times(1)).unlockAsync(anyString(), anyLong());
+    }
+
+    @Test
+    public void watchdogLease_passToLockProvider() throws Exception{
+        //given
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+
+        //when
+        lockService.lock("1000000000", 3000L, AccountLock.WATCHDOG);
+
+        //then
+        verify(lockProvider, times(1)).tryLockAsync(anyString(), anyLong(), eq(AccountLock.WATCHDOG), anyLong());
+    }
+
+    @Test
+    public void leaseExpiredBeforeUnlock_recordMetric() throws Exception{
+        //given
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+        given(lockProvider.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.failedFuture(new IllegalMonitorStateException()));
+        lockService.lock("1000000000");
+
+        //when
+        lockService.unlock("1000000000");
+
+        //then
+        verify(lockMetrics, times(1)).recordLeaseExpired(anyLong());
+    }
+
+    @Test
+    public void lockAll_inAccountNumberOrder() throws Exception{
+        //given
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+
+        //when
+        lockService.lockAll(Arrays.asList("2000000000", "1000000000"), 1000L, 15000L);
+
+        //then
+        InOrder inOrder = inOrder(lockProvider);
+        inOrder.verify(lockProvider).tryLockAsync(eq("1000000000"), anyLong(), eq(15000L), anyLong());
+        inOrder.verify(lockProvider).tryLockAsync(eq("2000000000"), anyLong(), eq(15000L), anyLong());
+    }
+
+    @Test
+    public void lockAll_releaseAcquiredLocksOnFailure() throws Exception{
+        //given
+        given(lockProvider.tryLockAsync(eq("1000000000"), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+        given(lockProvider.tryLockAsync(eq("2000000000"), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(false));
+        given(lockProvider.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                lockService.lockAll(Arrays.asList("2000000000", "1000000000"), 1000L, 15000L));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        verify(lockProvider, times(1)).unlockAsync(eq("1000000000"), anyLong());
+        assertDoesNotThrow(() -> lockService.lock("1000000000"));
+    }
+}
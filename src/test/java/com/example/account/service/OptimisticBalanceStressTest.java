@@ -0,0 +1,89 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.TransactionResultType.S;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 락 없이 같은 계좌에 동시에 잔액을 사용해도 lost update 가 없는지 검증
+ */
+@SpringBootTest(properties = {
+        "account.lock.provider=in-process",
+        "account.balance.concurrency-mode=OPTIMISTIC",
+        "account.balance.optimistic.max-attempts=50"
+})
+class OptimisticBalanceStressTest {
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 20;
+    private static final long AMOUNT = 10L;
+    private static final long INITIAL_BALANCE = 1_000_000L;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    public void concurrentUseBalance_noLostUpdate() throws Exception {
+        //given
+        AccountDto account = accountService.createAccount(1L, INITIAL_BALANCE);
+        String accountNumber = account.getAccountNumber();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger conflicted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        //when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                    try {
+                        transactionService.useBalance(1L, accountNumber, AMOUNT);
+                        succeeded.incrementAndGet();
+                    } catch (AccountException e) {
+                        assertThat(e.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                        conflicted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        //then
+        long balance = accountRepository.findByAccountNumber(accountNumber).get().getBalance();
+        // 거래의 계좌는 지연 로딩이므로 초기화하지 않는 id 로 비교한다.
+        Long accountId = accountRepository.findByAccountNumber(accountNumber).get().getId();
+        long successTransactions = transactionRepository.findAll().stream()
+                .filter(transaction -> transaction.getAccount().getId().equals(accountId))
+                .filter(transaction -> transaction.getTransactionResultType() == S)
+                .count();
+        assertThat(succeeded.get() + conflicted.get()).isEqualTo(THREADS * REQUESTS_PER_THREAD);
+        assertThat(balance).isEqualTo(INITIAL_BALANCE - succeeded.get() * AMOUNT);
+        assertThat(successTransactions).isEqualTo(succeeded.get());
+    }
+}
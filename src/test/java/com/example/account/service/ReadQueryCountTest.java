@@ -0,0 +1,188 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.BalanceHold;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.BalanceAsOfDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.BalanceHoldRepository;
+import com.example.account.type.HoldStatus;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 조회 요청마다 실행하는 SQL 문장 수를 고정해서, 지연 로딩이나 projection 이 깨져 문장이 늘면 실패하게 한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:read-query-count",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "account.lock.provider=in-process",
+        "account.transaction.cache.enabled=false",
+        "account.account-list.cache.enabled=false",
+        "account.balance.as-of.settle-time=0s"
+})
+class ReadQueryCountTest {
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BalanceHoldRepository balanceHoldRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void getAccountsByUserId_twoStatements() throws Exception {
+        //given
+        accountService.createAccount(3L, 1000L);
+        accountService.createAccount(3L, 2000L);
+        AccountDto split = accountService.createAccount(3L, 3005L);
+        accountService.splitBalance(3L, split.getAccountNumber(), 4);
+        statistics.clear();
+
+        //when
+        List<AccountDto> accounts = accountService.getAccountsByUserId(3L);
+
+        //then
+        assertThat(accounts).extracting(AccountDto::getBalance)
+                .containsExactly(1000L, 2000L, 3005L);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    public void queryTransaction_oneStatement() throws Exception {
+        //given
+        AccountDto account = accountService.createAccount(4L, 1000L);
+        String transactionId = transactionService.useBalance(4L, account.getAccountNumber(), 200L)
+                .getTransactionId();
+        statistics.clear();
+
+        //when
+        TransactionDto transaction = transactionService.queryTransaction(transactionId);
+
+        //then
+        assertThat(transaction.getAccountNumber()).isEqualTo(account.getAccountNumber());
+        assertThat(transaction.getTransactionType()).isEqualTo(USE);
+        assertThat(transaction.getAmount()).isEqualTo(200L);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    public void getTransactionHistory_sameStatementsOnLaterPages() throws Exception {
+        //given
+        AccountDto account = accountService.createAccount(1L, 10_000L);
+        for (int i = 0; i < 7; i++) {
+            transactionService.useBalance(1L, account.getAccountNumber(), 100L);
+        }
+        transactionService.saveFailedUseTransaction(account.getAccountNumber(), 100L);
+        List<String> pagedIds = new ArrayList<>();
+        String cursor = null;
+
+        //when
+        do {
+            statistics.clear();
+            TransactionHistoryDto page = transactionService.getTransactionHistory(
+                    account.getAccountNumber(), USE, S, cursor, 3);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            assertThat(statistics.getEntityLoadCount()).isZero();
+            page.getTransactions().forEach(transaction -> pagedIds.add(transaction.getTransactionId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        //then
+        assertThat(pagedIds).hasSize(7).doesNotHaveDuplicates();
+        assertThat(pagedIds).isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    @Test
+    public void getBalanceAsOf_oneSeekThenIndexed() throws Exception {
+        //given
+        AccountDto account = accountService.createAccount(2L, 10_000L);
+        transactionService.useBalance(2L, account.getAccountNumber(), 100L);
+        transactionService.useBalance(2L, account.getAccountNumber(), 200L);
+        LocalDateTime asOf = LocalDateTime.now();
+        statistics.clear();
+
+        //when
+        BalanceAsOfDto first = accountService.getBalanceAsOf(account.getAccountNumber(), asOf);
+        long firstStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        BalanceAsOfDto second = accountService.getBalanceAsOf(account.getAccountNumber(), asOf);
+
+        //then
+        assertThat(first.getBalance()).isEqualTo(9_700L);
+        assertThat(second.getBalance()).isEqualTo(9_700L);
+        // 계좌 조회와 거래 인덱스 탐색 한 번
+        assertThat(firstStatements).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void getAccount_oneStatementWithUser() throws Exception {
+        //given
+        AccountDto created = accountService.createAccount(5L, 1000L);
+        Long id = accountRepository.findByAccountNumber(created.getAccountNumber()).get().getId();
+        statistics.clear();
+
+        //when
+        Account account = accountService.getAccount(id);
+
+        //then
+        assertThat(Hibernate.isInitialized(account.getAccountUser())).isTrue();
+        assertThat(account.getAccountUser().getName()).isEqualTo("kein");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void findExpiredHolds_oneStatementWithAccount() throws Exception {
+        //given
+        AccountDto account = accountService.createAccount(6L, 10_000L);
+        for (int i = 0; i < 3; i++) {
+            transactionService.authorizeBalance(6L, account.getAccountNumber(), 100L);
+        }
+        statistics.clear();
+
+        //when
+        // 스위퍼가 먼저 해제하지 않도록 아직 기한이 남은 홀드를 기한 뒤 시각으로 찾는다.
+        List<BalanceHold> holds = balanceHoldRepository.findByHoldStatusAndExpiresAtBeforeOrderByExpiresAt(
+                HoldStatus.AUTHORIZED, LocalDateTime.now().plusYears(1), PageRequest.of(0, 100));
+
+        //then
+        assertThat(holds).filteredOn(hold -> hold.getAccount().getAccountNumber()
+                .equals(account.getAccountNumber())).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
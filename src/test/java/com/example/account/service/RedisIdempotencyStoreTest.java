@@ -0,0 +1,91 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RedisIdempotencyStoreTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RBucket<Object> bucket;
+
+    @InjectMocks
+    private RedisIdempotencyStore redisIdempotencyStore;
+
+    @Test
+    public void reserve_setIfAbsentWithTtl() {
+        //given
+        given(redissonClient.getBucket("IDEM:key", StringCodec.INSTANCE)).willReturn(bucket);
+        given(bucket.trySet("PENDING:hash", 30_000L, TimeUnit.MILLISECONDS)).willReturn(true);
+
+        //when
+        //then
+        assertThat(redisIdempotencyStore.reserve("key", "hash", 30_000L)).isTrue();
+    }
+
+    @Test
+    public void find_pendingWithRequestHash() {
+        //given
+        given(redissonClient.getBucket("IDEM:key", StringCodec.INSTANCE)).willReturn(bucket);
+        given(bucket.get()).willReturn("PENDING:hash");
+
+        //when
+        IdempotencyStore.StoredRequest stored = redisIdempotencyStore.find("key").get();
+
+        //then
+        assertThat(stored.getRequestHash()).isEqualTo("hash");
+        assertThat(stored.isCompleted()).isFalse();
+    }
+
+    @Test
+    public void find_completedWithRequestHash() {
+        //given
+        given(redissonClient.getBucket("IDEM:key", StringCodec.INSTANCE)).willReturn(bucket);
+        given(bucket.get()).willReturn("hash\n{\"amount\":1000}");
+
+        //when
+        IdempotencyStore.StoredRequest stored = redisIdempotencyStore.find("key").get();
+
+        //then
+        assertThat(stored.getRequestHash()).isEqualTo("hash");
+        assertThat(stored.getResponse()).isEqualTo("{\"amount\":1000}");
+    }
+
+    @Test
+    public void find_valueWithoutRequestHash_corrupt() {
+        //given
+        given(redissonClient.getBucket("IDEM:key", StringCodec.INSTANCE)).willReturn(bucket);
+        given(bucket.get()).willReturn("{\"amount\":1000}");
+
+        //when
+        //then
+        assertThrows(IllegalStateException.class, () -> redisIdempotencyStore.find("key"));
+    }
+
+    @Test
+    public void release_onlyPendingOfSameRequest() {
+        //given
+        given(redissonClient.getBucket("IDEM:key", StringCodec.INSTANCE)).willReturn(bucket);
+
+        //when
+        redisIdempotencyStore.release("key", "hash");
+
+        //then
+        verify(bucket).compareAndSet("PENDING:hash", null);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.misc.CompletableFutureWrapper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class RedissonLockProviderTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock rLock;
+
+    @InjectMocks
+    private RedissonLockProvider redissonLockProvider;
+
+    @Test
+    public void tryLock_withFixedLease() {
+        //given
+        given(redissonClient.getLock("ACLK:1000000000"))
+                .willReturn(rLock);
+        given(rLock.tryLockAsync(1000L, 15000L, TimeUnit.MILLISECONDS, 7L))
+                .willReturn(new CompletableFutureWrapper<>(true));
+
+        //when
+        //then
+        assertThat(redissonLockProvider.tryLockAsync("1000000000", 1000L, 15000L, 7L).join())
+                .isTrue();
+    }
+
+    @Test
+    public void tryLock_withWatchdog() {
+        //given
+        given(redissonClient.getLock("ACLK:1000000000"))
+                .willReturn(rLock);
+        given(rLock.tryLockAsync(1000L, -1L, TimeUnit.MILLISECONDS, 7L))
+                .willReturn(new CompletableFutureWrapper<>(true));
+
+        //when
+        //then
+        assertThat(redissonLockProvider.tryLockAsync("1000000000", 1000L, AccountLock.WATCHDOG, 7L).join())
+                .isTrue();
+    }
+}
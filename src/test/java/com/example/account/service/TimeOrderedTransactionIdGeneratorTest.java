@@ -0,0 +1,105 @@
+package com.example.account.service;
+
+import com.example.account.domain.CompactTransactionId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimeOrderedTransactionIdGeneratorTest {
+    private final TimeOrderedTransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(37L);
+
+    @Test
+    public void nextId_increasingAndCompact() {
+        //given
+        List<String> ids = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.nextId());
+        }
+
+        //then
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        assertThat(ids).allSatisfy(id -> assertThat(id).hasSize(CompactTransactionId.LENGTH));
+    }
+
+    @Test
+    public void nextNumber_containsNodeIdAndTime() {
+        //given
+        long before = System.currentTimeMillis() - TimeOrderedTransactionIdGenerator.EPOCH_MILLIS;
+
+        //when
+        long transactionNo = generator.nextNumber();
+
+        //then
+        long nodeId = (transactionNo >>> TimeOrderedTransactionIdGenerator.SEQUENCE_BITS)
+                & TimeOrderedTransactionIdGenerator.MAX_NODE_ID;
+        long timestamp = transactionNo >>> (TimeOrderedTransactionIdGenerator.NODE_ID_BITS
+                + TimeOrderedTransactionIdGenerator.SEQUENCE_BITS);
+        assertThat(nodeId).isEqualTo(37L);
+        assertThat(timestamp).isGreaterThanOrEqualTo(before);
+        assertThat(transactionNo).isPositive();
+    }
+
+    @Test
+    public void nextId_uniqueAcrossThreads() throws Exception {
+        //given
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 20_000; j++) {
+                    ids.add(generator.nextId());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        //then
+        assertThat(ids).hasSize(8 * 20_000);
+    }
+
+    @Test
+    public void invalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedTransactionIdGenerator(1024L));
+    }
+
+    @Test
+    public void withoutNodeId_failToStart() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new TimeOrderedTransactionIdGenerator(null));
+
+        assertThat(exception.getMessage()).contains("account.transaction-id.node-id");
+    }
+
+    @Test
+    public void derivedNodeId_onlyWhenMinusOne() {
+        assertThat(new TimeOrderedTransactionIdGenerator(-1L).getNodeId()).isBetween(0L, 1023L);
+    }
+
+    @Test
+    public void compactTransactionId_roundTrip() {
+        //given
+        long transactionNo = generator.nextNumber();
+
+        //when
+        String transactionId = CompactTransactionId.format(transactionNo);
+
+        //then
+        assertThat(CompactTransactionId.parse(transactionId)).hasValue(transactionNo);
+        assertThat(CompactTransactionId.parse("c8d1f3a0b2e94c7d8f6a5b4c3d2e1f00")).isEmpty();
+        assertThat(CompactTransactionId.parse("00F1A2B3C4D5E6F7")).isEmpty();
+    }
+}
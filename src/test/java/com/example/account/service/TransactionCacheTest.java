@@ -0,0 +1,143 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TransactionCacheTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @SuppressWarnings("unchecked")
+    private TransactionCache newCache(int maxEntries, DataSize maxWeight, RedissonClient redissonClient) {
+        ObjectProvider<RedissonClient> provider = mock(ObjectProvider.class);
+        given(provider.getIfAvailable()).willReturn(redissonClient);
+        return new TransactionCache(meterRegistry, objectMapper, provider,
+                true, maxEntries, maxWeight, redissonClient != null, Duration.ofHours(1));
+    }
+
+    private static TransactionDto transaction(String transactionId) {
+        return TransactionDto.builder()
+                .accountNumber("1000000012")
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId(transactionId)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("account.transaction.cache.requests").tag("result", result).counters().stream()
+                .mapToDouble(Counter::count).sum();
+    }
+
+    @Test
+    public void putThenFind_countHitAndMiss() {
+        //given
+        TransactionCache transactionCache = newCache(100, DataSize.ofMegabytes(1), null);
+        transactionCache.putAfterCommit(Collections.singletonList(transaction("00f1a2b3c4d5e6f7")));
+
+        //when
+        //then
+        assertThat(transactionCache.find("00f1a2b3c4d5e6f7")).get()
+                .extracting(TransactionDto::getAmount).isEqualTo(1000L);
+        assertThat(transactionCache.find("00f1a2b3c4d5e6f8")).isEmpty();
+        assertThat(requests("hit")).isEqualTo(1.0);
+        assertThat(requests("miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    public void overMaxEntries_evictLeastRecentlyUsed() {
+        //given
+        // 구역이 16개이므로 구역마다 1개
+        TransactionCache transactionCache = newCache(16, DataSize.ofMegabytes(1), null);
+
+        //when
+        for (int i = 0; i < 100; i++) {
+            transactionCache.put(transaction("transaction" + i));
+        }
+
+        //then
+        assertThat(transactionCache.size()).isLessThanOrEqualTo(16);
+        assertThat(transactionCache.find("transaction99")).isPresent();
+    }
+
+    @Test
+    public void overMaxWeight_evict() {
+        //given
+        int weight = TransactionCache.weigh(transaction("transaction0"));
+        TransactionCache transactionCache = newCache(10_000, DataSize.ofBytes(16L * weight * 2), null);
+
+        //when
+        for (int i = 0; i < 1000; i++) {
+            transactionCache.put(transaction("transaction" + (1000 + i)));
+        }
+
+        //then
+        assertThat(transactionCache.weight()).isLessThanOrEqualTo(16L * weight * 2);
+        assertThat(transactionCache.size()).isLessThanOrEqualTo(32);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void localMiss_readRedisThenKeepLocally() throws Exception {
+        //given
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RBucket<Object> bucket = mock(RBucket.class);
+        given(redissonClient.getBucket("TX:00f1a2b3c4d5e6f7", StringCodec.INSTANCE)).willReturn(bucket);
+        given(bucket.get()).willReturn(objectMapper.writeValueAsString(transaction("00f1a2b3c4d5e6f7")));
+        TransactionCache transactionCache = newCache(100, DataSize.ofMegabytes(1), redissonClient);
+
+        //when
+        transactionCache.find("00f1a2b3c4d5e6f7");
+        transactionCache.find("00f1a2b3c4d5e6f7");
+
+        //then
+        verify(bucket, times(1)).get();
+        assertThat(meterRegistry.get("account.transaction.cache.requests")
+                .tag("tier", "redis").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("account.transaction.cache.requests")
+                .tag("tier", "local").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void put_writeRedisWithTtl() {
+        //given
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RBucket<Object> bucket = mock(RBucket.class);
+        given(redissonClient.getBucket(anyString(), eq(StringCodec.INSTANCE))).willReturn(bucket);
+        TransactionCache transactionCache = newCache(100, DataSize.ofMegabytes(1), redissonClient);
+
+        //when
+        transactionCache.put(transaction("00f1a2b3c4d5e6f7"));
+
+        //then
+        verify(bucket).setAsync(anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.account.service;
+
+import com.example.account.type.TransactionExportFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportJobTest {
+    @Mock
+    private TransactionExporter transactionExporter;
+
+    @Mock
+    private ConfigurableApplicationContext applicationContext;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void run_writesFileAndGzipsByExtension() throws Exception {
+        //given
+        Path output = tempDir.resolve("statements.csv.gz");
+        TransactionExportJob job = new TransactionExportJob(transactionExporter, applicationContext,
+                output.toString(), TransactionExportFormat.CSV, "", "2026-09-01T00:00", "2026-10-01T00:00", false);
+        willAnswer(invocation -> {
+            invocation.getArgument(4, OutputStream.class).write("header\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        }).given(transactionExporter).export(any(), any(), any(), any(), any(), eq(true));
+
+        //when
+        job.run(new DefaultApplicationArguments());
+
+        //then
+        verify(transactionExporter).export(eq(TransactionExportFormat.CSV), isNull(),
+                eq(LocalDateTime.of(2026, 9, 1, 0, 0)), eq(LocalDateTime.of(2026, 10, 1, 0, 0)),
+                any(), eq(true));
+        assertThat(Files.readString(output)).isEqualTo("header\n");
+    }
+}
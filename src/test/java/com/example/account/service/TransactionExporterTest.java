@@ -0,0 +1,111 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.type.TransactionExportFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transaction-export",
+        "account.lock.provider=in-process",
+        "account.transaction.export.fetch-size=2",
+        "account.transaction.export.chunk-size=2"
+})
+class TransactionExporterTest {
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionExporter transactionExporter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void exportNdjson_flushedPerChunk() throws Exception {
+        //given
+        String accountNumber = accountWithTransactions(2L, 5);
+        FlushCountingOutputStream out = new FlushCountingOutputStream();
+
+        //when
+        long rows = transactionExporter.export(TransactionExportFormat.NDJSON, accountNumber,
+                null, null, out, false);
+
+        //then
+        List<String> lines = lines(out.toByteArray());
+        assertThat(rows).isEqualTo(5);
+        assertThat(lines).hasSize(5);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("accountNumber").asText()).isEqualTo(accountNumber);
+        assertThat(first.get("transactionType").asText()).isEqualTo("USE");
+        assertThat(first.get("transactionResult").asText()).isEqualTo("S");
+        assertThat(first.get("amount").asLong()).isEqualTo(100L);
+        assertThat(first.get("transactionId").asText()).hasSize(16);
+        // 2건마다 한 번씩, 마지막에 한 번 더
+        assertThat(out.flushes).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    public void exportCsv_gzip() throws Exception {
+        //given
+        String accountNumber = accountWithTransactions(3L, 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        long rows = transactionExporter.export(TransactionExportFormat.CSV, accountNumber,
+                null, null, out, true);
+
+        //then
+        List<String> lines = lines(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes());
+        assertThat(rows).isEqualTo(3);
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).startsWith("transactionId,accountNumber,");
+        assertThat(lines.subList(1, 4)).allSatisfy(line -> {
+            String[] columns = line.split(",", -1);
+            assertThat(columns).hasSize(8);
+            assertThat(columns[1]).isEqualTo(accountNumber);
+            assertThat(columns[2]).isEqualTo("USE");
+        });
+    }
+
+    private String accountWithTransactions(Long userId, int transactions) {
+        AccountDto account = accountService.createAccount(userId, 10_000L);
+        for (int i = 0; i < transactions; i++) {
+            transactionService.useBalance(userId, account.getAccountNumber(), 100L);
+        }
+        return account.getAccountNumber();
+    }
+
+    private static List<String> lines(byte[] bytes) {
+        return Arrays.stream(new String(bytes, StandardCharsets.UTF_8).split("\n"))
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static class FlushCountingOutputStream extends ByteArrayOutputStream {
+        private int flushes;
+
+        @Override
+        public void flush() throws IOException {
+            flushes++;
+            super.flush();
+        }
+    }
+}
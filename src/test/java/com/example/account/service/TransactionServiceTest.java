@@ -2,27 +2,59 @@ package com.example.account.service;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.BalanceHold;
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionHistoryCursor;
+import com.example.account.dto.BatchItemDto;
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.FailedTransactionDto;
+import com.example.account.dto.HoldDto;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.dto.TransactionHistoryItem;
+import com.example.account.dto.TransactionSummary;
+import com.example.account.dto.TransferDto;
+import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.BalanceHoldRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
+import com.example.account.type.BalanceConcurrencyMode;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.HoldStatus;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static com.example.account.type.AccountStatus.*;
 import static com.example.account.type.TransactionResultType.*;
@@ -31,6 +63,11 @@ import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -46,10 +83,59 @@ class TransactionServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private BalanceMailbox balanceMailbox;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private WriteBehindLedger writeBehindLedger;
+
+    @Mock
+    private EventSourcedLedger eventSourcedLedger;
+
+    @Mock
+    private DebitCoalescer debitCoalescer;
+
+    @Mock
+    private BalanceSlotService balanceSlotService;
+
+    @Mock
+    private BalanceHoldRepository balanceHoldRepository;
+
+    @Mock
+    private TransactionCache transactionCache;
+
+    @Mock
+    private AccountListCache accountListCache;
+
+    @Spy
+    private TransactionIdGenerator transactionIdGenerator = new TimeOrderedTransactionIdGenerator(1L);
+
+    @Captor
+    private ArgumentCaptor<List<Transaction>> transactionsCaptor;
 
     @InjectMocks
     private TransactionService transactionService;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionService, "concurrencyMode", BalanceConcurrencyMode.LOCK);
+        ReflectionTestUtils.setField(transactionService, "transactionExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(transactionService, "holdTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(transactionService, "maxHistoryPageSize", 100);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(TransactionServiceTest::inTransaction);
+    }
+
+    private static Object inTransaction(InvocationOnMock invocation) {
+        return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+    }
+
     @Test
     public void successUseBalance() throws Exception{
         //given
@@ -83,6 +169,8 @@ class TransactionServiceTest {
 
         //then
         verify(transactionRepository, times(1)).save(captor.capture());
+        verify(transactionCache).putAfterCommit(anyList());
+        verify(accountListCache).evictAfterCompletion(12L);
         assertThat(captor.getValue().getAccount().getBalance()).isEqualTo(9800L);
         assertThat(captor.getValue().getBalanceSnapshot()).isEqualTo(9800L);
         assertThat(transactionDto.getBalanceSnapshot()).isEqualTo(9000L);
@@ -444,7 +532,7 @@ class TransactionServiceTest {
     }
 
     @Test
-    public void successQueryTransaction() throws Exception{
+    public void saveFailedUseTransaction_pendingBalanceOnlyInSnapshot() throws Exception{
         //given
         AccountUser user = AccountUser.builder()
                 .name("Pobi").build();
@@ -454,32 +542,116 @@ class TransactionServiceTest {
                 .accountUser(user)
                 .balance(10000L)
                 .accountNumber("1000000012").build();
-        account.setId(1L);
-        Transaction transaction = Transaction.builder()
-                .account(account)
-                .transactionType(USE)
-                .transactionResultType(S)
-                .transactionId("transactionId")
-                .transactedAt(LocalDateTime.now().minusYears(1).minusDays(1))
-                .amount(200L)
-                .balanceSnapshot(9000L)
-                .build();
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(writeBehindLedger.pendingBalance("1000000012")).willReturn(OptionalLong.of(3000L));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        transactionService.saveFailedUseTransaction("1000000012", 200L);
+
+        //then
+        verify(transactionRepository, times(1)).save(captor.capture());
+        assertThat(captor.getValue().getBalanceSnapshot()).isEqualTo(3000L);
+        // 아직 반영하지 않은 잔액을 관리 중인 Account 에 쓰지 않는다.
+        assertThat(account.getBalance()).isEqualTo(10000L);
+    }
+
+    @Test
+    public void saveFailedTransactions_readAccountOnce() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(account));
+        given(accountRepository.findByAccountNumber("1000000099"))
+                .willReturn(Optional.empty());
+        LocalDateTime failedAt = LocalDateTime.now().minusSeconds(1);
+
+        //when
+        transactionService.saveFailedTransactions(Arrays.asList(
+                new FailedTransactionDto(USE, "1000000012", 200L, failedAt),
+                new FailedTransactionDto(CANCEL, "1000000012", 300L, failedAt),
+                new FailedTransactionDto(USE, "1000000099", 400L, failedAt)));
+
+        //then
+        verify(accountRepository, times(1)).findByAccountNumber("1000000012");
+        verify(transactionRepository, times(1)).saveAll(transactionsCaptor.capture());
+        assertThat(transactionsCaptor.getValue()).extracting(Transaction::getTransactionType)
+                .containsExactly(USE, CANCEL);
+        assertThat(transactionsCaptor.getValue()).extracting(Transaction::getTransactionResultType)
+                .containsOnly(F);
+        assertThat(transactionsCaptor.getValue()).extracting(Transaction::getBalanceSnapshot)
+                .containsOnly(10000L);
+        assertThat(transactionsCaptor.getValue()).extracting(Transaction::getTransactedAt)
+                .containsOnly(failedAt);
+    }
+
+    @Test
+    public void successQueryTransaction() throws Exception{
+        //given
+        given(transactionRepository.findSummaryByTransactionId(anyString()))
+                .willReturn(Optional.of(new TransactionSummary("1000000012", USE, S,
+                        "transactionId", null, 200L, LocalDateTime.now().minusYears(1).minusDays(1))));
         //when
         TransactionDto transactionDto = transactionService.queryTransaction("trxId");
         //then
+        assertThat(transactionDto.getAccountNumber()).isEqualTo("1000000012");
         assertThat(transactionDto.getTransactionType()).isEqualTo(USE);
         assertThat(transactionDto.getTransactionResultType()).isEqualTo(S);
         assertThat(transactionDto.getAmount()).isEqualTo(200L);
         assertThat(transactionDto.getTransactionId()).isEqualTo("transactionId");
+        verify(transactionRepository, never()).findByTransactionId(anyString());
+        verify(transactionCache).put(transactionDto);
+    }
+
+    @Test
+    public void queryTransaction_cacheHit() throws Exception{
+        //given
+        TransactionDto cached = TransactionDto.builder()
+                .accountNumber("1000000012")
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId("00f1a2b3c4d5e6f7")
+                .amount(200L)
+                .build();
+        given(transactionCache.find("00f1a2b3c4d5e6f7")).willReturn(Optional.of(cached));
+
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("00f1a2b3c4d5e6f7");
+
+        //then
+        assertThat(transactionDto).isSameAs(cached);
+        verify(transactionRepository, never()).findSummaryByTransactionNo(anyLong());
+        verify(writeBehindLedger, never()).findPending(anyString());
+    }
+
+    @Test
+    public void queryTransaction_byCompactTransactionId() throws Exception{
+        //given
+        given(transactionRepository.findSummaryByTransactionNo(0x00f1a2b3c4d5e6f7L))
+                .willReturn(Optional.of(new TransactionSummary("1000000012", USE, S,
+                        null, 0x00f1a2b3c4d5e6f7L, 200L, LocalDateTime.now())));
+
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("00f1a2b3c4d5e6f7");
 
+        //then
+        verify(transactionRepository, never()).findSummaryByTransactionId(anyString());
+        assertThat(transactionDto.getTransactionId()).isEqualTo("00f1a2b3c4d5e6f7");
     }
 
     @Test
     void queryTransaction_TransactionNotFound(){
         //given
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findSummaryByTransactionId(anyString()))
                 .willReturn(Optional.empty());
 
 
@@ -490,4 +662,876 @@ class TransactionServiceTest {
         //then
         assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.TRANSACTION_NOT_FOUND);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getTransactionHistory_firstPageHasNextCursor() throws Exception{
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        given(accountRepository.findIdByAccountNumber("1000000012"))
+                .willReturn(Optional.of(7L));
+        given(transactionRepository.findHistory(eq(7L), eq(USE), isNull(), any()))
+                .willReturn(Arrays.asList(
+                        new TransactionHistoryItem(3L, USE, S, null, 0x00f1a2b3c4d5e6f7L, 300L, 700L, now),
+                        new TransactionHistoryItem(2L, USE, F, "transactionId", null, 200L, 1000L, now),
+                        new TransactionHistoryItem(1L, USE, S, "transactionId2", null, 100L, 1000L,
+                                now.minusSeconds(1))));
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+
+        //when
+        TransactionHistoryDto history = transactionService.getTransactionHistory(
+                "1000000012", USE, null, null, 2);
+
+        //then
+        verify(transactionRepository).findHistory(eq(7L), eq(USE), isNull(), captor.capture());
+        assertThat(captor.getValue().getPageSize()).isEqualTo(3);
+        assertThat(history.getTransactions()).extracting(TransactionDto::getTransactionId)
+                .containsExactly("00f1a2b3c4d5e6f7", "transactionId");
+        assertThat(history.getTransactions()).extracting(TransactionDto::getAccountNumber)
+                .containsOnly("1000000012");
+        TransactionHistoryCursor cursor = TransactionHistoryCursor.decode(history.getNextCursor());
+        assertThat(cursor.getTransactedAt()).isEqualTo(now);
+        assertThat(cursor.getId()).isEqualTo(2L);
+    }
+
+    @Test
+    public void getTransactionHistory_lastPageAfterCursor() throws Exception{
+        //given
+        LocalDateTime transactedAt = LocalDateTime.now();
+        given(accountRepository.findIdByAccountNumber("1000000012"))
+                .willReturn(Optional.of(7L));
+        given(transactionRepository.findHistoryBefore(
+                eq(7L), isNull(), isNull(), eq(transactedAt), eq(2L), any()))
+                .willReturn(Arrays.asList(
+                        new TransactionHistoryItem(1L, USE, S, "transactionId", null, 100L, 1000L,
+                                transactedAt.minusSeconds(1))));
+
+        //when
+        TransactionHistoryDto history = transactionService.getTransactionHistory("1000000012", null, null,
+                new TransactionHistoryCursor(transactedAt, 2L).encode(), 2);
+
+        //then
+        verify(transactionRepository, never()).findHistory(anyLong(), any(), any(), any());
+        assertThat(history.getTransactions()).hasSize(1);
+        assertThat(history.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getTransactionHistory_invalidCursor(){
+        //given
+        given(accountRepository.findIdByAccountNumber("1000000012"))
+                .willReturn(Optional.of(7L));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory("1000000012", null, null, "not-a-cursor", 20));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.INVALID_REQUEST);
+    }
+
+    @Test
+    void getTransactionHistory_pageSizeTooLarge(){
+        //given
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory("1000000012", null, null, null, 101));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.INVALID_REQUEST);
+        verify(accountRepository, never()).findIdByAccountNumber(anyString());
+    }
+
+    @Test
+    public void optimisticMode_retryOnVersionConflict() throws Exception{
+        //given
+        ReflectionTestUtils.setField(transactionService, "concurrencyMode", BalanceConcurrencyMode.OPTIMISTIC);
+        ReflectionTestUtils.setField(transactionService, "optimisticMaxAttempts", 3);
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        willThrow(new ObjectOptimisticLockingFailureException(Account.class, 1L))
+                .willAnswer(TransactionServiceTest::inTransaction)
+                .given(transactionTemplate).execute(any());
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(1L, "1000000012", 200L);
+
+        //then
+        verify(transactionTemplate, times(2)).execute(any());
+        assertThat(transactionDto.getTransactionResultType()).isEqualTo(S);
+    }
+
+    @Test
+    public void optimisticMode_failAfterMaxAttempts() throws Exception{
+        //given
+        ReflectionTestUtils.setField(transactionService, "concurrencyMode", BalanceConcurrencyMode.OPTIMISTIC);
+        ReflectionTestUtils.setField(transactionService, "optimisticMaxAttempts", 3);
+        willThrow(new ObjectOptimisticLockingFailureException(Account.class, 1L))
+                .given(transactionTemplate).execute(any());
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(1L, "1000000012", 200L));
+
+        //then
+        verify(transactionTemplate, times(3)).execute(any());
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+    }
+
+    @Test
+    public void lockMode_doNotRetryOnVersionConflict() throws Exception{
+        //given
+        willThrow(new ObjectOptimisticLockingFailureException(Account.class, 1L))
+                .given(transactionTemplate).execute(any());
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(1L, "1000000012", 200L));
+
+        //then
+        verify(transactionTemplate, times(1)).execute(any());
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+    }
+
+    @Test
+    public void lockMode_retryOnBalanceSlotConflict() throws Exception{
+        //given
+        ReflectionTestUtils.setField(transactionService, "optimisticMaxAttempts", 3);
+        willThrow(new BalanceSlotService.SlotConflictException("1000000012"))
+                .willAnswer(TransactionServiceTest::inTransaction)
+                .given(transactionTemplate).execute(any());
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(0L)
+                .balanceSlots(4)
+                .accountNumber("1000000012").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(balanceSlotService.totalBalance(account)).willReturn(9800L);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", 200L);
+
+        //then
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(balanceSlotService, times(1)).debit(account, 200L);
+        assertThat(account.getBalance()).isEqualTo(0L);
+        assertThat(transactionDto.getBalanceSnapshot()).isEqualTo(9800L);
+    }
+
+    @Test
+    public void splitBalance_transferDepositToSlot() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account fromAccount = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        fromAccount.setId(1L);
+        Account toAccount = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(0L)
+                .balanceSlots(4)
+                .accountNumber("1000000013").build();
+        toAccount.setId(2L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(fromAccount));
+        given(accountRepository.findByAccountNumber("1000000013"))
+                .willReturn(Optional.of(toAccount));
+        given(balanceSlotService.totalBalance(toAccount)).willReturn(5000L);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        TransferDto transferDto = transactionService.transferBalance(12L, "1000000012", "1000000013", 1000L);
+
+        //then
+        verify(balanceSlotService, times(1)).credit(toAccount, 1000L);
+        assertThat(fromAccount.getBalance()).isEqualTo(9000L);
+        assertThat(toAccount.getBalance()).isEqualTo(0L);
+        assertThat(transferDto.getWithdraw().getBalanceSnapshot()).isEqualTo(9000L);
+        assertThat(transferDto.getDeposit().getBalanceSnapshot()).isEqualTo(5000L);
+    }
+
+    @Test
+    public void mailboxMode_submitToAccountMailbox() throws Exception{
+        //given
+        ReflectionTestUtils.setField(transactionService, "concurrencyMode", BalanceConcurrencyMode.MAILBOX);
+        CompletableFuture<TransactionDto> submitted = new CompletableFuture<>();
+        given(balanceMailbox.<TransactionDto>submit(eq("1000000012"), any()))
+                .willReturn(submitted);
+
+        //when
+        CompletableFuture<TransactionDto> result = transactionService.useBalanceAsync(1L, "1000000012", 200L);
+
+        //then
+        assertThat(result).isSameAs(submitted);
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    public void lockMode_runBalanceChangeInCallerThread() throws Exception{
+        //given
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.empty());
+
+        //when
+        CompletableFuture<TransactionDto> result = transactionService.useBalanceAsync(1L, "1000000012", 200L);
+
+        //then
+        assertThat(result).isCompletedExceptionally();
+        verify(balanceMailbox, never()).submit(anyString(), any());
+    }
+
+    @Test
+    public void successTransferBalance() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account fromAccount = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        fromAccount.setId(1L);
+        Account toAccount = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(500L)
+                .accountNumber("1000000013").build();
+        toAccount.setId(2L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(fromAccount));
+        given(accountRepository.findByAccountNumber("1000000013"))
+                .willReturn(Optional.of(toAccount));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        TransferDto transferDto = transactionService.transferBalance(12L, "1000000012", "1000000013", 1000L);
+
+        //then
+        verify(transactionRepository, times(2)).save(captor.capture());
+        assertThat(captor.getAllValues()).extracting(Transaction::getTransactionType)
+                .containsExactly(TRANSFER_OUT, TRANSFER_IN);
+        assertThat(captor.getAllValues()).extracting(Transaction::getBalanceSnapshot)
+                .containsExactly(9000L, 1500L);
+        assertThat(captor.getAllValues()).extracting(Transaction::getTransferId)
+                .containsOnly(transferDto.getTransferId());
+        assertThat(transferDto.getWithdraw().getTransactionId())
+                .isNotEqualTo(transferDto.getDeposit().getTransactionId());
+    }
+
+    @Test
+    public void transferBalance_sameAccount() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        account.setId(1L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(12L, "1000000012", "1000000012", 1000L));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.TRANSFER_TO_SAME_ACCOUNT);
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    public void transferBalance_exceedBalance() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account fromAccount = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(100L)
+                .accountNumber("1000000012").build();
+        fromAccount.setId(1L);
+        Account toAccount = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(500L)
+                .accountNumber("1000000013").build();
+        toAccount.setId(2L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(fromAccount));
+        given(accountRepository.findByAccountNumber("1000000013"))
+                .willReturn(Optional.of(toAccount));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(12L, "1000000012", "1000000013", 1000L));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        assertThat(toAccount.getBalance()).isEqualTo(500L);
+    }
+
+    @Test
+    public void useBalanceBatch_lockOncePerAccount() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(1000L)
+                .accountNumber("1000000012").build();
+        Account otherAccount = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(1000L)
+                .accountNumber("1000000013").build();
+        given(lockService.lockAsync(anyString()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(account));
+        given(accountRepository.findByAccountNumber("1000000013"))
+                .willReturn(Optional.of(otherAccount));
+        given(accountUserRepository.findAllById(any()))
+                .willReturn(Collections.singletonList(user));
+        List<UseBalance.Request> items = Arrays.asList(
+                new UseBalance.Request(12L, "1000000012", 600L),
+                new UseBalance.Request(12L, "1000000013", 100L),
+                new UseBalance.Request(12L, "1000000012", 600L),
+                new UseBalance.Request(12L, "1000000012", 400L));
+
+        //when
+        List<BatchItemDto> results = transactionService.useBalanceBatchAsync(items).join();
+
+        //then
+        verify(lockService, times(1)).lockAsync("1000000012");
+        verify(lockService, times(1)).lockAsync("1000000013");
+        verify(lockService, times(1)).unlock("1000000012");
+        verify(accountRepository, times(1)).findByAccountNumber("1000000012");
+        verify(transactionRepository, times(2)).saveAll(any());
+        assertThat(results).extracting(BatchItemDto::getErrorCode)
+                .containsExactly(null, null, ErrorCode.AMOUNT_EXCEED_BALANCE, null);
+        assertThat(results).extracting(result -> result.getTransaction().getTransactionResultType())
+                .containsExactly(S, S, F, S);
+        assertThat(account.getBalance()).isEqualTo(0L);
+        assertThat(otherAccount.getBalance()).isEqualTo(900L);
+    }
+
+    @Test
+    public void coalescedUseBalance_commitOnceForHotAccount() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(1000L)
+                .accountNumber("1000000012").build();
+        DebitCoalescer coalescer = new DebitCoalescer(new SimpleMeterRegistry(), true, Duration.ofHours(1), 3);
+        ReflectionTestUtils.setField(transactionService, "debitCoalescer", coalescer);
+        given(lockService.lockAsync(anyString()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(account));
+        given(accountUserRepository.findAllById(any()))
+                .willReturn(Collections.singletonList(user));
+
+        //when
+        CompletableFuture<TransactionDto> first = transactionService.useBalanceAsync(12L, "1000000012", 600L);
+        CompletableFuture<TransactionDto> second = transactionService.useBalanceAsync(12L, "1000000012", 600L);
+        CompletableFuture<TransactionDto> third = transactionService.useBalanceAsync(12L, "1000000012", 400L);
+
+        //then
+        assertThat(first.join().getBalanceSnapshot()).isEqualTo(400L);
+        CompletionException exception = assertThrows(CompletionException.class, second::join);
+        assertThat(((AccountException) exception.getCause()).getErrorCode())
+                .isEqualTo(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        assertThat(third.join().getBalanceSnapshot()).isEqualTo(0L);
+        verify(lockService, times(1)).lockAsync("1000000012");
+        verify(lockService, times(1)).unlock("1000000012");
+        verify(accountRepository, times(1)).findByAccountNumber("1000000012");
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(transactionRepository, times(1)).saveAll(transactionsCaptor.capture());
+        // 실패한 요청의 거래는 컨트롤러가 FailedTransactionRecorder 로 남긴다.
+        assertThat(transactionsCaptor.getValue()).extracting(Transaction::getTransactionResultType)
+                .containsExactly(S, S);
+        coalescer.shutdown();
+    }
+
+    @Test
+    public void useBalanceBatch_lockFailed_recordFailedTransactions() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(1000L)
+                .accountNumber("1000000012").build();
+        given(lockService.lockAsync(anyString()))
+                .willReturn(CompletableFuture.failedFuture(
+                        new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK)));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(account));
+        List<UseBalance.Request> items = Arrays.asList(
+                new UseBalance.Request(12L, "1000000012", 100L),
+                new UseBalance.Request(12L, "1000000012", 200L));
+
+        //when
+        List<BatchItemDto> results = transactionService.useBalanceBatchAsync(items).join();
+
+        //then
+        verify(transactionRepository, times(1)).saveAll(transactionsCaptor.capture());
+        assertThat(transactionsCaptor.getValue()).extracting(Transaction::getTransactionResultType)
+                .containsExactly(F, F);
+        assertThat(results).extracting(BatchItemDto::getErrorCode)
+                .containsOnly(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        verify(lockService, never()).unlock(anyString());
+        assertThat(account.getBalance()).isEqualTo(1000L);
+    }
+
+    @Test
+    public void useBalanceBatch_accountNotFound() throws Exception{
+        //given
+        given(lockService.lockAsync(anyString()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.empty());
+
+        //when
+        List<BatchItemDto> results = transactionService.useBalanceBatchAsync(Collections.singletonList(
+                new UseBalance.Request(12L, "1000000012", 100L))).join();
+
+        //then
+        assertThat(results.get(0).getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_NOT_FOUND);
+        assertThat(results.get(0).getTransaction()).isNull();
+        verify(transactionRepository, never()).saveAll(any());
+        verify(lockService, times(1)).unlock("1000000012");
+    }
+
+    @Test
+    public void journalMode_useBalanceFromPendingBalance() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        TransactionStatus status = mock(TransactionStatus.class);
+        willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(status))
+                .given(transactionTemplate).execute(any());
+        given(writeBehindLedger.isEnabled()).willReturn(true);
+        given(writeBehindLedger.pendingBalance("1000000012")).willReturn(OptionalLong.of(3000L));
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", 1000L);
+
+        //then
+        verify(writeBehindLedger, times(1)).record(transactionsCaptor.capture());
+        verify(transactionRepository, never()).save(any());
+        verify(status, times(1)).setRollbackOnly();
+        assertThat(transactionsCaptor.getValue()).hasSize(1);
+        assertThat(transactionDto.getBalanceSnapshot()).isEqualTo(2000L);
+    }
+
+    @Test
+    public void journalMode_splitAccountNotSupported() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(0L)
+                .balanceSlots(4)
+                .accountNumber("1000000012").build();
+        TransactionStatus status = mock(TransactionStatus.class);
+        willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(status))
+                .given(transactionTemplate).execute(any());
+        given(writeBehindLedger.isEnabled()).willReturn(true);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000012", 1000L));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.INVALID_REQUEST);
+        verify(balanceSlotService, never()).debit(any(), anyLong());
+        verify(writeBehindLedger, never()).record(any());
+    }
+
+    @Test
+    public void journalMode_transferInOneRecord() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account fromAccount = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        fromAccount.setId(1L);
+        Account toAccount = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(500L)
+                .accountNumber("1000000013").build();
+        toAccount.setId(2L);
+        willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                .doInTransaction(mock(TransactionStatus.class)))
+                .given(transactionTemplate).execute(any());
+        given(writeBehindLedger.isEnabled()).willReturn(true);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(fromAccount));
+        given(accountRepository.findByAccountNumber("1000000013"))
+                .willReturn(Optional.of(toAccount));
+
+        //when
+        transactionService.transferBalance(12L, "1000000012", "1000000013", 1000L);
+
+        //then
+        verify(writeBehindLedger, times(1)).record(transactionsCaptor.capture());
+        verify(transactionRepository, never()).save(any());
+        assertThat(transactionsCaptor.getValue()).extracting(Transaction::getTransactionType)
+                .containsExactly(TRANSFER_OUT, TRANSFER_IN);
+        assertThat(transactionsCaptor.getValue()).extracting(Transaction::getBalanceSnapshot)
+                .containsExactly(9000L, 1500L);
+    }
+
+    @Test
+    public void journalMode_cancelPendingTransaction() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(9000L)
+                .accountNumber("1000000012").build();
+        account.setId(1L);
+        Transaction pending = Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId("00f1a2b3c4d5e6f7")
+                .transactedAt(LocalDateTime.now())
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .build();
+        given(writeBehindLedger.findPending("00f1a2b3c4d5e6f7")).willReturn(Optional.of(pending));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        TransactionDto transactionDto = transactionService.cancelBalance("00f1a2b3c4d5e6f7", "1000000012", 1000L);
+
+        //then
+        verify(transactionRepository, never()).findByTransactionNo(anyLong());
+        assertThat(transactionDto.getTransactionType()).isEqualTo(CANCEL);
+        assertThat(transactionDto.getBalanceSnapshot()).isEqualTo(10000L);
+    }
+
+    @Test
+    public void successAuthorizeBalance() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(balanceHoldRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        HoldDto holdDto = transactionService.authorizeBalance(12L, "1000000012", 3000L);
+
+        //then
+        assertThat(account.getBalance()).isEqualTo(10000L);
+        assertThat(account.availableBalance()).isEqualTo(7000L);
+        assertThat(holdDto.getHoldStatus()).isEqualTo(HoldStatus.AUTHORIZED);
+        assertThat(holdDto.getAmount()).isEqualTo(3000L);
+        assertThat(holdDto.getExpiresAt()).isAfter(holdDto.getAuthorizedAt());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    public void authorizeBalance_exceedAvailableBalance() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(10000L)
+                .heldBalance(8000L)
+                .accountNumber("1000000012").build();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.authorizeBalance(12L, "1000000012", 3000L));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        verify(balanceHoldRepository, never()).save(any());
+    }
+
+    @Test
+    public void authorizeBalance_journalModeNotSupported() throws Exception{
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountStatus(IN_USE)
+                        .accountUser(user)
+                        .balance(10000L)
+                        .accountNumber("1000000012").build()));
+        given(writeBehindLedger.isEnabled()).willReturn(true);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.authorizeBalance(12L, "1000000012", 3000L));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.INVALID_REQUEST);
+    }
+
+    @Test
+    public void successCaptureBalance() throws Exception{
+        //given
+        Account account = heldAccount();
+        BalanceHold hold = authorizedHold(account, LocalDateTime.now().plusMinutes(5));
+        given(balanceHoldRepository.findByHoldId("holdId")).willReturn(Optional.of(hold));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        TransactionDto transactionDto = transactionService.captureBalance("holdId", "1000000012");
+
+        //then
+        assertThat(account.getBalance()).isEqualTo(7000L);
+        assertThat(account.availableBalance()).isEqualTo(7000L);
+        assertThat(transactionDto.getTransactionType()).isEqualTo(USE);
+        assertThat(transactionDto.getAmount()).isEqualTo(3000L);
+        assertThat(transactionDto.getBalanceSnapshot()).isEqualTo(7000L);
+        assertThat(hold.getHoldStatus()).isEqualTo(HoldStatus.CAPTURED);
+        assertThat(hold.getTransactionId()).isEqualTo(transactionDto.getTransactionId());
+    }
+
+    @Test
+    public void captureBalance_expired() throws Exception{
+        //given
+        Account account = heldAccount();
+        BalanceHold hold = authorizedHold(account, LocalDateTime.now().minusSeconds(1));
+        given(balanceHoldRepository.findByHoldId("holdId")).willReturn(Optional.of(hold));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.captureBalance("holdId", "1000000012"));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.HOLD_EXPIRED);
+        assertThat(account.getBalance()).isEqualTo(10000L);
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    public void captureBalance_alreadyVoided() throws Exception{
+        //given
+        Account account = heldAccount();
+        BalanceHold hold = authorizedHold(account, LocalDateTime.now().plusMinutes(5));
+        hold.setHoldStatus(HoldStatus.VOIDED);
+        given(balanceHoldRepository.findByHoldId("holdId")).willReturn(Optional.of(hold));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.captureBalance("holdId", "1000000012"));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.HOLD_ALREADY_CLOSED);
+    }
+
+    @Test
+    public void captureBalance_accountUnMatch() throws Exception{
+        //given
+        Account account = heldAccount();
+        BalanceHold hold = authorizedHold(account, LocalDateTime.now().plusMinutes(5));
+        Account otherAccount = Account.builder()
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000013").build();
+        otherAccount.setId(2L);
+        given(balanceHoldRepository.findByHoldId("holdId")).willReturn(Optional.of(hold));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(otherAccount));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.captureBalance("holdId", "1000000013"));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.HOLD_ACCOUNT_UN_MATCH);
+    }
+
+    @Test
+    public void successVoidBalance() throws Exception{
+        //given
+        Account account = heldAccount();
+        BalanceHold hold = authorizedHold(account, LocalDateTime.now().plusMinutes(5));
+        given(balanceHoldRepository.findByHoldId("holdId")).willReturn(Optional.of(hold));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        HoldDto holdDto = transactionService.voidBalance("holdId", "1000000012");
+
+        //then
+        assertThat(holdDto.getHoldStatus()).isEqualTo(HoldStatus.VOIDED);
+        assertThat(account.getBalance()).isEqualTo(10000L);
+        assertThat(account.availableBalance()).isEqualTo(10000L);
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    public void expireHold_skipCapturedHold() throws Exception{
+        //given
+        Account account = heldAccount();
+        BalanceHold hold = authorizedHold(account, LocalDateTime.now().minusSeconds(1));
+        hold.setHoldStatus(HoldStatus.CAPTURED);
+        given(balanceHoldRepository.findByHoldId("holdId")).willReturn(Optional.of(hold));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        HoldDto holdDto = transactionService.expireHold("holdId", "1000000012");
+
+        //then
+        assertThat(holdDto.getHoldStatus()).isEqualTo(HoldStatus.CAPTURED);
+        assertThat(account.availableBalance()).isEqualTo(7000L);
+        verify(balanceHoldRepository, never()).save(any());
+    }
+
+    @Test
+    public void successExpireHold() throws Exception{
+        //given
+        Account account = heldAccount();
+        BalanceHold hold = authorizedHold(account, LocalDateTime.now().minusSeconds(1));
+        given(balanceHoldRepository.findByHoldId("holdId")).willReturn(Optional.of(hold));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        HoldDto holdDto = transactionService.expireHold("holdId", "1000000012");
+
+        //then
+        assertThat(holdDto.getHoldStatus()).isEqualTo(HoldStatus.EXPIRED);
+        assertThat(account.availableBalance()).isEqualTo(10000L);
+    }
+
+    private static Account heldAccount() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountUser(user)
+                .balance(10000L)
+                .heldBalance(3000L)
+                .accountNumber("1000000012").build();
+        account.setId(1L);
+        return account;
+    }
+
+    private static BalanceHold authorizedHold(Account account, LocalDateTime expiresAt) {
+        return BalanceHold.builder()
+                .account(account)
+                .holdId("holdId")
+                .amount(3000L)
+                .holdStatus(HoldStatus.AUTHORIZED)
+                .authorizedAt(expiresAt.minusMinutes(10))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
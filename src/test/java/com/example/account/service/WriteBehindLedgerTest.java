@@ -0,0 +1,316 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.BalanceConcurrencyMode;
+import com.example.account.type.JournalDurability;
+import com.example.account.type.LedgerWriteMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+import static com.example.account.type.ErrorCode.LEDGER_SYNC_FAILED;
+import static com.example.account.type.ErrorCode.TRANSACTION_QUEUE_FULL;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindLedgerTest {
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private AccountListCache accountListCache;
+
+    @Captor
+    private ArgumentCaptor<List<Transaction>> transactionsCaptor;
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TransactionIdGenerator transactionIdGenerator = new TimeOrderedTransactionIdGenerator(1L);
+    private final List<WriteBehindLedger> ledgers = new ArrayList<>();
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        account = Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000012")
+                .balance(10000L)
+                .build();
+        account.setId(1L);
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(accountRepository.findAllById(any())).thenReturn(Collections.singletonList(account));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (WriteBehindLedger ledger : ledgers) {
+            ledger.shutdown();
+        }
+    }
+
+    private WriteBehindLedger ledger(DataSize capacity) {
+        WriteBehindLedger ledger = new WriteBehindLedger(
+                transactionRepository, accountRepository, transactionTemplate, meterRegistry, accountListCache);
+        ReflectionTestUtils.setField(ledger, "writeMode", LedgerWriteMode.JOURNAL);
+        ReflectionTestUtils.setField(ledger, "concurrencyMode", BalanceConcurrencyMode.LOCK);
+        ReflectionTestUtils.setField(ledger, "path", tempDir.resolve("ledger.journal").toString());
+        ReflectionTestUtils.setField(ledger, "capacity", capacity);
+        ReflectionTestUtils.setField(ledger, "durability", JournalDurability.FSYNC);
+        ReflectionTestUtils.setField(ledger, "syncInterval", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(ledger, "syncBatchSize", 16);
+        // 테스트에서는 직접 flush 한다.
+        ReflectionTestUtils.setField(ledger, "flushInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(ledger, "flushBatchSize", 5000);
+        ledgers.add(ledger);
+        return ledger;
+    }
+
+    private Transaction useTransaction(long balanceSnapshot) {
+        return Transaction.builder()
+                .transactionType(USE)
+                .transactionResultType(S)
+                .account(account)
+                .amount(1000L)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionIdGenerator.nextId())
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void recordThenFlush() {
+        //given
+        WriteBehindLedger ledger = ledger(DataSize.ofMegabytes(1));
+        ledger.start();
+        Transaction transaction = useTransaction(9000L);
+
+        //when
+        ledger.record(Collections.singletonList(transaction));
+
+        //then
+        assertThat(ledger.pendingBalance("1000000012")).isEqualTo(OptionalLong.of(9000L));
+        assertThat(ledger.findPending(transaction.getTransactionId())).contains(transaction);
+        verify(transactionRepository, never()).saveAll(any());
+        verify(accountListCache, never()).evictAfterCompletion(any());
+
+        ledger.flush();
+
+        verify(transactionRepository, times(1)).saveAll(transactionsCaptor.capture());
+        verify(accountListCache, times(1)).evictAfterCompletion(12L);
+        assertThat(transactionsCaptor.getValue()).extracting(Transaction::getTransactionId)
+                .containsExactly(transaction.getTransactionId());
+        assertThat(account.getBalance()).isEqualTo(9000L);
+        assertThat(ledger.pendingBalance("1000000012")).isEmpty();
+        assertThat(ledger.findPending(transaction.getTransactionId())).isEmpty();
+    }
+
+    @Test
+    void replayUnflushedRecordsOnStart_skipRecordedTransactions() {
+        //given
+        WriteBehindLedger crashed = ledger(DataSize.ofMegabytes(1));
+        crashed.start();
+        Transaction first = useTransaction(9000L);
+        Transaction second = useTransaction(8000L);
+        crashed.record(Collections.singletonList(first));
+        crashed.record(Collections.singletonList(second));
+        // 첫 거래는 DB 에 저장되었지만 체크포인트를 남기기 전에 멈춘 상황
+        given(transactionRepository.findByTransactionNoIn(anyCollection()))
+                .willReturn(Collections.singletonList(first));
+
+        //when
+        WriteBehindLedger restarted = ledger(DataSize.ofMegabytes(1));
+        restarted.start();
+
+        //then
+        assertThat(restarted.pendingBalance("1000000012")).isEqualTo(OptionalLong.of(8000L));
+        assertThat(restarted.findPending(second.getTransactionId())).isPresent();
+
+        restarted.flush();
+
+        verify(transactionRepository, times(1)).saveAll(transactionsCaptor.capture());
+        assertThat(transactionsCaptor.getValue()).extracting(Transaction::getTransactionId)
+                .containsExactly(second.getTransactionId());
+        assertThat(account.getBalance()).isEqualTo(8000L);
+    }
+
+    @Test
+    void journalFull_flushAndRewind() {
+        //given
+        WriteBehindLedger ledger = ledger(DataSize.ofBytes(1024));
+        ledger.start();
+
+        //when
+        for (int i = 0; i < 50; i++) {
+            ledger.record(Collections.singletonList(useTransaction(10000L - i)));
+        }
+
+        //then
+        verify(transactionRepository, atLeastOnce()).saveAll(any());
+        assertThat(ledger.pendingBalance("1000000012")).isEqualTo(OptionalLong.of(9951L));
+    }
+
+    @Test
+    void failingRecord_quarantinedAndRestApplied() throws Exception {
+        //given
+        WriteBehindLedger ledger = ledger(DataSize.ofMegabytes(1));
+        ledger.start();
+        Transaction first = useTransaction(9000L);
+        Transaction poison = useTransaction(8000L);
+        Transaction last = useTransaction(7000L);
+        ledger.record(Collections.singletonList(first));
+        ledger.record(Collections.singletonList(poison));
+        ledger.record(Collections.singletonList(last));
+        given(transactionRepository.saveAll(anyList())).willAnswer(invocation -> {
+            List<Transaction> rows = invocation.getArgument(0);
+            if (rows.stream().anyMatch(row -> row.getTransactionId().equals(poison.getTransactionId()))) {
+                throw new DataIntegrityViolationException("poison");
+            }
+            return rows;
+        });
+
+        //when
+        int applied = ledger.flush();
+
+        //then
+        assertThat(applied).isEqualTo(3);
+        assertThat(ledger.flush()).isZero();
+        assertThat(account.getBalance()).isEqualTo(7000L);
+        assertThat(ledger.pendingBalance("1000000012")).isEmpty();
+        assertThat(meterRegistry.get("account.ledger.journal.quarantined").counter().count()).isEqualTo(1.0);
+        assertThat(Files.readAllLines(tempDir.resolve("ledger.journal.quarantine"))).hasSize(1);
+    }
+
+    @Test
+    void transientFailure_retriedWithoutQuarantine() {
+        //given
+        WriteBehindLedger ledger = ledger(DataSize.ofMegabytes(1));
+        ledger.start();
+        ledger.record(Collections.singletonList(useTransaction(9000L)));
+        given(transactionRepository.saveAll(anyList())).willThrow(new QueryTimeoutException("timeout"));
+
+        //when
+        assertThrows(QueryTimeoutException.class, ledger::flush);
+
+        //then
+        assertThat(ledger.pendingBalance("1000000012")).isEqualTo(OptionalLong.of(9000L));
+        assertThat(meterRegistry.get("account.ledger.journal.quarantined").counter().count()).isZero();
+    }
+
+    @Test
+    void recordAfterShutdown_failFast() throws Exception {
+        //given
+        WriteBehindLedger ledger = ledger(DataSize.ofMegabytes(1));
+        ledger.start();
+        ledger.shutdown();
+        ledgers.remove(ledger);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledger.record(Collections.singletonList(useTransaction(9000L))));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(TRANSACTION_QUEUE_FULL);
+    }
+
+    @Test
+    void forceFailure_failRecordAndCount() {
+        //given
+        WriteBehindLedger ledger = ledger(DataSize.ofMegabytes(1));
+        ledger.start();
+        LedgerJournal journal = spy((LedgerJournal) ReflectionTestUtils.getField(ledger, "journal"));
+        doThrow(new UncheckedIOException(new IOException("disk"))).doCallRealMethod().when(journal).force();
+        ReflectionTestUtils.setField(ledger, "journal", journal);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledger.record(Collections.singletonList(useTransaction(9000L))));
+
+        //then
+        assertThat(exception.getErrorCode()).isEqualTo(LEDGER_SYNC_FAILED);
+        assertThat(meterRegistry.counter("account.ledger.journal.sync.failed").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void optimisticMode_notSupported() {
+        //given
+        WriteBehindLedger ledger = ledger(DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(ledger, "concurrencyMode", BalanceConcurrencyMode.OPTIMISTIC);
+
+        //when
+        //then
+        assertThrows(IllegalStateException.class, ledger::start);
+        assertThat(ledger.isEnabled()).isFalse();
+    }
+
+    @Test
+    void syncMode_disabled() {
+        //given
+        WriteBehindLedger ledger = ledger(DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(ledger, "writeMode", LedgerWriteMode.SYNC);
+
+        //when
+        ledger.start();
+
+        //then
+        assertThat(ledger.isEnabled()).isFalse();
+        assertThat(ledger.pendingBalance("1000000012")).isEmpty();
+    }
+}